@@ -0,0 +1,124 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BinaryFuseFilter} against {@link BloomFilter} and
+ * {@link BlockedBloomFilter} sized for the same false positive rate as the 8
+ * bit fingerprints, 1 / 256. All filters are queried with 64 bit hashes.
+ *
+ * The memory of each filter is printed in bits per item before its
+ * iterations. Negative lookups count their false positives, the false positive
+ * rate is the falsePositives score divided by the containsMiss score.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="BinaryFuseFilterBenchmark"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class BinaryFuseFilterBenchmark {
+	private static final int LOOKUPS = 1 << 20;
+	private static final double FALSE_POSITIVE_RATE = 1.0 / 256;
+
+	@Param({ "fuse", "bloom", "blocked" })
+	public String filter;
+
+	@Param({ "1000000", "16000000" })
+	public int insertions;
+
+	private BinaryFuseFilter fuse;
+	private BloomFilter<Long> bloom;
+	private BlockedBloomFilter<Long> blocked;
+	private long[] present;
+	private long[] missing;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long falsePositives;
+		private int position;
+
+		private int next() {
+			return position++ & (LOOKUPS - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		long[] hashes = new long[insertions];
+		for (int i = 0; i < insertions; i++) {
+			hashes[i] = random.nextLong();
+		}
+
+		long bits;
+		if (filter.equals("fuse")) {
+			fuse = BinaryFuseFilter.build(hashes);
+			bits = fuse.getMemoryBytes() * 8;
+		} else if (filter.equals("blocked")) {
+			blocked = BlockedBloomFilter.create(insertions, FALSE_POSITIVE_RATE, Long::longValue);
+			for (long hash : hashes) {
+				blocked.insert(hash);
+			}
+			bits = blocked.getNumBits();
+		} else {
+			bloom = BloomFilter.create(insertions, FALSE_POSITIVE_RATE, Long::longValue);
+			for (long hash : hashes) {
+				bloom.insert(hash);
+			}
+			bits = bloom.getNumBits();
+		}
+		System.out.printf("%n%s filter: %.2f bits per item%n", filter, (double) bits / insertions);
+
+		present = new long[LOOKUPS];
+		missing = new long[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			present[i] = hashes[random.nextInt(insertions)];
+			missing[i] = random.nextLong();
+		}
+	}
+
+	private boolean contains(long hash) {
+		if (fuse != null) {
+			return fuse.contains(hash);
+		}
+		return blocked != null ? blocked.contains(hash) : bloom.contains(hash);
+	}
+
+	@Benchmark
+	public boolean containsHit(Counters counters) {
+		return contains(present[counters.next()]);
+	}
+
+	@Benchmark
+	public boolean containsMiss(Counters counters) {
+		boolean found = contains(missing[counters.next()]);
+		if (found) {
+			counters.falsePositives++;
+		}
+		return found;
+	}
+}
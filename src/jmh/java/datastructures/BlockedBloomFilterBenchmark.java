@@ -0,0 +1,112 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups per second of {@link BlockedBloomFilter} against the classic layout
+ * of {@link BloomFilter}, both sized for the same insertions and false positive
+ * rate. Negative lookups are where blocking pays off once the filter is larger
+ * than the cache, each probes one block instead of k random cache lines.
+ *
+ * Negative lookups count their false positives, the false positive rate of a
+ * filter is its falsePositives score divided by its containsMiss score.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="BlockedBloomFilterBenchmark"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class BlockedBloomFilterBenchmark {
+	private static final int LOOKUPS = 1 << 20;
+
+	@Param({ "blocked", "classic" })
+	public String layout;
+
+	// 1M fits a 2 MB filter in the cache at 1%, 64M needs 77 MB
+	@Param({ "1000000", "64000000" })
+	public int insertions;
+
+	@Param({ "0.01", "0.001" })
+	public double falsePositiveRate;
+
+	private BlockedBloomFilter<Long> blocked;
+	private BloomFilter<Long> classic;
+	private Long[] present;
+	private Long[] missing;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long falsePositives;
+		private int position;
+
+		private int next() {
+			return position++ & (LOOKUPS - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		// Keys 0 until insertions are inserted, the missing keys are above them
+		if (layout.equals("blocked")) {
+			blocked = BlockedBloomFilter.create(insertions, falsePositiveRate);
+			for (long key = 0; key < insertions; key++) {
+				blocked.insert(key);
+			}
+		} else {
+			classic = BloomFilter.create(insertions, falsePositiveRate);
+			for (long key = 0; key < insertions; key++) {
+				classic.insert(key);
+			}
+		}
+
+		Random random = new Random(42);
+		present = new Long[LOOKUPS];
+		missing = new Long[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			present[i] = (long) random.nextInt(insertions);
+			missing[i] = insertions + (random.nextLong() >>> 1);
+		}
+	}
+
+	private boolean contains(Long key) {
+		return blocked != null ? blocked.contains(key) : classic.contains(key);
+	}
+
+	@Benchmark
+	public boolean containsHit(Counters counters) {
+		return contains(present[counters.next()]);
+	}
+
+	@Benchmark
+	public boolean containsMiss(Counters counters) {
+		boolean found = contains(missing[counters.next()]);
+		if (found) {
+			counters.falsePositives++;
+		}
+		return found;
+	}
+}
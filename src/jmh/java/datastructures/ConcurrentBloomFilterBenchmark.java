@@ -0,0 +1,67 @@
+package datastructures;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert throughput of the lock free {@link ConcurrentBloomFilter} against a
+ * {@link BloomFilter} behind a global lock. The filters are replaced every
+ * iteration so they do not fill up.
+ *
+ * Run with increasing thread counts, the lock free filter should scale with
+ * the cores while the locked filter stays flat:
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="ConcurrentBloomFilterBenchmark -t 1"
+ * mvn -P jmh compile exec:exec -Djmh.args="ConcurrentBloomFilterBenchmark -t 8"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class ConcurrentBloomFilterBenchmark {
+	@Param({ "64000000" })
+	public int expectedInsertions;
+
+	private ConcurrentBloomFilter<Long> concurrentFilter;
+	private BloomFilter<Long> globalLockFilter;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		concurrentFilter = ConcurrentBloomFilter.create(expectedInsertions, 0.01);
+		globalLockFilter = BloomFilter.create(expectedInsertions, 0.01);
+	}
+
+	@Benchmark
+	public boolean concurrent() {
+		return concurrentFilter.insert(ThreadLocalRandom.current().nextLong());
+	}
+
+	@Benchmark
+	public BloomFilter<Long> globalLock() {
+		Long item = ThreadLocalRandom.current().nextLong();
+		synchronized (globalLockFilter) {
+			globalLockFilter.insert(item);
+		}
+		return globalLockFilter;
+	}
+}
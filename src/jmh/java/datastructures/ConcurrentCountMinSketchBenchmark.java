@@ -0,0 +1,99 @@
+package datastructures;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert throughput of the lock free {@link ConcurrentCountMinSketch} against
+ * a {@link CountMinSketch} behind a global lock, with and without conservative
+ * update. Both sketches have 4 rows of the same width, the keys are drawn
+ * uniformly from a range so every key repeats.
+ *
+ * Run with increasing thread counts, the lock free sketch should scale with
+ * the cores while the locked sketches stay flat:
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="ConcurrentCountMinSketchBenchmark -t 1"
+ * mvn -P jmh compile exec:exec -Djmh.args="ConcurrentCountMinSketchBenchmark -t 8"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class ConcurrentCountMinSketchBenchmark {
+	private static final int DEPTH = 4;
+
+	@Param({ "1048576" })
+	public int width;
+
+	@Param({ "1000000" })
+	public int keys;
+
+	private ConcurrentCountMinSketch<Integer> concurrentSketch;
+	private CountMinSketch<Integer> globalLockSketch;
+	private CountMinSketch<Integer> globalLockConservativeSketch;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		concurrentSketch = new ConcurrentCountMinSketch<>(width, DEPTH, BloomFilter::hashCodeMix);
+		globalLockSketch = new CountMinSketch<>(width, hashFunctions());
+		globalLockConservativeSketch = new CountMinSketch<>(width, true, hashFunctions());
+	}
+
+	// One hash function per row, each a differently seeded mix of the key
+	@SuppressWarnings("unchecked")
+	private static CountMinSketch.Hashable<Integer>[] hashFunctions() {
+		CountMinSketch.Hashable<Integer>[] hashers = new CountMinSketch.Hashable[DEPTH];
+		for (int i = 0; i < DEPTH; i++) {
+			long seed = 0x9E3779B97F4A7C15L * (i + 1);
+			hashers[i] = key -> {
+				long hash = (key ^ seed) * 0xFF51AFD7ED558CCDL;
+				return (int) (hash ^ (hash >>> 32));
+			};
+		}
+		return hashers;
+	}
+
+	@Benchmark
+	public ConcurrentCountMinSketch<Integer> concurrent() {
+		concurrentSketch.insert(ThreadLocalRandom.current().nextInt(keys));
+		return concurrentSketch;
+	}
+
+	@Benchmark
+	public CountMinSketch<Integer> globalLock() {
+		Integer key = ThreadLocalRandom.current().nextInt(keys);
+		synchronized (globalLockSketch) {
+			globalLockSketch.insert(key);
+		}
+		return globalLockSketch;
+	}
+
+	@Benchmark
+	public CountMinSketch<Integer> globalLockConservative() {
+		Integer key = ThreadLocalRandom.current().nextInt(keys);
+		synchronized (globalLockConservativeSketch) {
+			globalLockConservativeSketch.insert(key);
+		}
+		return globalLockConservativeSketch;
+	}
+}
@@ -0,0 +1,83 @@
+package datastructures;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the concurrent extendible hash table against the single
+ * threaded table behind a global lock, for a mix of reads and writes.
+ *
+ * Run with increasing thread counts to see how each scales across cores:
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="ConcurrentExtendibleHashTableBenchmark -t 1"
+ * mvn -P jmh compile exec:exec -Djmh.args="ConcurrentExtendibleHashTableBenchmark -t 8"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentExtendibleHashTableBenchmark {
+	@Param({ "65536" })
+	public int size;
+
+	// Percentage of operations that are puts
+	@Param({ "10", "50" })
+	public int writePercent;
+
+	private Map<Integer, Integer> concurrentTable;
+	private Map<Integer, Integer> globalLockTable;
+	private Integer[] keys;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		concurrentTable = new ConcurrentExtendibleHashTable<>(16);
+		globalLockTable = Collections.synchronizedMap(new ExtendibleHashTable<>(16));
+		keys = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = i;
+			concurrentTable.put(i, i);
+			globalLockTable.put(i, i);
+		}
+	}
+
+	private Integer operate(Map<Integer, Integer> table) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Integer key = keys[random.nextInt(size)];
+		if (random.nextInt(100) < writePercent) {
+			return table.put(key, key);
+		}
+		return table.get(key);
+	}
+
+	@Benchmark
+	public Integer concurrent() {
+		return operate(concurrentTable);
+	}
+
+	@Benchmark
+	public Integer globalLock() {
+		return operate(globalLockTable);
+	}
+}
@@ -0,0 +1,141 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CuckooFilter} against the deletable bloom filters,
+ * {@link CountingBloomFIlter} with int counters and
+ * {@link PackedCountingBloomFilter} with 4 bit counters, all sized for the same
+ * insertions and false positive rate.
+ *
+ * The memory of each filter is printed in bits per item before its
+ * iterations. Negative lookups count their false positives, the false positive
+ * rate is the falsePositives score divided by the containsMiss score.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="CuckooFilterBenchmark"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class CuckooFilterBenchmark {
+	private static final int LOOKUPS = 1 << 20;
+
+	@Param({ "cuckoo", "counting", "packed" })
+	public String filter;
+
+	@Param({ "1000000", "16000000" })
+	public int insertions;
+
+	@Param({ "0.01", "0.001" })
+	public double falsePositiveRate;
+
+	private CuckooFilter<Long> cuckoo;
+	private CountingBloomFIlter<Long> counting;
+	private PackedCountingBloomFilter<Long> packed;
+	private Long[] present;
+	private Long[] missing;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long falsePositives;
+		private int position;
+
+		private int next() {
+			return position++ & (LOOKUPS - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		long bytes;
+		if (filter.equals("cuckoo")) {
+			cuckoo = CuckooFilter.create(insertions, falsePositiveRate);
+			for (long key = 0; key < insertions; key++) {
+				cuckoo.insert(key);
+			}
+			bytes = cuckoo.getMemoryBytes();
+		} else if (filter.equals("packed")) {
+			packed = PackedCountingBloomFilter.create(insertions, falsePositiveRate);
+			for (long key = 0; key < insertions; key++) {
+				packed.insert(key);
+			}
+			bytes = packed.getMemoryBytes();
+		} else {
+			counting = newCountingFilter();
+			for (long key = 0; key < insertions; key++) {
+				counting.insert(key);
+			}
+			bytes = (long) BloomFilter.optimalNumBits(insertions, falsePositiveRate) * Integer.BYTES;
+		}
+		System.out.printf("%n%s filter: %.2f bits per item%n", filter, bytes * 8.0 / insertions);
+
+		Random random = new Random(42);
+		present = new Long[LOOKUPS];
+		missing = new Long[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			present[i] = (long) random.nextInt(insertions);
+			missing[i] = insertions + (random.nextLong() >>> 1);
+		}
+	}
+
+	// One hash function per counter, each a differently seeded mix of the key
+	@SuppressWarnings("unchecked")
+	private CountingBloomFIlter<Long> newCountingFilter() {
+		long numCounters = BloomFilter.optimalNumBits(insertions, falsePositiveRate);
+		int numHashes = BloomFilter.optimalNumHashes(insertions, numCounters);
+		CountingBloomFIlter.Hashable<Long>[] hashers = new CountingBloomFIlter.Hashable[numHashes];
+		for (int i = 0; i < numHashes; i++) {
+			long seed = 0x9E3779B97F4A7C15L * (i + 1);
+			hashers[i] = key -> {
+				long hash = (key ^ seed) * 0xFF51AFD7ED558CCDL;
+				return (int) (hash ^ (hash >>> 32));
+			};
+		}
+		return new CountingBloomFIlter<>((int) numCounters, hashers);
+	}
+
+	private boolean contains(Long key) {
+		if (cuckoo != null) {
+			return cuckoo.contains(key);
+		}
+		return packed != null ? packed.contains(key) : counting.contains(key);
+	}
+
+	@Benchmark
+	public boolean containsHit(Counters counters) {
+		return contains(present[counters.next()]);
+	}
+
+	@Benchmark
+	public boolean containsMiss(Counters counters) {
+		boolean found = contains(missing[counters.next()]);
+		if (found) {
+			counters.falsePositives++;
+		}
+		return found;
+	}
+}
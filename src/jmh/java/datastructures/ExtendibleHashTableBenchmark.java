@@ -0,0 +1,85 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup benchmarks for the extendible hash table.
+ *
+ * Run with the gc profiler to check the allocation rate of the lookup path,
+ * gc.alloc.rate.norm should be ~0 bytes per operation:
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="ExtendibleHashTableBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtendibleHashTableBenchmark {
+	@Param({ "1024", "65536" })
+	public int size;
+
+	@Param({ "4", "32" })
+	public int bucketSize;
+
+	private ExtendibleHashTable<Integer, Integer> table;
+	private Integer[] presentKeys;
+	private Integer[] missingKeys;
+	private int position;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		table = new ExtendibleHashTable<>(bucketSize);
+		presentKeys = new Integer[size];
+		missingKeys = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			// Even keys are present, odd keys are missing
+			int key = random.nextInt() << 1;
+			presentKeys[i] = key;
+			missingKeys[i] = key | 1;
+			table.put(key, i);
+		}
+	}
+
+	private int nextPosition() {
+		int current = position;
+		position = current + 1 == size ? 0 : current + 1;
+		return current;
+	}
+
+	@Benchmark
+	public Integer getHit() {
+		return table.get(presentKeys[nextPosition()]);
+	}
+
+	@Benchmark
+	public Integer getMiss() {
+		return table.get(missingKeys[nextPosition()]);
+	}
+
+	@Benchmark
+	public boolean containsKey() {
+		return table.containsKey(presentKeys[nextPosition()]);
+	}
+}
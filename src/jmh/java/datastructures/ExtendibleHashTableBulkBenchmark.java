@@ -0,0 +1,113 @@
+package datastructures;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building a table with one put per entry against putAll and the
+ * sequential and parallel bulk loads, and looking up keys one at a time
+ * against getAll.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="ExtendibleHashTableBulkBenchmark"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtendibleHashTableBulkBenchmark {
+	@Param({ "65536", "1048576" })
+	public int size;
+
+	@Param({ "4", "32" })
+	public int bucketSize;
+
+	private List<Entry<Integer, Integer>> entries;
+	private Map<Integer, Integer> map;
+	private List<Integer> keys;
+	private ExtendibleHashTable<Integer, Integer> table;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		entries = new ArrayList<>(size);
+		map = new HashMap<>(size * 2);
+		keys = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int key = random.nextInt();
+			entries.add(new SimpleEntry<>(key, i));
+			map.put(key, i);
+			keys.add(key);
+		}
+		table = new ExtendibleHashTable<>(bucketSize);
+		table.putAll(map);
+	}
+
+	@Benchmark
+	public ExtendibleHashTable<Integer, Integer> putLoop() {
+		ExtendibleHashTable<Integer, Integer> built = new ExtendibleHashTable<>(bucketSize);
+		for (Entry<Integer, Integer> entry : entries) {
+			built.put(entry.getKey(), entry.getValue());
+		}
+		return built;
+	}
+
+	@Benchmark
+	public ExtendibleHashTable<Integer, Integer> putAll() {
+		ExtendibleHashTable<Integer, Integer> built = new ExtendibleHashTable<>(bucketSize);
+		built.putAll(map);
+		return built;
+	}
+
+	@Benchmark
+	public ExtendibleHashTable<Integer, Integer> bulkLoad() {
+		return ExtendibleHashTable.bulkLoad(entries, bucketSize, ExtendibleHashTable.DEFAULT_HASHER, false);
+	}
+
+	@Benchmark
+	public ExtendibleHashTable<Integer, Integer> bulkLoadParallel() {
+		return ExtendibleHashTable.bulkLoad(entries, bucketSize, ExtendibleHashTable.DEFAULT_HASHER, true);
+	}
+
+	@Benchmark
+	public Map<Integer, Integer> getLoop() {
+		Map<Integer, Integer> found = new HashMap<>();
+		for (Integer key : keys) {
+			Integer value = table.get(key);
+			if (value != null) {
+				found.put(key, value);
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public Map<Integer, Integer> getAll() {
+		return table.getAll(keys);
+	}
+}
@@ -0,0 +1,78 @@
+package datastructures;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Samples the latency of single puts into a growing table, comparing directory
+ * doubling in {@link ExtendibleHashTable} with the bucket at a time growth of
+ * {@link LinearHashTable}. The tables are filled from empty up to size entries
+ * and then replaced with an empty table, so every doubling up to the size is
+ * sampled. Compare the p0.999 and p1.0 percentiles, the averages hide the
+ * spikes.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="GrowthLatencyBenchmark"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Thread)
+public class GrowthLatencyBenchmark {
+	@Param({ "extendible", "linear" })
+	public String table;
+
+	@Param({ "4" })
+	public int bucketSize;
+
+	@Param({ "4194304" })
+	public int size;
+
+	private Map<Integer, Integer> map;
+	private Integer[] keys;
+	private int position;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		keys = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextInt();
+		}
+		map = newTable();
+	}
+
+	private Map<Integer, Integer> newTable() {
+		return table.equals("linear") ? new LinearHashTable<>(bucketSize) : new ExtendibleHashTable<>(bucketSize);
+	}
+
+	@Benchmark
+	public Integer put() {
+		if (position == size) {
+			map = newTable();
+			position = 0;
+		}
+		Integer key = keys[position++];
+		return map.put(key, key);
+	}
+}
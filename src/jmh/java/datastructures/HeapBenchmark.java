@@ -0,0 +1,90 @@
+package datastructures;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LeftistHeap} and {@link SkewHeap} against {@link PriorityQueue}. Each
+ * thread owns its heaps, which hold size keys while an insert is followed by a
+ * remove of the minimum.
+ *
+ * <pre>
+ * mvn -P jmh,jmh-gc compile exec:exec -Djmh.args="HeapBenchmark"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeapBenchmark {
+	private static final int ACCESSES = 1 << 16;
+
+	@Param({ "1024", "65536" })
+	public int size;
+
+	@Param({ "UNIFORM", "ZIPFIAN", "SAME_HASH" })
+	public KeyDistribution distribution;
+
+	private LeftistHeap<String> leftistHeap;
+	private SkewHeap<String> skewHeap;
+	private PriorityQueue<String> priorityQueue;
+	private String[] keys;
+	private int[] accesses;
+	private int position;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		keys = distribution.keys(size, random);
+		accesses = distribution.accesses(size, ACCESSES, random);
+		leftistHeap = new LeftistHeap<>();
+		skewHeap = new SkewHeap<>();
+		priorityQueue = new PriorityQueue<>();
+		for (String key : keys) {
+			leftistHeap.insert(key);
+			skewHeap.insert(key);
+			priorityQueue.add(key);
+		}
+	}
+
+	private String nextKey() {
+		return keys[accesses[position++ & (ACCESSES - 1)]];
+	}
+
+	@Benchmark
+	public String leftistHeapInsertRemoveMin() {
+		leftistHeap.insert(nextKey());
+		return leftistHeap.removeMin();
+	}
+
+	@Benchmark
+	public String skewHeapInsertRemoveMin() {
+		skewHeap.insert(nextKey());
+		return skewHeap.removeMin();
+	}
+
+	@Benchmark
+	public String priorityQueueInsertRemoveMin() {
+		priorityQueue.add(nextKey());
+		return priorityQueue.poll();
+	}
+}
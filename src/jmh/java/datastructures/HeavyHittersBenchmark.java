@@ -0,0 +1,93 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert throughput of {@link HeavyHitters} against its
+ * {@link ConcurrentCountMinSketch} alone, the difference is the cost of
+ * tracking the top k. The trackers are replaced every iteration.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="HeavyHittersBenchmark -t 1"
+ * mvn -P jmh compile exec:exec -Djmh.args="HeavyHittersBenchmark -t 8"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class HeavyHittersBenchmark {
+	private static final int ACCESSES = 1 << 16;
+
+	@Param({ "UNIFORM", "ZIPFIAN" })
+	public KeyDistribution distribution;
+
+	@Param({ "100000" })
+	public int size;
+
+	@Param({ "100" })
+	public int k;
+
+	private String[] keys;
+	private int[] accesses;
+	private HeavyHitters<String> heavyHitters;
+	private ConcurrentCountMinSketch<String> sketch;
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private int position;
+
+		@Setup
+		public void setup() {
+			position = new Random().nextInt(ACCESSES);
+		}
+
+		private int next() {
+			return position++ & (ACCESSES - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setupKeys() {
+		Random random = new Random(42);
+		keys = distribution.keys(size, random);
+		accesses = distribution.accesses(size, ACCESSES, random);
+	}
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		heavyHitters = HeavyHitters.create(k, 0.0001, 0.01);
+		sketch = ConcurrentCountMinSketch.create(0.0001, 0.01);
+	}
+
+	@Benchmark
+	public HeavyHitters<String> heavyHitters(ThreadState state) {
+		heavyHitters.insert(keys[accesses[state.next()]]);
+		return heavyHitters;
+	}
+
+	@Benchmark
+	public ConcurrentCountMinSketch<String> sketchOnly(ThreadState state) {
+		sketch.insert(keys[accesses[state.next()]]);
+		return sketch;
+	}
+}
@@ -0,0 +1,95 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The keys and the order they are accessed in for the package benchmarks.
+ *
+ * Keys are strings of letters so the same keys can be used by the tries, the
+ * heaps, the hash tables and the filters.
+ *
+ * <ul>
+ * <li>UNIFORM: random keys accessed uniformly.</li>
+ * <li>ZIPFIAN: random keys where the key of rank r is accessed in proportion
+ * to 1 / r^0.99, a few hot keys take most of the accesses.</li>
+ * <li>SAME_HASH: keys built from the blocks "Aa" and "BB", which have the same
+ * {@link String#hashCode()}, so every key has the same hash. Accessed
+ * uniformly.</li>
+ * </ul>
+ *
+ * @author Ethan
+ *
+ */
+public enum KeyDistribution {
+	UNIFORM, ZIPFIAN, SAME_HASH;
+
+	private static final int KEY_LENGTH = 12;
+	private static final double ZIPF_EXPONENT = 0.99;
+
+	/**
+	 *
+	 * @param size   The number of distinct keys.
+	 * @param random Source of the keys.
+	 * @return Distinct keys of letters.
+	 */
+	public String[] keys(int size, Random random) {
+		String[] keys = new String[size];
+		if (this == SAME_HASH) {
+			int blocks = Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+			for (int i = 0; i < size; i++) {
+				StringBuilder key = new StringBuilder(blocks * 2);
+				for (int block = 0; block < blocks; block++) {
+					key.append((i >>> block & 1) == 0 ? "Aa" : "BB");
+				}
+				keys[i] = key.toString();
+			}
+			return keys;
+		}
+
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < size;) {
+			char[] key = new char[KEY_LENGTH];
+			for (int j = 0; j < key.length; j++) {
+				key[j] = (char) ('a' + random.nextInt(26));
+			}
+			String candidate = new String(key);
+			if (seen.add(candidate)) {
+				keys[i++] = candidate;
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 *
+	 * @param size   The number of distinct keys.
+	 * @param count  The number of accesses, a power of 2 so a cursor can wrap
+	 *               with a mask.
+	 * @param random Source of the accesses.
+	 * @return The indices of the keys in access order.
+	 */
+	public int[] accesses(int size, int count, Random random) {
+		int[] accesses = new int[count];
+		if (this != ZIPFIAN) {
+			for (int i = 0; i < count; i++) {
+				accesses[i] = random.nextInt(size);
+			}
+			return accesses;
+		}
+
+		double[] cumulative = new double[size];
+		double total = 0;
+		for (int rank = 0; rank < size; rank++) {
+			total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+			cumulative[rank] = total;
+		}
+		for (int i = 0; i < count; i++) {
+			int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+			accesses[i] = Math.min(size - 1, rank < 0 ? -rank - 1 : rank);
+		}
+		return accesses;
+	}
+}
@@ -0,0 +1,101 @@
+package datastructures;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ExtendibleHashTable} against {@link HashMap} for each
+ * {@link KeyDistribution}. Gets read a table shared by every thread, removes
+ * and puts write to a table owned by each thread.
+ *
+ * The same hash keys chain every key to one bucket of the extendible hash
+ * table, while the HashMap falls back to a tree per bucket.
+ *
+ * <pre>
+ * mvn -P jmh,jmh-gc compile exec:exec -Djmh.args="MapBenchmark -t 1"
+ * mvn -P jmh,jmh-gc compile exec:exec -Djmh.args="MapBenchmark -t 4"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapBenchmark {
+	private static final int ACCESSES = 1 << 16;
+
+	@Param({ "extendible", "hashmap" })
+	public String map;
+
+	@Param({ "1024", "65536" })
+	public int size;
+
+	@Param({ "UNIFORM", "ZIPFIAN", "SAME_HASH" })
+	public KeyDistribution distribution;
+
+	private Map<String, String> shared;
+	private String[] keys;
+	private int[] accesses;
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private Map<String, String> owned;
+		private int position;
+
+		@Setup(Level.Trial)
+		public void setup(MapBenchmark benchmark) {
+			owned = benchmark.newFilledMap();
+		}
+
+		private int next() {
+			return position++ & (ACCESSES - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		keys = distribution.keys(size, random);
+		accesses = distribution.accesses(size, ACCESSES, random);
+		shared = newFilledMap();
+	}
+
+	private Map<String, String> newFilledMap() {
+		Map<String, String> filled = map.equals("hashmap") ? new HashMap<>() : new ExtendibleHashTable<>(16);
+		for (String key : keys) {
+			filled.put(key, key);
+		}
+		return filled;
+	}
+
+	@Benchmark
+	public String get(ThreadState state) {
+		return shared.get(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public String removePut(ThreadState state) {
+		String key = keys[accesses[state.next()]];
+		state.owned.remove(key);
+		return state.owned.put(key, key);
+	}
+}
@@ -0,0 +1,118 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the generic extendible hash table with the long and int key
+ * variants, the callers hold primitive keys like an index of long ids would.
+ *
+ * The build benchmarks insert every key into an empty table, with the gc
+ * profiler gc.alloc.rate.norm divided by size is the number of bytes allocated
+ * per entry: the table's footprint plus the garbage of splits and boxing.
+ *
+ * <pre>
+ * mvn -P jmh compile exec:exec -Djmh.args="PrimitiveExtendibleHashTableBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveExtendibleHashTableBenchmark {
+	@Param({ "1024", "65536" })
+	public int size;
+
+	private ExtendibleHashTable<Long, Integer> genericTable;
+	private LongExtendibleHashTable<Integer> longTable;
+	private IntExtendibleHashTable<Integer> intTable;
+	private long[] keys;
+	private Integer value;
+	private int position;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		genericTable = new ExtendibleHashTable<>();
+		longTable = new LongExtendibleHashTable<>();
+		intTable = new IntExtendibleHashTable<>();
+		keys = new long[size];
+		value = 1;
+		for (int i = 0; i < size; i++) {
+			// Ids that fit in an int so every table holds the same keys
+			keys[i] = random.nextInt() & Integer.MAX_VALUE;
+			genericTable.put(keys[i], value);
+			longTable.putLong(keys[i], value);
+			intTable.putInt((int) keys[i], value);
+		}
+	}
+
+	private int nextPosition() {
+		int current = position;
+		position = current + 1 == size ? 0 : current + 1;
+		return current;
+	}
+
+	@Benchmark
+	public Integer genericGet() {
+		return genericTable.get(keys[nextPosition()]);
+	}
+
+	@Benchmark
+	public Integer longGet() {
+		return longTable.getLong(keys[nextPosition()]);
+	}
+
+	@Benchmark
+	public Integer intGet() {
+		return intTable.getInt((int) keys[nextPosition()]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ExtendibleHashTable<Long, Integer> genericBuild() {
+		ExtendibleHashTable<Long, Integer> table = new ExtendibleHashTable<>();
+		for (long key : keys) {
+			table.put(key, value);
+		}
+		return table;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public LongExtendibleHashTable<Integer> longBuild() {
+		LongExtendibleHashTable<Integer> table = new LongExtendibleHashTable<>();
+		for (long key : keys) {
+			table.putLong(key, value);
+		}
+		return table;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public IntExtendibleHashTable<Integer> intBuild() {
+		IntExtendibleHashTable<Integer> table = new IntExtendibleHashTable<>();
+		for (long key : keys) {
+			table.putInt((int) key, value);
+		}
+		return table;
+	}
+}
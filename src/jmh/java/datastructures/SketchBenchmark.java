@@ -0,0 +1,159 @@
+package datastructures;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BloomFilter} against a {@link HashSet} and {@link CountMinSketch}
+ * against a {@link HashMap} of exact counts. Lookups read the structures shared
+ * by every thread, inserts write to the structures owned by each thread.
+ *
+ * The filter is sized for a 1% false positive rate and the sketch has 1
+ * counter per row per key with 4 hash functions.
+ *
+ * <pre>
+ * mvn -P jmh,jmh-gc compile exec:exec -Djmh.args="SketchBenchmark -t 1"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SketchBenchmark {
+	private static final int ACCESSES = 1 << 16;
+	private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+	@Param({ "1024", "65536" })
+	public int size;
+
+	@Param({ "UNIFORM", "ZIPFIAN", "SAME_HASH" })
+	public KeyDistribution distribution;
+
+	private BloomFilter<String> bloomFilter;
+	private HashSet<String> hashSet;
+	private CountMinSketch<String> countMinSketch;
+	private HashMap<String, Integer> counts;
+	private String[] keys;
+	private int[] accesses;
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private BloomFilter<String> bloomFilter;
+		private HashSet<String> hashSet;
+		private CountMinSketch<String> countMinSketch;
+		private HashMap<String, Integer> counts;
+		private int position;
+
+		@Setup(Level.Trial)
+		public void setup(SketchBenchmark benchmark) {
+			bloomFilter = benchmark.newBloomFilter();
+			hashSet = new HashSet<>();
+			countMinSketch = benchmark.newCountMinSketch();
+			counts = new HashMap<>();
+		}
+
+		private int next() {
+			return position++ & (ACCESSES - 1);
+		}
+	}
+
+	private static int hash(String key, int seed) {
+		int hash = key.hashCode() * seed;
+		hash ^= hash >>> 15;
+		return hash * 0x2C1B3C6D;
+	}
+
+	private BloomFilter<String> newBloomFilter() {
+		return BloomFilter.create(size, 0.01);
+	}
+
+	@SuppressWarnings("unchecked")
+	private CountMinSketch<String> newCountMinSketch() {
+		CountMinSketch.Hashable<String>[] hashers = new CountMinSketch.Hashable[SEEDS.length];
+		for (int i = 0; i < SEEDS.length; i++) {
+			int seed = SEEDS[i];
+			hashers[i] = key -> (hash(key, seed) & Integer.MAX_VALUE) % size;
+		}
+		return new CountMinSketch<>(size, hashers);
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		keys = distribution.keys(size, random);
+		accesses = distribution.accesses(size, ACCESSES, random);
+		bloomFilter = newBloomFilter();
+		hashSet = new HashSet<>();
+		countMinSketch = newCountMinSketch();
+		counts = new HashMap<>();
+		for (int access : accesses) {
+			String key = keys[access];
+			bloomFilter.insert(key);
+			hashSet.add(key);
+			countMinSketch.insert(key);
+			counts.merge(key, 1, Integer::sum);
+		}
+	}
+
+	@Benchmark
+	public boolean bloomFilterContains(ThreadState state) {
+		return bloomFilter.contains(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public boolean hashSetContains(ThreadState state) {
+		return hashSet.contains(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public int countMinSketchCount(ThreadState state) {
+		return countMinSketch.count(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public Integer hashMapCount(ThreadState state) {
+		return counts.get(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public BloomFilter<String> bloomFilterInsert(ThreadState state) {
+		state.bloomFilter.insert(keys[accesses[state.next()]]);
+		return state.bloomFilter;
+	}
+
+	@Benchmark
+	public boolean hashSetAdd(ThreadState state) {
+		return state.hashSet.add(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public CountMinSketch<String> countMinSketchInsert(ThreadState state) {
+		state.countMinSketch.insert(keys[accesses[state.next()]]);
+		return state.countMinSketch;
+	}
+
+	@Benchmark
+	public Integer hashMapIncrement(ThreadState state) {
+		return state.counts.merge(keys[accesses[state.next()]], 1, Integer::sum);
+	}
+}
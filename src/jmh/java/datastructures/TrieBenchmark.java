@@ -0,0 +1,131 @@
+package datastructures;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ArrayTrie} and {@link HashMapTrie} against a {@link TreeMap} of the
+ * same lower cased words. Finds read the tries shared by every thread,
+ * inserts and deletes write to the tries owned by each thread.
+ *
+ * <pre>
+ * mvn -P jmh,jmh-gc compile exec:exec -Djmh.args="TrieBenchmark -t 1"
+ * </pre>
+ *
+ * @author Ethan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrieBenchmark {
+	private static final int ACCESSES = 1 << 16;
+
+	@Param({ "1024", "65536" })
+	public int size;
+
+	@Param({ "UNIFORM", "ZIPFIAN", "SAME_HASH" })
+	public KeyDistribution distribution;
+
+	private ArrayTrie arrayTrie;
+	private HashMapTrie hashMapTrie;
+	private TreeMap<String, Boolean> treeMap;
+	private String[] keys;
+	private int[] accesses;
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private ArrayTrie arrayTrie;
+		private HashMapTrie hashMapTrie;
+		private TreeMap<String, Boolean> treeMap;
+		private int position;
+
+		@Setup(Level.Trial)
+		public void setup(TrieBenchmark benchmark) {
+			arrayTrie = new ArrayTrie();
+			hashMapTrie = new HashMapTrie();
+			treeMap = new TreeMap<>();
+			benchmark.fill(arrayTrie, hashMapTrie, treeMap);
+		}
+
+		private int next() {
+			return position++ & (ACCESSES - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		keys = distribution.keys(size, random);
+		// The array trie only stores lower case letters
+		for (int i = 0; i < size; i++) {
+			keys[i] = keys[i].toLowerCase();
+		}
+		accesses = distribution.accesses(size, ACCESSES, random);
+		arrayTrie = new ArrayTrie();
+		hashMapTrie = new HashMapTrie();
+		treeMap = new TreeMap<>();
+		fill(arrayTrie, hashMapTrie, treeMap);
+	}
+
+	private void fill(ArrayTrie arrays, HashMapTrie hashMaps, TreeMap<String, Boolean> tree) {
+		for (String key : keys) {
+			arrays.insert(key);
+			hashMaps.insert(key);
+			tree.put(key, Boolean.TRUE);
+		}
+	}
+
+	@Benchmark
+	public boolean arrayTrieFind(ThreadState state) {
+		return arrayTrie.find(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public boolean hashMapTrieFind(ThreadState state) {
+		return hashMapTrie.find(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public boolean treeMapFind(ThreadState state) {
+		return treeMap.containsKey(keys[accesses[state.next()]]);
+	}
+
+	@Benchmark
+	public boolean arrayTrieDeleteInsert(ThreadState state) {
+		String key = keys[accesses[state.next()]];
+		state.arrayTrie.delete(key);
+		return state.arrayTrie.insert(key);
+	}
+
+	@Benchmark
+	public boolean hashMapTrieDeleteInsert(ThreadState state) {
+		String key = keys[accesses[state.next()]];
+		state.hashMapTrie.delete(key);
+		return state.hashMapTrie.insert(key);
+	}
+
+	@Benchmark
+	public Boolean treeMapDeleteInsert(ThreadState state) {
+		String key = keys[accesses[state.next()]];
+		state.treeMap.remove(key);
+		return state.treeMap.put(key, Boolean.TRUE);
+	}
+}
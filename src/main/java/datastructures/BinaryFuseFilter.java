@@ -0,0 +1,343 @@
+package datastructures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * An immutable membership filter built once from a set of keys, a binary fuse
+ * filter with 8 bit fingerprints.
+ *
+ * Every key maps to 3 slots of a byte array and the filter is built so the xor
+ * of the 3 slots is the key's fingerprint. A lookup reads the 3 slots, which
+ * lie within 3 consecutive segments of the array, and compares their xor with
+ * the fingerprint. Any other key matches with a probability of 1 / 256, about
+ * 0.4%, and the filter needs about 9 bits per key against the 11.5 of a bloom
+ * filter with the same false positive rate. Keys can not be added or removed
+ * once built.
+ *
+ * The filter is built from 64 bit hashes of the keys with {@link #build}, and
+ * looked up with the same hashes. Duplicate hashes are dropped.
+ *
+ * Filters can be written to a file with {@link #writeTo} and opened read only
+ * with {@link #mapFrom}, which queries the memory mapped file without copying
+ * the fingerprints onto the heap. The file is a header followed by the
+ * fingerprints:
+ *
+ * <pre>
+ * magic 'BFUF' (int) | version (int) | keys (int) | segment length (int)
+ * | segment count (int) | fingerprints (int) | seed (long)
+ * </pre>
+ *
+ * Resources: Graf, Lemire, Binary Fuse Filters: Fast and Smaller Than Xor
+ * Filters https://arxiv.org/abs/2201.01174
+ *
+ * @author Ethan
+ *
+ */
+public class BinaryFuseFilter {
+	private static final int ARITY = 3;
+	private static final int MAX_SEGMENT_LENGTH = 1 << 18;
+	private static final int MAX_ATTEMPTS = 100;
+	private static final int MAGIC = 0x42465546;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
+	private final int size;
+	private final int segmentLength;
+	private final int segmentLengthMask;
+	private final int segmentCount;
+	private final int segmentCountLength;
+	private final long seed;
+	// The fingerprints of a filter on the heap, null when mapped from a file
+	private final byte[] fingerprintArray;
+	// A view of the fingerprint array, or of the fingerprints in the mapped file
+	private final ByteBuffer fingerprints;
+
+	private BinaryFuseFilter(int size, int segmentLength, int segmentCount, long seed, ByteBuffer fingerprints) {
+		this.size = size;
+		this.segmentLength = segmentLength;
+		segmentLengthMask = segmentLength - 1;
+		this.segmentCount = segmentCount;
+		segmentCountLength = segmentCount * segmentLength;
+		this.seed = seed;
+		this.fingerprints = fingerprints;
+		fingerprintArray = fingerprints.hasArray() ? fingerprints.array() : null;
+	}
+
+	/**
+	 * Builds a filter holding the given key hashes. Building takes linear time
+	 * and about 26 bytes of temporary memory per key, and on rare occasions has
+	 * to start over with a new seed.
+	 *
+	 * @param keyHashes 64 bit hashes of the keys, the array is not modified.
+	 * @return A filter holding the distinct hashes.
+	 * @throws IllegalStateException If no seed builds the filter, only when the
+	 *                               hashes are far from random.
+	 */
+	public static BinaryFuseFilter build(long[] keyHashes) {
+		Objects.requireNonNull(keyHashes);
+		long[] keys = distinct(keyHashes);
+		int size = keys.length;
+
+		int segmentLength = segmentLength(size);
+		double sizeFactor = size <= 1 ? 0 : Math.max(1.125, 0.875 + 0.25 * Math.log(1000000) / Math.log(size));
+		long capacity = Math.round(size * sizeFactor);
+		long initSegmentCount = (capacity + segmentLength - 1) / segmentLength - (ARITY - 1);
+		long arrayLength = (initSegmentCount + ARITY - 1) * segmentLength;
+		long segmentCount = (arrayLength + segmentLength - 1) / segmentLength;
+		segmentCount = segmentCount <= ARITY - 1 ? 1 : segmentCount - (ARITY - 1);
+		arrayLength = (segmentCount + ARITY - 1) * segmentLength;
+		if (arrayLength > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many keys for a filter: " + size);
+		}
+
+		Random random = new Random(size);
+		int[] counts = new int[(int) arrayLength];
+		long[] hashes = new long[(int) arrayLength];
+		long[] stack = new long[size];
+		byte[] stackSlots = new byte[size];
+		int[] queue = new int[(int) arrayLength];
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			long seed = random.nextLong();
+			BinaryFuseFilter filter = new BinaryFuseFilter(size, segmentLength, (int) segmentCount, seed,
+					ByteBuffer.wrap(new byte[(int) arrayLength]));
+			if (filter.populate(keys, counts, hashes, stack, stackSlots, queue)) {
+				return filter;
+			}
+			Arrays.fill(counts, 0);
+			Arrays.fill(hashes, 0);
+		}
+		throw new IllegalStateException("Could not build the filter after " + MAX_ATTEMPTS + " attempts");
+	}
+
+	private static long[] distinct(long[] keyHashes) {
+		long[] sorted = keyHashes.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+	}
+
+	// Segments grow with the number of keys so the 3 slots stay close together
+	private static int segmentLength(int size) {
+		if (size == 0) {
+			return 4;
+		}
+		int segmentLength = 1 << (int) Math.floor(Math.log(size) / Math.log(3.33) + 2.25);
+		return Math.min(segmentLength, MAX_SEGMENT_LENGTH);
+	}
+
+	/*
+	 * Peels the keys: a slot only one key maps to can be set last for that key,
+	 * so keys are removed slot by slot until none are left, then the slots are
+	 * assigned in the reverse order. Returns false if some keys could not be
+	 * peeled with this seed.
+	 */
+	private boolean populate(long[] keys, int[] counts, long[] hashes, long[] stack, byte[] stackSlots, int[] queue) {
+		// counts holds the number of keys of a slot times 4 plus the xor of the
+		// positions, 0 to 2, of the slot among the keys' 3 slots
+		for (long key : keys) {
+			long hash = mix(key + seed);
+			for (int position = 0; position < ARITY; position++) {
+				int slot = slot(hash, position);
+				counts[slot] += 4;
+				counts[slot] ^= position;
+				hashes[slot] ^= hash;
+			}
+		}
+
+		int queueSize = 0;
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (counts[slot] >> 2 == 1) {
+				queue[queueSize++] = slot;
+			}
+		}
+
+		int stackSize = 0;
+		while (queueSize > 0) {
+			int slot = queue[--queueSize];
+			if (counts[slot] >> 2 != 1) {
+				continue;
+			}
+
+			long hash = hashes[slot];
+			int position = counts[slot] & 3;
+			stack[stackSize] = hash;
+			stackSlots[stackSize] = (byte) position;
+			stackSize++;
+			for (int other = 1; other < ARITY; other++) {
+				int otherPosition = (position + other) % ARITY;
+				int otherSlot = slot(hash, otherPosition);
+				counts[otherSlot] -= 4;
+				counts[otherSlot] ^= otherPosition;
+				hashes[otherSlot] ^= hash;
+				if (counts[otherSlot] >> 2 == 1) {
+					queue[queueSize++] = otherSlot;
+				}
+			}
+		}
+
+		if (stackSize != keys.length) {
+			return false;
+		}
+
+		for (int i = stackSize - 1; i >= 0; i--) {
+			long hash = stack[i];
+			int position = stackSlots[i];
+			int fingerprint = fingerprint(hash);
+			for (int other = 1; other < ARITY; other++) {
+				fingerprint ^= fingerprintArray[slot(hash, (position + other) % ARITY)];
+			}
+			fingerprintArray[slot(hash, position)] = (byte) fingerprint;
+		}
+		return true;
+	}
+
+	// murmur3's finalizer
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private static int fingerprint(long hash) {
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/*
+	 * The slot of a key at a position, 0 to 2. The first slot is the high bits of
+	 * the hash scaled to the segments, the others are in the next 2 segments at
+	 * offsets taken from the hash.
+	 */
+	private int slot(long hash, int position) {
+		// The high 64 bits of the 128 bit product, segmentCountLength < 2^32
+		long high = ((hash >>> 32) * segmentCountLength + (((hash & 0xFFFFFFFFL) * segmentCountLength) >>> 32)) >>> 32;
+		int slot = (int) high + position * segmentLength;
+		if (position == 1) {
+			slot ^= (int) (hash >>> 18) & segmentLengthMask;
+		} else if (position == 2) {
+			slot ^= (int) hash & segmentLengthMask;
+		}
+		return slot;
+	}
+
+	private byte getFingerprint(int slot) {
+		return fingerprintArray != null ? fingerprintArray[slot] : fingerprints.get(slot);
+	}
+
+	/**
+	 *
+	 * @param keyHash The 64 bit hash of a key, as given to {@link #build}.
+	 * @return True if the key may be in the filter, false if it is not.
+	 */
+	public boolean contains(long keyHash) {
+		long hash = mix(keyHash + seed);
+		int fingerprint = fingerprint(hash);
+		for (int position = 0; position < ARITY; position++) {
+			fingerprint ^= getFingerprint(slot(hash, position));
+		}
+		return (fingerprint & 0xFF) == 0;
+	}
+
+	/**
+	 * Writes the header and the fingerprints of the filter to the channel, the
+	 * channel is left open.
+	 *
+	 * @param channel The channel to write to.
+	 * @throws IOException If the channel can not be written to.
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		Objects.requireNonNull(channel);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(segmentLength).putInt(segmentCount)
+				.putInt(fingerprints.capacity()).putLong(seed);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+
+		for (int offset = 0; offset < fingerprints.capacity(); offset += WRITE_CHUNK_SIZE) {
+			ByteBuffer chunk = fingerprints.duplicate();
+			chunk.limit(Math.min(offset + WRITE_CHUNK_SIZE, chunk.capacity())).position(offset);
+			while (chunk.hasRemaining()) {
+				channel.write(chunk);
+			}
+		}
+	}
+
+	/**
+	 * Opens a filter written by {@link #writeTo} read only, the fingerprints are
+	 * read from the memory mapped file and are paged in by the operating system
+	 * as they are looked up. The mapping is released when the filter is garbage
+	 * collected.
+	 *
+	 * @param path The file of the filter.
+	 * @return A read only filter.
+	 * @throws IOException If the file can not be read, is not a filter or was
+	 *                     written by an unknown version.
+	 */
+	public static BinaryFuseFilter mapFrom(Path path) throws IOException {
+		Objects.requireNonNull(path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) {
+				throw new IOException("Not a binary fuse filter file: " + path);
+			}
+
+			MappedByteBuffer file = channel.map(MapMode.READ_ONLY, 0, fileSize);
+			if (file.getInt(0) != MAGIC) {
+				throw new IOException("Not a binary fuse filter file: " + path);
+			}
+			int version = file.getInt(4);
+			if (version != VERSION) {
+				throw new IOException(String.format("Unsupported binary fuse filter version %d in %s", version, path));
+			}
+			int size = file.getInt(8);
+			int segmentLength = file.getInt(12);
+			int segmentCount = file.getInt(16);
+			int arrayLength = file.getInt(20);
+			long seed = file.getLong(24);
+			if (size < 0 || segmentLength <= 0 || Integer.bitCount(segmentLength) != 1 || segmentCount <= 0
+					|| arrayLength != (long) (segmentCount + ARITY - 1) * segmentLength
+					|| fileSize != HEADER_SIZE + (long) arrayLength) {
+				throw new IOException("Corrupt binary fuse filter file: " + path);
+			}
+
+			file.position(HEADER_SIZE);
+			return new BinaryFuseFilter(size, segmentLength, segmentCount, seed, file.slice());
+		}
+	}
+
+	/**
+	 *
+	 * @return The number of distinct keys in the filter.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @return The number of bytes held by the fingerprints.
+	 */
+	public long getMemoryBytes() {
+		return fingerprints.capacity();
+	}
+}
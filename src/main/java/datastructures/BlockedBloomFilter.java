@@ -0,0 +1,156 @@
+package datastructures;
+
+import java.util.Objects;
+
+/**
+ * A bloom filter that keeps all the bits of an item inside one 64 byte block,
+ * the size of a cache line, so a lookup touches one block instead of k random
+ * positions of the whole filter. A negative lookup on a filter much larger than
+ * the cache costs one cache miss rather than up to k.
+ *
+ * One 64 bit hash picks the block with its high half and the bits inside the
+ * block by double hashing its low half, each bit is set or tested with a mask
+ * on one of the 8 longs of the block.
+ *
+ * Crowding the bits of an item into a block makes some blocks fuller than
+ * others, so at the same number of bits the false positive rate is higher than
+ * the classic layout of {@link BloomFilter}: about 1.3 times at 1% and 3 times
+ * at 0.1%. Give a blocked filter more space, or a lower target rate, when the
+ * rate matters.
+ *
+ * The long array is not guaranteed to start on a cache line, so a block may
+ * straddle two lines.
+ *
+ * Resources: Putze, Sanders, Singler, Cache-, Hash- and Space-Efficient Bloom
+ * Filters
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class BlockedBloomFilter<T> {
+	private static final int LONGS_PER_BLOCK = 8;
+	private static final int BITS_PER_BLOCK = LONGS_PER_BLOCK * Long.SIZE;
+
+	private final BloomFilter.LongHashable<T> hashFunction;
+	private final int numHashes;
+	private final long[] blocks;
+	private final int numBlocks;
+
+	/**
+	 *
+	 * @param numBlocks    The number of 512 bit blocks.
+	 * @param numHashes    The number of bits set per item.
+	 * @param hashFunction A well mixed 64 bit hash of the items.
+	 */
+	public BlockedBloomFilter(int numBlocks, int numHashes, BloomFilter.LongHashable<T> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (numBlocks <= 0 || numBlocks > Integer.MAX_VALUE / LONGS_PER_BLOCK) {
+			throw new IllegalArgumentException(
+					"Number of blocks should be between 1 and " + Integer.MAX_VALUE / LONGS_PER_BLOCK);
+		}
+		if (numHashes <= 0) {
+			throw new IllegalArgumentException("Number of hashes should be greater than 0");
+		}
+
+		this.hashFunction = hashFunction;
+		this.numHashes = numHashes;
+		this.numBlocks = numBlocks;
+		blocks = new long[numBlocks * LONGS_PER_BLOCK];
+	}
+
+	/**
+	 * Creates a filter hashing items by their hash code.
+	 *
+	 * @see #create(long, double, BloomFilter.LongHashable)
+	 */
+	public static <T> BlockedBloomFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+		return create(expectedInsertions, falsePositiveRate, BloomFilter::hashCodeMix);
+	}
+
+	/**
+	 * Creates a filter with the bits and hashes the classic layout needs for the
+	 * false positive rate, rounded up to whole blocks. The rate reached is
+	 * somewhat higher than the target.
+	 *
+	 * @param expectedInsertions The number of distinct items that will be
+	 *                           inserted.
+	 * @param falsePositiveRate  The wanted false positive rate, between 0 and 1
+	 *                           exclusive.
+	 * @param hashFunction       A well mixed 64 bit hash of the items.
+	 * @return A filter sized for the expected insertions.
+	 */
+	public static <T> BlockedBloomFilter<T> create(long expectedInsertions, double falsePositiveRate,
+			BloomFilter.LongHashable<T> hashFunction) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Expected insertions should be greater than 0");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate should be between 0 and 1 exclusive");
+		}
+
+		long numBits = BloomFilter.optimalNumBits(expectedInsertions, falsePositiveRate);
+		long numBlocks = (numBits + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK;
+		if (numBlocks > Integer.MAX_VALUE / LONGS_PER_BLOCK) {
+			throw new IllegalArgumentException(String.format("%d blocks are needed, more than the %d supported",
+					numBlocks, Integer.MAX_VALUE / LONGS_PER_BLOCK));
+		}
+		return new BlockedBloomFilter<>((int) numBlocks, BloomFilter.optimalNumHashes(expectedInsertions, numBits),
+				hashFunction);
+	}
+
+	// Index of the first long of the block, the high half of the hash scaled to
+	// the number of blocks
+	private int blockOffset(long hash) {
+		return (int) (((hash >>> 32) * numBlocks) >>> 32) * LONGS_PER_BLOCK;
+	}
+
+	// The step between the bits of an item, taken from a remix of the hash so it
+	// is independent of the block
+	private static int step(long hash) {
+		return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) | 1;
+	}
+
+	public void insert(T item) {
+		long hash = hashFunction.hash(item);
+		int offset = blockOffset(hash);
+		int bit = (int) hash;
+		int step = step(hash);
+		for (int i = 0; i < numHashes; i++) {
+			blocks[offset + ((bit >>> 6) & (LONGS_PER_BLOCK - 1))] |= 1L << bit;
+			bit += step;
+		}
+	}
+
+	// may contain it
+	public boolean contains(T item) {
+		long hash = hashFunction.hash(item);
+		int offset = blockOffset(hash);
+		int bit = (int) hash;
+		int step = step(hash);
+		for (int i = 0; i < numHashes; i++) {
+			long mask = 1L << bit;
+			if ((blocks[offset + ((bit >>> 6) & (LONGS_PER_BLOCK - 1))] & mask) == 0) {
+				return false;
+			}
+			bit += step;
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @return The number of bits of the filter.
+	 */
+	public long getNumBits() {
+		return (long) numBlocks * BITS_PER_BLOCK;
+	}
+
+	/**
+	 *
+	 * @return The number of bits set per item.
+	 */
+	public int getNumHashes() {
+		return numHashes;
+	}
+}
@@ -1,11 +1,47 @@
 package datastructures;
 
-import java.util.BitSet;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 /**
  * An example of how to implement a bloom filter.
- * 
+ *
+ * A filter can be built from hash functions, each setting one bit per item, or
+ * sized with {@link #create(long, double)} from the number of items expected
+ * and the false positive rate wanted. A sized filter computes one 64 bit hash
+ * per item and derives every bit index from it with double hashing, index i is
+ * h1 + i * h2 where h1 and h2 are the two halves of the hash, which has the
+ * same false positive rate as independent hash functions.
+ *
+ * Sized filters can be written to a file with {@link #writeTo} and opened read
+ * only with {@link #mapFrom}, which queries the memory mapped file without
+ * copying the bits onto the heap. The file is a header followed by the bits as
+ * big endian longs:
+ *
+ * <pre>
+ * magic 'BLMF' (int) | version (int) | hashes (int) | bits (int) | seed (long)
+ * | hash kind (int) | unused (int)
+ * </pre>
+ *
+ * The hash kind tells a filter hashing by hash code and seed apart from one
+ * built with a custom hash function, which has to be passed to
+ * {@link #mapFrom(Path, LongHashable)} to open the file.
+ *
+ * Filters with the same bits, hashes and hash function can be combined with
+ * {@link #union} and {@link #intersect}.
+ *
+ * Resources: Kirsch, Mitzenmacher, Less Hashing, Same Performance: Building a
+ * Better Bloom Filter
+ * https://en.wikipedia.org/wiki/Bloom_filter#Optimal_number_of_hash_functions
+ *
  * @author Ethan
  *
  * @param <T>
@@ -15,9 +51,30 @@ public class BloomFilter<T> {
 		public int hash(T item);
 	}
 
+	public interface LongHashable<T> {
+		public long hash(T item);
+	}
+
 	public static final int DEFAULT_CAPACITY = 16;
+	private static final int MAGIC = 0x424C4D46;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int DEFAULT_HASH = 0;
+	private static final int CUSTOM_HASH = 1;
+	private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
 	private Hashable<T>[] hashFunctions;
-	private BitSet bits;
+	private LongHashable<T> longHashFunction;
+	private int numHashes;
+	// Seed of the default hash function, written to files
+	private long seed;
+	// Whether the 64 bit hash was given by the caller instead of the default
+	private boolean customHash;
+	// The bits of a filter on the heap, null when mapped from a file
+	private final long[] words;
+	// A view of the words, or of the bits in the mapped file
+	private final LongBuffer bits;
+	private final int numBits;
 
 	public BloomFilter() {
 		this(DEFAULT_CAPACITY, t -> Objects.hash(t));
@@ -25,34 +82,372 @@ public class BloomFilter<T> {
 
 	@SafeVarargs
 	public BloomFilter(int capacity, Hashable<T>... hashFunctions) {
+		this(capacity);
+		Objects.requireNonNull(hashFunctions);
+		if (hashFunctions.length == 0) {
+			throw new IllegalArgumentException("Must provide hash functions");
+		}
+
+		this.hashFunctions = hashFunctions;
+		numHashes = hashFunctions.length;
+	}
+
+	/**
+	 *
+	 * @param capacity         The number of bits.
+	 * @param numHashes        The number of bits set per item.
+	 * @param longHashFunction The 64 bit hash the bit indices are derived from.
+	 */
+	public BloomFilter(int capacity, int numHashes, LongHashable<T> longHashFunction) {
+		this(capacity);
+		Objects.requireNonNull(longHashFunction);
+		if (numHashes <= 0) {
+			throw new IllegalArgumentException("Number of hashes should be greater than 0");
+		}
+
+		this.longHashFunction = longHashFunction;
+		this.numHashes = numHashes;
+		customHash = true;
+	}
+
+	private BloomFilter(int capacity) {
 		if (capacity <= 0) {
 			throw new IllegalArgumentException("Capacity should be greater than 0");
 		}
 
-		Objects.requireNonNull(hashFunctions);
-		if (hashFunctions.length == 0) {
-			throw new IllegalArgumentException("Must provide hash functions");
+		numBits = capacity;
+		words = new long[numWords(capacity)];
+		bits = LongBuffer.wrap(words);
+	}
+
+	private BloomFilter(LongBuffer bits, int numBits, int numHashes, long seed, boolean customHash,
+			LongHashable<T> longHashFunction) {
+		words = bits.hasArray() ? bits.array() : null;
+		this.bits = bits;
+		this.numBits = numBits;
+		this.numHashes = numHashes;
+		this.seed = seed;
+		this.customHash = customHash;
+		this.longHashFunction = longHashFunction;
+	}
+
+	private static int numWords(int numBits) {
+		return (int) ((numBits + 63L) >>> 6);
+	}
+
+	/**
+	 * Creates a filter hashing items by their hash code.
+	 *
+	 * @see #create(long, double, LongHashable)
+	 */
+	public static <T> BloomFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+		return create(expectedInsertions, falsePositiveRate, 0);
+	}
+
+	/**
+	 * Creates a filter hashing items by their hash code mixed with the seed, the
+	 * seed is written along with the filter so {@link #mapFrom(Path)} hashes the
+	 * same way.
+	 *
+	 * @see #create(long, double, LongHashable)
+	 */
+	public static <T> BloomFilter<T> create(long expectedInsertions, double falsePositiveRate, long seed) {
+		BloomFilter<T> filter = create(expectedInsertions, falsePositiveRate, seededHashCodeMix(seed));
+		filter.seed = seed;
+		filter.customHash = false;
+		return filter;
+	}
+
+	/**
+	 * Creates a filter with the fewest bits that keeps the false positive rate
+	 * under the given rate after the expected number of insertions, and the
+	 * number of hashes that minimizes the rate for those bits:
+	 *
+	 * <pre>
+	 * bits = -n * ln(p) / ln(2)^2
+	 * hashes = bits / n * ln(2)
+	 * </pre>
+	 *
+	 * @param expectedInsertions The number of distinct items that will be
+	 *                           inserted.
+	 * @param falsePositiveRate  The wanted false positive rate, between 0 and 1
+	 *                           exclusive.
+	 * @param longHashFunction   A well mixed 64 bit hash of the items.
+	 * @return A filter sized for the expected insertions.
+	 */
+	public static <T> BloomFilter<T> create(long expectedInsertions, double falsePositiveRate,
+			LongHashable<T> longHashFunction) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Expected insertions should be greater than 0");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate should be between 0 and 1 exclusive");
+		}
+
+		long numBits = optimalNumBits(expectedInsertions, falsePositiveRate);
+		if (numBits > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					String.format("%d bits are needed, more than the %d supported", numBits, Integer.MAX_VALUE));
 		}
+		return new BloomFilter<>((int) numBits, optimalNumHashes(expectedInsertions, numBits), longHashFunction);
+	}
+
+	static long optimalNumBits(long expectedInsertions, double falsePositiveRate) {
+		double bits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		return Math.max(1, (long) Math.ceil(bits));
+	}
+
+	static int optimalNumHashes(long expectedInsertions, long numBits) {
+		return Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+	}
+
+	static long hashCodeMix(Object item) {
+		return mix(Objects.hashCode(item));
+	}
+
+	private static <T> LongHashable<T> seededHashCodeMix(long seed) {
+		return item -> mix(Objects.hashCode(item) ^ seed);
+	}
+
+	// Spreads the hash over 64 bits, murmur3's finalizer
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	// The index of the i-th bit of an item, h1 + i * h2 without the sign bit
+	private int index(long hash, int i) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		int combined = h1 + i * h2;
+		return (combined & Integer.MAX_VALUE) % numBits;
+	}
+
+	private void setBit(int index) {
+		words[index >>> 6] |= 1L << index;
+	}
 
-		bits = new BitSet(capacity);
+	// Reading the array directly is faster than through the buffer
+	private boolean getBit(int index) {
+		long word = words != null ? words[index >>> 6] : bits.get(index >>> 6);
+		return (word & (1L << index)) != 0;
 	}
 
+	/**
+	 *
+	 * @param item The item to insert.
+	 * @throws UnsupportedOperationException If the filter was mapped from a file.
+	 */
 	public void insert(T item) {
+		if (words == null) {
+			throw new UnsupportedOperationException("Filter is mapped read only");
+		}
+
+		if (longHashFunction != null) {
+			long hash = longHashFunction.hash(item);
+			for (int i = 1; i <= numHashes; i++) {
+				setBit(index(hash, i));
+			}
+			return;
+		}
+
 		for (Hashable<T> hasher : hashFunctions) {
-			int index = hasher.hash(item) % bits.size();
-			bits.set(index);
+			setBit(Math.floorMod(hasher.hash(item), numBits));
 		}
 	}
 
 	// may contain it
 	public boolean contains(T item) {
+		if (longHashFunction != null) {
+			long hash = longHashFunction.hash(item);
+			for (int i = 1; i <= numHashes; i++) {
+				if (!getBit(index(hash, i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
 		for (Hashable<T> hasher : hashFunctions) {
-			int index = hasher.hash(item) % bits.size();
-			if (!bits.get(index)) {
+			if (!getBit(Math.floorMod(hasher.hash(item), numBits))) {
 				return false;
 			}
 		}
 
 		return true;
 	}
+
+	/**
+	 * Writes the header and the bits of the filter to the channel, the channel is
+	 * left open.
+	 *
+	 * @param channel The channel to write to.
+	 * @throws IOException                   If the channel can not be written to.
+	 * @throws UnsupportedOperationException If the filter uses separate hash
+	 *                                       functions, which can not be written.
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		Objects.requireNonNull(channel);
+		if (longHashFunction == null) {
+			throw new UnsupportedOperationException("Only filters built with a 64 bit hash can be written");
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(WRITE_CHUNK_SIZE);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(numHashes).putInt(numBits).putLong(seed)
+				.putInt(customHash ? CUSTOM_HASH : DEFAULT_HASH).putInt(0);
+		int numWords = numWords(numBits);
+		for (int word = 0; word < numWords; word++) {
+			if (buffer.remaining() < Long.BYTES) {
+				writeFully(channel, buffer);
+			}
+			buffer.putLong(bits.get(word));
+		}
+		writeFully(channel, buffer);
+	}
+
+	private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Opens a filter written by {@link #writeTo} with a default hash function,
+	 * hashing by hash code and the seed in the file.
+	 *
+	 * @throws IOException If the filter was built with a custom hash function,
+	 *                     which this method can not know.
+	 * @see #mapFrom(Path, LongHashable)
+	 */
+	public static <T> BloomFilter<T> mapFrom(Path path) throws IOException {
+		return mapFrom(path, null);
+	}
+
+	/**
+	 * Opens a filter written by {@link #writeTo} read only, the bits are queried
+	 * from the memory mapped file and are paged in by the operating system as
+	 * they are read. The mapping is released when the filter is garbage
+	 * collected.
+	 *
+	 * @param path             The file of the filter.
+	 * @param longHashFunction The hash function the filter was created with, or
+	 *                         null for a filter with the default hash function.
+	 * @return A read only filter.
+	 * @throws IOException If the file can not be read, is not a filter or was
+	 *                     written by an unknown version.
+	 */
+	public static <T> BloomFilter<T> mapFrom(Path path, LongHashable<T> longHashFunction) throws IOException {
+		Objects.requireNonNull(path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("Not a bloom filter file: " + path);
+			}
+
+			MappedByteBuffer file = channel.map(MapMode.READ_ONLY, 0, size);
+			if (file.getInt(0) != MAGIC) {
+				throw new IOException("Not a bloom filter file: " + path);
+			}
+			int version = file.getInt(4);
+			if (version != VERSION) {
+				throw new IOException(String.format("Unsupported bloom filter version %d in %s", version, path));
+			}
+			int numHashes = file.getInt(8);
+			int numBits = file.getInt(12);
+			long seed = file.getLong(16);
+			int hashKind = file.getInt(24);
+			if (numHashes <= 0 || numBits <= 0 || (hashKind != DEFAULT_HASH && hashKind != CUSTOM_HASH)
+					|| size != HEADER_SIZE + (long) numWords(numBits) * Long.BYTES) {
+				throw new IOException("Corrupt bloom filter file: " + path);
+			}
+			if (hashKind == CUSTOM_HASH && longHashFunction == null) {
+				throw new IOException("Bloom filter was built with a custom hash function, it has to be passed to open "
+						+ path);
+			}
+
+			file.position(HEADER_SIZE);
+			LongBuffer bits = file.slice().asLongBuffer();
+			return new BloomFilter<>(bits, numBits, numHashes, seed, longHashFunction != null,
+					longHashFunction != null ? longHashFunction : seededHashCodeMix(seed));
+		}
+	}
+
+	/**
+	 *
+	 * @param other A filter with the same bits, hashes and hash function.
+	 * @return A new filter that may contain the items of either filter.
+	 * @throws IllegalArgumentException If the filters are not compatible.
+	 */
+	public BloomFilter<T> union(BloomFilter<T> other) {
+		checkCompatible(other);
+		BloomFilter<T> result = emptyCopy();
+		for (int word = 0; word < result.bits.capacity(); word++) {
+			result.bits.put(word, bits.get(word) | other.bits.get(word));
+		}
+		return result;
+	}
+
+	/**
+	 * The result has the false positive rate of this filter at worst, which may
+	 * be higher than a filter built from only the common items.
+	 *
+	 * @param other A filter with the same bits, hashes and hash function.
+	 * @return A new filter that may contain the items of both filters.
+	 * @throws IllegalArgumentException If the filters are not compatible.
+	 */
+	public BloomFilter<T> intersect(BloomFilter<T> other) {
+		checkCompatible(other);
+		BloomFilter<T> result = emptyCopy();
+		for (int word = 0; word < result.bits.capacity(); word++) {
+			result.bits.put(word, bits.get(word) & other.bits.get(word));
+		}
+		return result;
+	}
+
+	/*
+	 * Custom hash functions can not be compared, the caller has to make sure both
+	 * filters use the same one.
+	 */
+	private void checkCompatible(BloomFilter<T> other) {
+		Objects.requireNonNull(other);
+		if (longHashFunction == null || other.longHashFunction == null) {
+			throw new IllegalArgumentException("Only filters built with a 64 bit hash can be combined");
+		}
+		if (customHash != other.customHash) {
+			throw new IllegalArgumentException("Filters with a custom and a default hash function can not be combined");
+		}
+		if (numBits != other.numBits || numHashes != other.numHashes || seed != other.seed) {
+			throw new IllegalArgumentException(String.format(
+					"Filters are not compatible, %d bits %d hashes seed %d against %d bits %d hashes seed %d", numBits,
+					numHashes, seed, other.numBits, other.numHashes, other.seed));
+		}
+	}
+
+	// An empty writable filter with the same shape and hash function
+	private BloomFilter<T> emptyCopy() {
+		return new BloomFilter<>(LongBuffer.wrap(new long[numWords(numBits)]), numBits, numHashes, seed, customHash,
+				longHashFunction);
+	}
+
+	/**
+	 *
+	 * @return The number of bits of the filter.
+	 */
+	public int getNumBits() {
+		return numBits;
+	}
+
+	/**
+	 *
+	 * @return The number of bits set per item.
+	 */
+	public int getNumHashes() {
+		return numHashes;
+	}
 }
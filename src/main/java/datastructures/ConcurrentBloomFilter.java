@@ -0,0 +1,184 @@
+package datastructures;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bloom filter that can be inserted into and read by many threads at once
+ * without locking.
+ *
+ * The bits are kept in an {@link AtomicLongArray} and set with a compare and
+ * set loop on their long, a bit that is already set costs a single volatile
+ * read so threads inserting popular items do not contend. {@link #contains}
+ * only reads and is wait free, it sees every insert that returned before it was
+ * called.
+ *
+ * Bit indices are derived from one 64 bit hash with double hashing as in
+ * {@link BloomFilter#create(long, double, BloomFilter.LongHashable)}.
+ *
+ * Resources: Swamidass, Baldi, Mathematical Correction for Fingerprint
+ * Similarity Measures to Improve Chemical Retrieval
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class ConcurrentBloomFilter<T> {
+	private final BloomFilter.LongHashable<T> hashFunction;
+	private final int numHashes;
+	private final AtomicLongArray bits;
+	private final int numBits;
+	// Number of bits set, only counts the inserts that flipped a bit
+	private final LongAdder bitCount = new LongAdder();
+
+	/**
+	 *
+	 * @param capacity     The number of bits.
+	 * @param numHashes    The number of bits set per item.
+	 * @param hashFunction A well mixed 64 bit hash of the items.
+	 */
+	public ConcurrentBloomFilter(int capacity, int numHashes, BloomFilter.LongHashable<T> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity should be greater than 0");
+		}
+		if (numHashes <= 0) {
+			throw new IllegalArgumentException("Number of hashes should be greater than 0");
+		}
+
+		this.hashFunction = hashFunction;
+		this.numHashes = numHashes;
+		numBits = capacity;
+		bits = new AtomicLongArray((int) ((capacity + 63L) >>> 6));
+	}
+
+	/**
+	 * Creates a filter hashing items by their hash code.
+	 *
+	 * @see #create(long, double, BloomFilter.LongHashable)
+	 */
+	public static <T> ConcurrentBloomFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+		return create(expectedInsertions, falsePositiveRate, BloomFilter::hashCodeMix);
+	}
+
+	/**
+	 * Creates a filter sized like
+	 * {@link BloomFilter#create(long, double, BloomFilter.LongHashable)}.
+	 *
+	 * @param expectedInsertions The number of distinct items that will be
+	 *                           inserted.
+	 * @param falsePositiveRate  The wanted false positive rate, between 0 and 1
+	 *                           exclusive.
+	 * @param hashFunction       A well mixed 64 bit hash of the items.
+	 * @return A filter sized for the expected insertions.
+	 */
+	public static <T> ConcurrentBloomFilter<T> create(long expectedInsertions, double falsePositiveRate,
+			BloomFilter.LongHashable<T> hashFunction) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Expected insertions should be greater than 0");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate should be between 0 and 1 exclusive");
+		}
+
+		long numBits = BloomFilter.optimalNumBits(expectedInsertions, falsePositiveRate);
+		if (numBits > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					String.format("%d bits are needed, more than the %d supported", numBits, Integer.MAX_VALUE));
+		}
+		return new ConcurrentBloomFilter<>((int) numBits, BloomFilter.optimalNumHashes(expectedInsertions, numBits),
+				hashFunction);
+	}
+
+	// The index of the i-th bit of an item, h1 + i * h2 without the sign bit
+	private int index(long hash, int i) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		int combined = h1 + i * h2;
+		return (combined & Integer.MAX_VALUE) % numBits;
+	}
+
+	// Sets the bit, returning true if this call flipped it
+	private boolean setBit(int index) {
+		int word = index >>> 6;
+		long mask = 1L << index;
+		long current;
+		do {
+			current = bits.get(word);
+			if ((current & mask) != 0) {
+				return false;
+			}
+		} while (!bits.compareAndSet(word, current, current | mask));
+		return true;
+	}
+
+	/**
+	 * Inserts the item, safe to call from many threads at once.
+	 *
+	 * @param item The item to insert.
+	 * @return True if a bit was set, false if the item may already have been
+	 *         present.
+	 */
+	public boolean insert(T item) {
+		long hash = hashFunction.hash(item);
+		int flipped = 0;
+		for (int i = 1; i <= numHashes; i++) {
+			if (setBit(index(hash, i))) {
+				flipped++;
+			}
+		}
+
+		if (flipped == 0) {
+			return false;
+		}
+		bitCount.add(flipped);
+		return true;
+	}
+
+	// may contain it
+	public boolean contains(T item) {
+		long hash = hashFunction.hash(item);
+		for (int i = 1; i <= numHashes; i++) {
+			int index = index(hash, i);
+			if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Estimates the number of distinct items inserted from the fraction of bits
+	 * set:
+	 *
+	 * <pre>
+	 * n = -bits / hashes * ln(1 - set bits / bits)
+	 * </pre>
+	 *
+	 * The estimate is within a few percent until the filter is well past the
+	 * insertions it was sized for.
+	 *
+	 * @return The approximate number of distinct items inserted.
+	 */
+	public long approximateCount() {
+		double setBits = Math.min(bitCount.sum(), numBits - 1);
+		return Math.round(-(double) numBits / numHashes * Math.log1p(-setBits / numBits));
+	}
+
+	/**
+	 *
+	 * @return The number of bits of the filter.
+	 */
+	public int getNumBits() {
+		return numBits;
+	}
+
+	/**
+	 *
+	 * @return The number of bits set per item.
+	 */
+	public int getNumHashes() {
+		return numHashes;
+	}
+}
@@ -0,0 +1,179 @@
+package datastructures;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count min sketch that can be inserted into and read by many threads at
+ * once without locking.
+ *
+ * The rows are kept one after the other in an {@link AtomicIntegerArray} and
+ * an insert adds to the item's counter of each row with a single atomic add,
+ * so threads never retry. {@link #count} only reads and sees every insert that
+ * returned before it was called. Counters stop at Integer.MAX_VALUE.
+ *
+ * Counter indices are derived from one 64 bit hash with double hashing as in
+ * {@link ConcurrentBloomFilter}.
+ *
+ * Conservative update is left to {@link CountMinSketch}: raising counters to
+ * an estimate read beforehand loses inserts of the same item made by other
+ * threads in between, so estimates could fall below the true counts. Threads
+ * can fill conservative sketches of their own and merge them instead.
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class ConcurrentCountMinSketch<T> {
+	private final BloomFilter.LongHashable<T> hashFunction;
+	private final int width;
+	private final int depth;
+	private final AtomicIntegerArray counts;
+	private final LongAdder totalCount = new LongAdder();
+
+	/**
+	 *
+	 * @param width        The number of counters of each row.
+	 * @param depth        The number of rows.
+	 * @param hashFunction A well mixed 64 bit hash of the items.
+	 */
+	public ConcurrentCountMinSketch(int width, int depth, BloomFilter.LongHashable<T> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (width <= 0) {
+			throw new IllegalArgumentException("Width should be greater than 0");
+		}
+		if (depth <= 0 || depth > Integer.MAX_VALUE / width) {
+			throw new IllegalArgumentException("Depth should be between 1 and " + Integer.MAX_VALUE / width);
+		}
+
+		this.hashFunction = hashFunction;
+		this.width = width;
+		this.depth = depth;
+		counts = new AtomicIntegerArray(width * depth);
+	}
+
+	/**
+	 * Creates a sketch hashing items by their hash code.
+	 *
+	 * @see #create(double, double, BloomFilter.LongHashable)
+	 */
+	public static <T> ConcurrentCountMinSketch<T> create(double epsilon, double delta) {
+		return create(epsilon, delta, BloomFilter::hashCodeMix);
+	}
+
+	/**
+	 * Creates a sketch whose estimates exceed the true counts by at most epsilon
+	 * times the total count, with a probability of 1 - delta. The width is e /
+	 * epsilon and the depth ln(1 / delta).
+	 *
+	 * @param epsilon      The error relative to the total count, between 0 and 1
+	 *                     exclusive.
+	 * @param delta        The probability of a larger error, between 0 and 1
+	 *                     exclusive.
+	 * @param hashFunction A well mixed 64 bit hash of the items.
+	 * @return A sketch sized for the error.
+	 */
+	public static <T> ConcurrentCountMinSketch<T> create(double epsilon, double delta,
+			BloomFilter.LongHashable<T> hashFunction) {
+		if (!(epsilon > 0 && epsilon < 1)) {
+			throw new IllegalArgumentException("Epsilon should be between 0 and 1 exclusive");
+		}
+		if (!(delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("Delta should be between 0 and 1 exclusive");
+		}
+
+		double width = Math.ceil(Math.E / epsilon);
+		if (width > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					String.format("%.0f counters per row are needed, more than the %d supported", width,
+							Integer.MAX_VALUE));
+		}
+		int depth = (int) Math.max(1, Math.ceil(Math.log(1 / delta)));
+		return new ConcurrentCountMinSketch<>((int) width, depth, hashFunction);
+	}
+
+	// The index of the item's counter in a row, h1 + i * h2 without the sign bit
+	private int index(long hash, int row) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		int combined = h1 + (row + 1) * h2;
+		return row * width + (combined & Integer.MAX_VALUE) % width;
+	}
+
+	public int insert(T item) {
+		return insert(item, 1);
+	}
+
+	/**
+	 * Inserts the item count times, safe to call from many threads at once.
+	 *
+	 * @param item  The item to insert.
+	 * @param count The number of times to insert it, not negative.
+	 * @return The estimated count of the item after the insert, the smallest of
+	 *         the counters it added to.
+	 */
+	public int insert(T item, int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count should not be negative");
+		}
+
+		long hash = hashFunction.hash(item);
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			int index = index(hash, row);
+			int updated = counts.addAndGet(index, count);
+			// A counter that overflowed is put back to the largest value, reads in
+			// between see a negative counter and treat it as saturated
+			if (updated < 0) {
+				counts.set(index, Integer.MAX_VALUE);
+			} else {
+				min = Math.min(min, updated);
+			}
+		}
+		totalCount.add(count);
+		return min;
+	}
+
+	/**
+	 *
+	 * @param item The item to count.
+	 * @return The estimated number of times the item was inserted, never less
+	 *         than the true number.
+	 */
+	public int count(T item) {
+		long hash = hashFunction.hash(item);
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			int count = counts.get(index(hash, row));
+			if (count >= 0) {
+				min = Math.min(min, count);
+			}
+		}
+		return min;
+	}
+
+	/**
+	 *
+	 * @return The number of insertions, summed when called.
+	 */
+	public long getTotalCount() {
+		return totalCount.sum();
+	}
+
+	/**
+	 *
+	 * @return The number of counters of each row.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 *
+	 * @return The number of rows.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+}
@@ -0,0 +1,683 @@
+package datastructures;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * A thread safe hash table that uses extendible hashing.
+ *
+ * Reads are optimistic and lock-free, a reader looks up the bucket through a
+ * volatile directory reference and validates the bucket's version stamp after
+ * scanning it. Writers only lock the bucket they modify, the directory lock is
+ * only taken when a bucket splits. Directory doubling builds the new directory
+ * on the side and publishes it with a single volatile write.
+ *
+ * A split retires the full bucket and replaces it with two new buckets, so a
+ * reader that raced with a split sees the retired flag and retries against the
+ * current directory.
+ *
+ * Unlike {@link ExtendibleHashTable}, buckets are never merged and the
+ * directory never collapses on removal. The views returned by
+ * {@link #keySet()}, {@link #values()} and {@link #entrySet()} are live and
+ * their iterators are weakly consistent: each bucket is copied as the iterator
+ * reaches it, and removing through an iterator removes the key from the table.
+ *
+ * Null keys and values are not allowed.
+ *
+ * Resources: https://www2.cs.sfu.ca/CourseCentral/354/lxwu/notes/chapter11.pdf
+ * https://docs.oracle.com/javase/8/docs/api/java/util/concurrent/locks/StampedLock.html
+ *
+ * @author Ethan
+ * @version 1.0
+ * @since 2021-03-28
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ConcurrentExtendibleHashTable<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+	public static final int DEFAULT_BUCKET_SIZE = ExtendibleHashTable.DEFAULT_BUCKET_SIZE;
+
+	private static final int MIN_DEPTH = 1;
+	private static final int MAX_DEPTH = 30;
+	private static final int NOT_FOUND = -1;
+
+	private final int bucketSize;
+	private final Function<Object, Integer> hasher;
+	private final ReentrantLock directoryLock = new ReentrantLock();
+	private final LongAdder size = new LongAdder();
+	private volatile Directory directory;
+	private Set<K> keySet;
+	private Collection<V> values;
+	private Set<Entry<K, V>> entrySet;
+
+	private final class Directory {
+		final int globalDepth;
+		final AtomicReferenceArray<Bucket> buckets;
+
+		Directory(int globalDepth) {
+			this.globalDepth = globalDepth;
+			buckets = new AtomicReferenceArray<>(1 << globalDepth);
+		}
+
+		Bucket getBucket(int hash) {
+			return buckets.get(hash & (buckets.length() - 1));
+		}
+	}
+
+	private final class Bucket {
+		final StampedLock lock = new StampedLock();
+		final int localDepth;
+		int numKeys;
+		final Object[] keys;
+		final Object[] values;
+		// Only written while holding the write lock, set once the bucket is split
+		volatile boolean retired;
+
+		Bucket(int localDepth) {
+			this.localDepth = localDepth;
+			keys = new Object[bucketSize];
+			values = new Object[bucketSize];
+		}
+
+		/*
+		 * Safe to call during an optimistic read, the entries may be inconsistent but
+		 * the result will be discarded if the stamp fails validation.
+		 */
+		int indexOf(Object key) {
+			int n = Math.min(numKeys, keys.length);
+			for (int i = 0; i < n; i++) {
+				Object k = keys[i];
+				if (k != null && k.equals(key)) {
+					return i;
+				}
+			}
+			return NOT_FOUND;
+		}
+
+		@SuppressWarnings("unchecked")
+		V valueAt(int index) {
+			return index == NOT_FOUND ? null : (V) values[index];
+		}
+
+		boolean isFull() {
+			return numKeys == bucketSize;
+		}
+
+		void append(Object key, Object value) {
+			keys[numKeys] = key;
+			values[numKeys] = value;
+			numKeys++;
+		}
+
+		void removeAt(int index) {
+			System.arraycopy(keys, index + 1, keys, index, numKeys - index - 1);
+			System.arraycopy(values, index + 1, values, index, numKeys - index - 1);
+			numKeys--;
+			keys[numKeys] = null;
+			values[numKeys] = null;
+		}
+	}
+
+	public ConcurrentExtendibleHashTable() {
+		this(DEFAULT_BUCKET_SIZE);
+	}
+
+	public ConcurrentExtendibleHashTable(int bucketSize) {
+		this(bucketSize, ExtendibleHashTable.DEFAULT_HASHER);
+	}
+
+	public ConcurrentExtendibleHashTable(int bucketSize, Function<Object, Integer> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (bucketSize <= 0) {
+			throw new IllegalArgumentException("Bucket size must be greater than 0");
+		}
+
+		this.bucketSize = bucketSize;
+		hasher = hashFunction;
+		directory = newDirectory();
+	}
+
+	private Directory newDirectory() {
+		Directory dir = new Directory(MIN_DEPTH);
+		for (int i = 0; i < dir.buckets.length(); i++) {
+			dir.buckets.set(i, new Bucket(MIN_DEPTH));
+		}
+		return dir;
+	}
+
+	/**
+	 * Returns the associated value that the key maps to. Never blocks unless the
+	 * optimistic read keeps failing because of writers on the same bucket.
+	 *
+	 * @param The key to retrieve the associated value.
+	 * @return The value associated with the key. Returns null if there is no
+	 *         associated value.
+	 */
+	@Override
+	public V get(Object key) {
+		Objects.requireNonNull(key);
+		int hash = hasher.apply(key);
+
+		for (;;) {
+			Bucket bucket = directory.getBucket(hash);
+			StampedLock lock = bucket.lock;
+
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0) {
+				V value = bucket.valueAt(bucket.indexOf(key));
+				boolean retired = bucket.retired;
+				if (lock.validate(stamp)) {
+					if (!retired) {
+						return value;
+					}
+					continue;
+				}
+			}
+
+			// A writer is active on the bucket, wait for it instead of spinning
+			stamp = lock.readLock();
+			try {
+				if (!bucket.retired) {
+					return bucket.valueAt(bucket.indexOf(key));
+				}
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if the hashtable contains a mapping for the specified
+	 * value. This is a very computationally expensive operation.
+	 *
+	 * @param The value whose presence in this hashtable to be tested.
+	 * @return <tt>true</tt> if the hashtable contains a mapping for the specified
+	 *         value, otherwise false.
+	 */
+	@Override
+	public boolean containsValue(Object value) {
+		Objects.requireNonNull(value);
+		for (V v : values()) {
+			if (value.equals(v)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		return putVal(key, value, false);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		return putVal(key, value, true);
+	}
+
+	private V putVal(K key, V value, boolean onlyIfAbsent) {
+		int hash = hasher.apply(key);
+
+		for (;;) {
+			Bucket bucket = directory.getBucket(hash);
+			long stamp = bucket.lock.writeLock();
+			try {
+				if (bucket.retired) {
+					continue;
+				}
+
+				int index = bucket.indexOf(key);
+				if (index != NOT_FOUND) {
+					V oldValue = bucket.valueAt(index);
+					if (!onlyIfAbsent) {
+						bucket.values[index] = value;
+					}
+					return oldValue;
+				} else if (!bucket.isFull()) {
+					bucket.append(key, value);
+					size.increment();
+					return null;
+				}
+
+				split(bucket, hash);
+			} finally {
+				bucket.lock.unlockWrite(stamp);
+			}
+			// try again, the key may need more than one split to fit
+		}
+	}
+
+	/*
+	 * Caller must hold the write lock of the full bucket. Lock ordering is always
+	 * bucket lock then directory lock.
+	 */
+	private void split(Bucket bucket, int hash) {
+		if (bucket.localDepth == MAX_DEPTH || hasSameHashes(bucket, hash)) {
+			throw new IllegalStateException("Bucket can not be split any further, too many keys share the same hash");
+		}
+
+		int newDepth = bucket.localDepth + 1;
+		int leadingBitMask = 1 << bucket.localDepth;
+		Bucket zeroBucket = new Bucket(newDepth);
+		Bucket oneBucket = new Bucket(newDepth);
+		for (int i = 0; i < bucket.numKeys; i++) {
+			Bucket target = (hasher.apply(bucket.keys[i]) & leadingBitMask) == 0 ? zeroBucket : oneBucket;
+			target.append(bucket.keys[i], bucket.values[i]);
+		}
+
+		directoryLock.lock();
+		try {
+			Directory dir = directory;
+			if (bucket.localDepth == dir.globalDepth) {
+				dir = growDirectory(dir);
+			}
+
+			for (int i = 0; i < dir.buckets.length(); i++) {
+				if (dir.buckets.get(i) == bucket) {
+					dir.buckets.set(i, (i & leadingBitMask) == 0 ? zeroBucket : oneBucket);
+				}
+			}
+			bucket.retired = true;
+		} finally {
+			directoryLock.unlock();
+		}
+	}
+
+	// No amount of splitting will separate keys that all have the same hash
+	private boolean hasSameHashes(Bucket bucket, int hash) {
+		for (int i = 0; i < bucket.numKeys; i++) {
+			if (hasher.apply(bucket.keys[i]) != hash) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Caller must hold the directory lock. Readers keep using the old directory
+	 * until the new one is published, both point to the same buckets.
+	 */
+	private Directory growDirectory(Directory dir) {
+		Directory newDir = new Directory(dir.globalDepth + 1);
+		int half = dir.buckets.length();
+		for (int i = 0; i < half; i++) {
+			Bucket bucket = dir.buckets.get(i);
+			newDir.buckets.set(i, bucket);
+			newDir.buckets.set(i + half, bucket);
+		}
+		directory = newDir;
+		return newDir;
+	}
+
+	@Override
+	public V remove(Object key) {
+		Objects.requireNonNull(key);
+		return replaceNode(key, null, null);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		Objects.requireNonNull(key);
+		return value != null && replaceNode(key, null, value) != null;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(oldValue);
+		Objects.requireNonNull(newValue);
+		return replaceNode(key, newValue, oldValue) != null;
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		return replaceNode(key, value, null);
+	}
+
+	/*
+	 * Replaces the key's value with the given value or removes the entry if value
+	 * is null. If expected is not null the entry is only updated if its current
+	 * value is equal to expected. Returns the previous value, or null if nothing
+	 * changed.
+	 */
+	private V replaceNode(Object key, V value, Object expected) {
+		int hash = hasher.apply(key);
+
+		for (;;) {
+			Bucket bucket = directory.getBucket(hash);
+			long stamp = bucket.lock.writeLock();
+			try {
+				if (bucket.retired) {
+					continue;
+				}
+
+				int index = bucket.indexOf(key);
+				if (index == NOT_FOUND) {
+					return null;
+				}
+
+				V oldValue = bucket.valueAt(index);
+				if (expected != null && !expected.equals(oldValue)) {
+					return null;
+				}
+
+				if (value != null) {
+					bucket.values[index] = value;
+				} else {
+					bucket.removeAt(index);
+					size.decrement();
+				}
+				return oldValue;
+			} finally {
+				bucket.lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		Objects.requireNonNull(map);
+		map.entrySet().forEach(entry -> put(entry.getKey(), entry.getValue()));
+	}
+
+	/**
+	 * Removes all entries bucket by bucket. Entries inserted concurrently may
+	 * survive the clear.
+	 */
+	@Override
+	public void clear() {
+		Directory dir = directory;
+		for (int i = 0; i < dir.buckets.length(); i++) {
+			Bucket bucket = dir.buckets.get(i);
+			long stamp = bucket.lock.writeLock();
+			try {
+				if (!bucket.retired) {
+					for (int j = bucket.numKeys - 1; j >= 0; j--) {
+						bucket.removeAt(j);
+						size.decrement();
+					}
+				}
+			} finally {
+				bucket.lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (values == null) {
+			values = new Values();
+		}
+		return values;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	private class KeySet extends AbstractSet<K> {
+		@Override
+		public int size() {
+			return ConcurrentExtendibleHashTable.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentExtendibleHashTable.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			return ConcurrentExtendibleHashTable.this.remove(key) != null;
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			return new TableIterator<K>() {
+				@Override
+				K element(K key, V value) {
+					return key;
+				}
+			};
+		}
+	}
+
+	private class Values extends AbstractCollection<V> {
+		@Override
+		public int size() {
+			return ConcurrentExtendibleHashTable.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentExtendibleHashTable.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			return new TableIterator<V>() {
+				@Override
+				V element(K key, V value) {
+					return value;
+				}
+			};
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public int size() {
+			return ConcurrentExtendibleHashTable.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentExtendibleHashTable.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			if (entry.getKey() == null || entry.getValue() == null) {
+				return false;
+			}
+			return entry.getValue().equals(get(entry.getKey()));
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			Object key = entry.getKey();
+			return key != null && ConcurrentExtendibleHashTable.this.remove(key, entry.getValue());
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new TableIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(K key, V value) {
+					return new SimpleImmutableEntry<>(key, value);
+				}
+			};
+		}
+	}
+
+	/*
+	 * Walks down the local depths so that each bucket is visited once, and
+	 * follows retired buckets to the buckets that replaced them. The entries of
+	 * one bucket are copied under its read lock as the walk reaches it, so the
+	 * iterator never throws ConcurrentModificationException and may or may not
+	 * see changes made to buckets it has not reached yet.
+	 */
+	private abstract class TableIterator<T> implements Iterator<T> {
+		// Prefixes of the hashes left to walk, along with their depth in bits
+		private final ArrayDeque<int[]> pending = new ArrayDeque<>();
+		private Object[] keys;
+		private Object[] values;
+		private int count;
+		private int index;
+		private K lastKey;
+
+		TableIterator() {
+			pending.push(new int[] { 0, 0 });
+			advance();
+		}
+
+		abstract T element(K key, V value);
+
+		private void advance() {
+			while (index >= count && !pending.isEmpty()) {
+				int[] prefix = pending.pop();
+				copyBucket(prefix[0], prefix[1]);
+			}
+		}
+
+		// Copies the entries of the bucket holding the prefix, or queues its halves
+		private void copyBucket(int prefix, int depth) {
+			for (;;) {
+				Bucket bucket = directory.getBucket(prefix);
+				if (bucket.localDepth > depth) {
+					pending.push(new int[] { prefix | (1 << depth), depth + 1 });
+					pending.push(new int[] { prefix, depth + 1 });
+					return;
+				}
+
+				long stamp = bucket.lock.readLock();
+				try {
+					if (!bucket.retired) {
+						keys = Arrays.copyOf(bucket.keys, bucket.numKeys);
+						values = Arrays.copyOf(bucket.values, bucket.numKeys);
+						count = bucket.numKeys;
+						index = 0;
+						return;
+					}
+				} finally {
+					bucket.lock.unlockRead(stamp);
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < count;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T next() {
+			if (index >= count) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = (K) keys[index];
+			T element = element(lastKey, (V) values[index]);
+			index++;
+			advance();
+			return element;
+		}
+
+		@Override
+		public void remove() {
+			if (lastKey == null) {
+				throw new IllegalStateException();
+			}
+
+			ConcurrentExtendibleHashTable.this.remove(lastKey);
+			lastKey = null;
+		}
+	}
+
+	/**
+	 * Retrieves the number of entries in the hash table. The value is only an
+	 * estimate while other threads are modifying the table.
+	 *
+	 * @return The number of entries in the hash table
+	 */
+	@Override
+	public int size() {
+		long sum = size.sum();
+		return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(sum, 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size.sum() <= 0;
+	}
+
+	/**
+	 *
+	 * @return The current number of bits used to index the directory.
+	 */
+	public int getGlobalDepth() {
+		return directory.globalDepth;
+	}
+}
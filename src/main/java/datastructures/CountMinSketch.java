@@ -2,6 +2,29 @@ package datastructures;
 
 import java.util.Objects;
 
+/**
+ * Estimates how many times each item was inserted in a fixed number of
+ * counters. Every hash function picks one counter of its own row and the
+ * estimate is the smallest of the item's counters, it is never lower than the
+ * true count.
+ *
+ * With conservative update an insert only raises the item's counters up to its
+ * new estimate instead of adding to all of them, which leaves the counters
+ * other items share lower and the estimates closer. Removing is not possible
+ * with conservative update.
+ *
+ * Sketches with the same rows, capacity and hash functions can be merged, so
+ * threads can fill sketches of their own and merge them from time to time.
+ * {@link ConcurrentCountMinSketch} is shared by the threads instead.
+ *
+ * Resources: Cormode, Muthukrishnan, An Improved Data Stream Summary: The
+ * Count-Min Sketch and its Applications; Estan, Varghese, New Directions in
+ * Traffic Measurement and Accounting
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
 public class CountMinSketch<T> {
 	public interface Hashable<T> {
 		public int hash(T item);
@@ -10,6 +33,8 @@ public class CountMinSketch<T> {
 	public static final int DEFAULT_CAPACITY = 16;
 	private Hashable<T>[] hashFunctions;
 	private int[][] counts;
+	private boolean conservativeUpdate;
+	private long totalCount;
 
 	public CountMinSketch() {
 		this(DEFAULT_CAPACITY, t -> Objects.hash(t));
@@ -17,6 +42,18 @@ public class CountMinSketch<T> {
 
 	@SafeVarargs
 	public CountMinSketch(int capacity, Hashable<T>... hashFunctions) {
+		this(capacity, false, hashFunctions);
+	}
+
+	/**
+	 *
+	 * @param capacity           The number of counters of each row.
+	 * @param conservativeUpdate True to only raise the smallest counters of an
+	 *                           item on insert.
+	 * @param hashFunctions      One hash function per row.
+	 */
+	@SafeVarargs
+	public CountMinSketch(int capacity, boolean conservativeUpdate, Hashable<T>... hashFunctions) {
 		if (capacity <= 0) {
 			throw new IllegalArgumentException("Capacity should be greater than 0");
 		}
@@ -25,36 +62,115 @@ public class CountMinSketch<T> {
 		if (hashFunctions.length == 0) {
 			throw new IllegalArgumentException("Must provide hash functions");
 		}
+		this.hashFunctions = hashFunctions;
+		this.conservativeUpdate = conservativeUpdate;
 		counts = new int[hashFunctions.length][capacity];
 	}
 
+	private int index(int hashIndex, T item) {
+		return Math.floorMod(hashFunctions[hashIndex].hash(item), counts[hashIndex].length);
+	}
+
+	// Counters stop at Integer.MAX_VALUE instead of overflowing
+	private static int saturatedAdd(int count, int amount) {
+		return (int) Math.min((long) count + amount, Integer.MAX_VALUE);
+	}
+
 	public void insert(T item) {
+		insert(item, 1);
+	}
+
+	/**
+	 * Inserts the item count times.
+	 *
+	 * @param item  The item to insert.
+	 * @param count The number of times to insert it, not negative.
+	 */
+	public void insert(T item, int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count should not be negative");
+		}
+
+		totalCount += count;
+		if (!conservativeUpdate) {
+			for (int hashIndex = 0; hashIndex < hashFunctions.length; hashIndex++) {
+				int index = index(hashIndex, item);
+				counts[hashIndex][index] = saturatedAdd(counts[hashIndex][index], count);
+			}
+			return;
+		}
+
+		int estimate = saturatedAdd(count(item), count);
 		for (int hashIndex = 0; hashIndex < hashFunctions.length; hashIndex++) {
-			Hashable<T> hasher = hashFunctions[hashIndex];
-			int index = hasher.hash(item);
-			counts[hashIndex][index]++;
+			int index = index(hashIndex, item);
+			counts[hashIndex][index] = Math.max(counts[hashIndex][index], estimate);
 		}
 	}
 
 	public void remove(T item) {
+		if (conservativeUpdate) {
+			throw new UnsupportedOperationException("Can not remove with conservative update");
+		}
+
+		boolean removed = false;
 		for (int hashIndex = 0; hashIndex < hashFunctions.length; hashIndex++) {
-			Hashable<T> hasher = hashFunctions[hashIndex];
-			int index = hasher.hash(item);
+			int index = index(hashIndex, item);
 
 			if (counts[hashIndex][index] != 0) {
 				counts[hashIndex][index]--;
+				removed = true;
 			}
 		}
+		if (removed) {
+			totalCount--;
+		}
 	}
 
 	public int count(T item) {
 		int min = Integer.MAX_VALUE;
 		for (int hashIndex = 0; hashIndex < hashFunctions.length; hashIndex++) {
-			Hashable<T> hasher = hashFunctions[hashIndex];
-			int index = hasher.hash(item);
+			int index = index(hashIndex, item);
 			min = Math.min(min, counts[hashIndex][index]);
 		}
 
 		return min;
 	}
+
+	/**
+	 * Adds the counters of the other sketch to this one, this sketch then counts
+	 * the items inserted into both. The estimates stay at or above the true
+	 * counts with conservative update.
+	 *
+	 * Hash functions can not be compared, the caller has to make sure both
+	 * sketches hash each row the same way or the merged estimates are wrong.
+	 *
+	 * @param other A sketch with the same rows, capacity and hash functions.
+	 * @throws IllegalArgumentException If the number of rows or the capacity
+	 *                                  differ.
+	 */
+	public void merge(CountMinSketch<T> other) {
+		Objects.requireNonNull(other);
+		if (counts.length != other.counts.length || counts[0].length != other.counts[0].length) {
+			throw new IllegalArgumentException(String.format(
+					"Sketches are not compatible, %d rows of %d counters against %d rows of %d counters",
+					counts.length, counts[0].length, other.counts.length, other.counts[0].length));
+		}
+
+		for (int hashIndex = 0; hashIndex < hashFunctions.length; hashIndex++) {
+			int[] row = counts[hashIndex];
+			int[] otherRow = other.counts[hashIndex];
+			for (int index = 0; index < row.length; index++) {
+				row[index] = saturatedAdd(row[index], otherRow[index]);
+			}
+		}
+		totalCount += other.totalCount;
+	}
+
+	/**
+	 *
+	 * @return The number of insertions, less the removals.
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
 }
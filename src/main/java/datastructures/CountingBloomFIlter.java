@@ -32,19 +32,20 @@ public class CountingBloomFIlter<T> {
 		if (hashFunctions.length == 0) {
 			throw new IllegalArgumentException("Must provide hash functions");
 		}
+		this.hashFunctions = hashFunctions;
 		counts = new int[capacity];
 	}
 
 	public void insert(T item) {
 		for (Hashable<T> hasher : hashFunctions) {
-			int index = hasher.hash(item) % counts.length;
+			int index = Math.floorMod(hasher.hash(item), counts.length);
 			counts[index]++;
 		}
 	}
 
 	public void remove(T item) {
 		for (Hashable<T> hasher : hashFunctions) {
-			int index = hasher.hash(item) % counts.length;
+			int index = Math.floorMod(hasher.hash(item), counts.length);
 
 			if (counts[index] != 0) {
 				counts[index]--;
@@ -55,7 +56,7 @@ public class CountingBloomFIlter<T> {
 	// may contain it
 	public boolean contains(T item) {
 		for (Hashable<T> hasher : hashFunctions) {
-			int index = hasher.hash(item) % counts.length;
+			int index = Math.floorMod(hasher.hash(item), counts.length);
 			if (counts[index] == 0) {
 				return false;
 			}
@@ -0,0 +1,325 @@
+package datastructures;
+
+import java.util.Objects;
+
+/**
+ * A cuckoo filter, a membership filter that supports removing items and needs
+ * fewer bits per item than a bloom filter for false positive rates below about
+ * 3%.
+ *
+ * Each item is stored as a short fingerprint of its hash in one of two buckets
+ * of 4 slots. The first bucket comes from the hash and the second is a hash of
+ * the fingerprint minus the first bucket, partial key cuckoo hashing, so either
+ * bucket can be found from the other and the fingerprint alone when a
+ * fingerprint is relocated. Subtracting instead of the usual xor lets the
+ * number of buckets be any size rather than a power of 2, which could leave
+ * the filter half empty. When both buckets are full a random
+ * fingerprint is kicked out to its other bucket, repeating up to a bounded
+ * number of times. A fingerprint still without a bucket after that is kept
+ * aside as the victim and the filter reports itself full on the next insert.
+ *
+ * A lookup reads 2 buckets, the false positive rate is about 8 / 2^f for f bit
+ * fingerprints. The buckets are packed into a long array, 4 * f bits each. The
+ * filter fills up to a load factor of about 95%.
+ *
+ * Only remove items that were inserted, removing anything else can remove the
+ * fingerprint of another item that shares it. An item inserted more than 8
+ * times fills both of its buckets.
+ *
+ * Resources: Fan, Andersen, Kaminsky, Mitzenmacher, Cuckoo Filter: Practically
+ * Better Than Bloom
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class CuckooFilter<T> {
+	public static final int SLOTS_PER_BUCKET = 4;
+	public static final int MAX_KICKS = 500;
+	private static final double MAX_LOAD_FACTOR = 0.95;
+	private static final int EMPTY = 0;
+
+	private final BloomFilter.LongHashable<T> hashFunction;
+	private final int fingerprintBits;
+	private final long fingerprintMask;
+	private final int bucketBits;
+	private final long bucketMask;
+	private final int numBuckets;
+	private final long[] buckets;
+	private int size;
+	// A fingerprint that could not be placed, EMPTY if there is none
+	private int victim = EMPTY;
+	private int victimBucket;
+	private long randomState = 0x9E3779B97F4A7C15L;
+
+	/**
+	 *
+	 * @param numBuckets      The number of buckets.
+	 * @param fingerprintBits The width of a fingerprint, between 2 and 16 bits.
+	 * @param hashFunction    A well mixed 64 bit hash of the items.
+	 */
+	public CuckooFilter(int numBuckets, int fingerprintBits, BloomFilter.LongHashable<T> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (numBuckets <= 0 || numBuckets > 1 << 30) {
+			throw new IllegalArgumentException("Number of buckets should be between 1 and " + (1 << 30));
+		}
+		if (fingerprintBits < 2 || fingerprintBits > 16) {
+			throw new IllegalArgumentException("Fingerprint bits should be between 2 and 16");
+		}
+
+		this.hashFunction = hashFunction;
+		this.fingerprintBits = fingerprintBits;
+		fingerprintMask = (1L << fingerprintBits) - 1;
+		bucketBits = fingerprintBits * SLOTS_PER_BUCKET;
+		bucketMask = bucketBits == Long.SIZE ? -1L : (1L << bucketBits) - 1;
+		this.numBuckets = numBuckets;
+		// One more long so a bucket that ends in the last long can be read as two
+		buckets = new long[(int) (((long) numBuckets * bucketBits + 63) >>> 6) + 1];
+	}
+
+	/**
+	 * Creates a filter hashing items by their hash code.
+	 *
+	 * @see #create(long, double, BloomFilter.LongHashable)
+	 */
+	public static <T> CuckooFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+		return create(expectedInsertions, falsePositiveRate, BloomFilter::hashCodeMix);
+	}
+
+	/**
+	 * Creates a filter with the shortest fingerprints that reach the false
+	 * positive rate, f = ceil(log2(8 / rate)), and enough buckets to hold the
+	 * expected insertions below the maximum load factor.
+	 *
+	 * @param expectedInsertions The number of items that will be present at once.
+	 * @param falsePositiveRate  The wanted false positive rate, between 0 and 1
+	 *                           exclusive.
+	 * @param hashFunction       A well mixed 64 bit hash of the items.
+	 * @return A filter sized for the expected insertions.
+	 * @throws IllegalArgumentException If the rate needs fingerprints longer than
+	 *                                  16 bits.
+	 */
+	public static <T> CuckooFilter<T> create(long expectedInsertions, double falsePositiveRate,
+			BloomFilter.LongHashable<T> hashFunction) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Expected insertions should be greater than 0");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate should be between 0 and 1 exclusive");
+		}
+
+		int fingerprintBits = Math.max(2,
+				(int) Math.ceil(Math.log(2.0 * SLOTS_PER_BUCKET / falsePositiveRate) / Math.log(2)));
+		if (fingerprintBits > 16) {
+			throw new IllegalArgumentException(String.format(
+					"A false positive rate of %s needs %d bit fingerprints, more than the 16 supported",
+					falsePositiveRate, fingerprintBits));
+		}
+		long numBuckets = (long) Math.ceil(expectedInsertions / (SLOTS_PER_BUCKET * MAX_LOAD_FACTOR));
+		if (numBuckets > 1 << 30) {
+			throw new IllegalArgumentException(
+					String.format("%d buckets are needed, more than the %d supported", numBuckets, 1 << 30));
+		}
+		return new CuckooFilter<>((int) numBuckets, fingerprintBits, hashFunction);
+	}
+
+	private long readBucket(int bucket) {
+		long offset = (long) bucket * bucketBits;
+		int word = (int) (offset >>> 6);
+		int shift = (int) (offset & 63);
+		long value = buckets[word] >>> shift;
+		if (shift + bucketBits > Long.SIZE) {
+			value |= buckets[word + 1] << (Long.SIZE - shift);
+		}
+		return value & bucketMask;
+	}
+
+	private void writeBucket(int bucket, long value) {
+		long offset = (long) bucket * bucketBits;
+		int word = (int) (offset >>> 6);
+		int shift = (int) (offset & 63);
+		buckets[word] = (buckets[word] & ~(bucketMask << shift)) | (value << shift);
+		if (shift + bucketBits > Long.SIZE) {
+			int spilled = Long.SIZE - shift;
+			buckets[word + 1] = (buckets[word + 1] & ~(bucketMask >>> spilled)) | (value >>> spilled);
+		}
+	}
+
+	private int getSlot(long bucket, int slot) {
+		return (int) ((bucket >>> (slot * fingerprintBits)) & fingerprintMask);
+	}
+
+	private long setSlot(long bucket, int slot, int fingerprint) {
+		int shift = slot * fingerprintBits;
+		return (bucket & ~(fingerprintMask << shift)) | ((long) fingerprint << shift);
+	}
+
+	// The fingerprint from the high bits of the hash, never EMPTY
+	private int fingerprint(long hash) {
+		int fingerprint = (int) (hash >>> (Long.SIZE - fingerprintBits));
+		return fingerprint == EMPTY ? 1 : fingerprint;
+	}
+
+	// The low half of the hash scaled to the number of buckets
+	private int firstBucket(long hash) {
+		return (int) (((hash & 0xFFFFFFFFL) * numBuckets) >>> 32);
+	}
+
+	// The other bucket of a fingerprint, works from either bucket since
+	// h - (h - bucket) = bucket
+	private int alternateBucket(int bucket, int fingerprint) {
+		int fingerprintHash = (int) (((fingerprint * 0x5BD1E995L) & 0xFFFFFFFFL) % numBuckets);
+		int alternate = fingerprintHash - bucket;
+		return alternate < 0 ? alternate + numBuckets : alternate;
+	}
+
+	private int indexOf(int bucket, int fingerprint) {
+		long value = readBucket(bucket);
+		for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+			if (getSlot(value, slot) == fingerprint) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	// Puts the fingerprint in an empty slot of the bucket if there is one
+	private boolean tryPut(int bucket, int fingerprint) {
+		int slot = indexOf(bucket, EMPTY);
+		if (slot == -1) {
+			return false;
+		}
+		writeBucket(bucket, setSlot(readBucket(bucket), slot, fingerprint));
+		return true;
+	}
+
+	// xorshift, the kicks only need to avoid cycling between the same slots
+	private int nextRandom(int bound) {
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 7;
+		randomState ^= randomState << 17;
+		return (int) ((randomState >>> 33) % bound);
+	}
+
+	/**
+	 *
+	 * @param item The item to insert.
+	 * @return False if the filter is full and the item was not inserted.
+	 */
+	public boolean insert(T item) {
+		if (victim != EMPTY) {
+			return false;
+		}
+
+		long hash = hashFunction.hash(item);
+		int fingerprint = fingerprint(hash);
+		int bucket = firstBucket(hash);
+		size++;
+		if (tryPut(bucket, fingerprint) || tryPut(alternateBucket(bucket, fingerprint), fingerprint)) {
+			return true;
+		}
+
+		if (nextRandom(2) == 0) {
+			bucket = alternateBucket(bucket, fingerprint);
+		}
+		for (int kick = 0; kick < MAX_KICKS; kick++) {
+			int slot = nextRandom(SLOTS_PER_BUCKET);
+			long value = readBucket(bucket);
+			int evicted = getSlot(value, slot);
+			writeBucket(bucket, setSlot(value, slot, fingerprint));
+			fingerprint = evicted;
+			bucket = alternateBucket(bucket, fingerprint);
+			if (tryPut(bucket, fingerprint)) {
+				return true;
+			}
+		}
+
+		// The item is in, but the fingerprint kicked out last has no room
+		victim = fingerprint;
+		victimBucket = bucket;
+		return true;
+	}
+
+	// may contain it
+	public boolean contains(T item) {
+		long hash = hashFunction.hash(item);
+		int fingerprint = fingerprint(hash);
+		int bucket = firstBucket(hash);
+		int alternate = alternateBucket(bucket, fingerprint);
+		if (indexOf(bucket, fingerprint) != -1 || indexOf(alternate, fingerprint) != -1) {
+			return true;
+		}
+		return victim == fingerprint && (victimBucket == bucket || victimBucket == alternate);
+	}
+
+	/**
+	 * Removes one copy of an inserted item.
+	 *
+	 * @param item The item to remove.
+	 * @return True if a fingerprint of the item was found and removed.
+	 */
+	public boolean remove(T item) {
+		long hash = hashFunction.hash(item);
+		int fingerprint = fingerprint(hash);
+		int bucket = firstBucket(hash);
+		int alternate = alternateBucket(bucket, fingerprint);
+		if (victim == fingerprint && (victimBucket == bucket || victimBucket == alternate)) {
+			victim = EMPTY;
+			size--;
+			return true;
+		}
+
+		if (!removeFrom(bucket, fingerprint) && !removeFrom(alternate, fingerprint)) {
+			return false;
+		}
+
+		size--;
+		// The victim may fit now that a slot is free
+		if (victim != EMPTY
+				&& (tryPut(victimBucket, victim) || tryPut(alternateBucket(victimBucket, victim), victim))) {
+			victim = EMPTY;
+		}
+		return true;
+	}
+
+	private boolean removeFrom(int bucket, int fingerprint) {
+		int slot = indexOf(bucket, fingerprint);
+		if (slot == -1) {
+			return false;
+		}
+		writeBucket(bucket, setSlot(readBucket(bucket), slot, EMPTY));
+		return true;
+	}
+
+	/**
+	 *
+	 * @return The number of items in the filter.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @return The fraction of slots holding a fingerprint.
+	 */
+	public double getLoadFactor() {
+		return (double) size / ((long) numBuckets * SLOTS_PER_BUCKET);
+	}
+
+	/**
+	 *
+	 * @return The number of bytes held by the buckets.
+	 */
+	public long getMemoryBytes() {
+		return (long) buckets.length * Long.BYTES;
+	}
+
+	/**
+	 *
+	 * @return The width of a fingerprint in bits.
+	 */
+	public int getFingerprintBits() {
+		return fingerprintBits;
+	}
+}
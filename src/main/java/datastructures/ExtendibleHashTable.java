@@ -1,21 +1,55 @@
 package datastructures;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * A hash table that uses extendible hashing.
  * 
  * Null values are not allowed.
  * 
+ * The key set, values and entry set are live views of the table. They visit
+ * every bucket once by walking the directory and only reading a bucket from
+ * the lowest directory index that points to it, which is the only index below
+ * 2^localDepth. Their iterators are fail-fast and their spliterators split the
+ * directory's index range, so parallel streams fan out across buckets.
+ * 
+ * {@link #snapshot()} returns a read-only view of the table in O(1) that
+ * shares the directory and buckets. The directory is split into segments, and
+ * after a snapshot the table copies a bucket or a directory segment the first
+ * time it writes to it, so the snapshot never changes and reading it never
+ * blocks the writer.
+ * 
+ * A bucket whose entries all have the same hash can not be split, entries
+ * that do not fit into it go to a chain of overflow buckets instead. A table
+ * created with duplicate keys is a non-unique index: {@link #put(Object, Object)}
+ * adds another value for the key instead of replacing it, the values of a key
+ * are streamed by {@link #getValues(Object)} and {@link #remove(Object)}
+ * removes all of them. Many values for one key end up in one overflow chain,
+ * {@link #keySet()} still holds every key once.
+ * 
+ * A table created with stats enabled keeps {@link ExtendibleHashTableStats}
+ * up to date, the depths and bucket fills along with counts of splits,
+ * directory doublings and collapses and the keys scanned per get.
+ * 
  * Resources: https://www2.cs.sfu.ca/CourseCentral/354/lxwu/notes/chapter11.pdf
  * https://www.geeksforgeeks.org/extendible-hashing-dynamic-approach-to-dbms/
  * 
@@ -37,59 +71,91 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	private static final int NOT_FOUND = -1;
 	private static final int MAX_INT_BITS = 32;
 
+	// Presized tables are filled to about the 69% extendible hashing settles at
+	private static final double PRESIZE_FILL = 0.7;
+	private static final int MAX_PRESIZE_DEPTH = 30;
+	// Parallel bulk loads split the directory into up to 2^6 partitions
+	private static final int MAX_PARTITION_BITS = 6;
+
+	// Directory segments hold up to 2^10 bucket references
+	private static final int SEGMENT_BITS = 10;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	// Version of segments shared by both halves of a doubled directory
+	private static final int SHARED_SEGMENT = -1;
+
 	private byte globalDepth;
 	private int bucketSize;
-	private Object[] directory;
+	private Object[][] segments;
+	// Buckets and segments older than the version may be shared with a snapshot
+	private int version;
+	private int[] segmentVersions;
+	private boolean segmentsShared;
 	private int size;
 	private Function<Object, Integer> hasher;
-
+	// Null unless stats are enabled
+	private ExtendibleHashTableStats stats;
+	private boolean duplicateKeys;
+	private int modCount;
+
+	private Set<K> keySet;
+	private Collection<V> values;
+	private Set<Entry<K, V>> entrySet;
+
+	/*
+	 * Each key's full hash is stored next to it. Lookups compare the hashes before
+	 * calling equals and splits redistribute entries by the stored hashes, so a
+	 * key is only hashed once when it is inserted.
+	 */
 	private class Bucket {
+		final int version;
 		byte localDepth;
 		int numKeys; // Number of current keys
+		int[] hashes;
 		K[] keys;
 		V[] values;
+		// Holds entries that do not fit once the bucket can not be split
+		Bucket overflow;
 
 		@SuppressWarnings("unchecked")
 		public Bucket(byte depth) {
+			version = ExtendibleHashTable.this.version;
 			localDepth = depth;
+			hashes = new int[bucketSize];
 			keys = (K[]) new Object[bucketSize];
 			values = (V[]) new Object[bucketSize];
 		}
 
-		boolean insert(K key, V value) {
+		boolean insert(K key, V value, int hash) {
 			if (isFull()) {
 				return false;
 			}
 
+			hashes[numKeys] = hash;
 			keys[numKeys] = key;
 			values[numKeys] = value;
 			numKeys++;
 			return true;
 		}
 
-		public V insert(K key, V value, int index) {
+		public V replace(K key, V value, int index) {
 			V oldValue = values[index];
 			values[index] = value;
 			keys[index] = key;
 			return oldValue;
 		}
 
-		public V remove(Object key) {
-			int index = indexOf(key, keys);
-
-			if (index == NOT_FOUND) {
-				return null;
-			}
-
+		public V removeAt(int index) {
 			V oldValue = values[index];
 
 			// Shift items left, and clean up memory
 			System.arraycopy(values, index + 1, values, index, numKeys - index - 1);
 			System.arraycopy(keys, index + 1, keys, index, numKeys - index - 1);
+			System.arraycopy(hashes, index + 1, hashes, index, numKeys - index - 1);
 			numKeys--;
 			keys[numKeys] = null;
 			values[numKeys] = null;
 			size--;
+			modCount++;
 			return oldValue;
 		}
 
@@ -105,43 +171,117 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 			localDepth++;
 			numKeys = 0;
 			Bucket otherBucket = new Bucket(localDepth);
+			Bucket chain = overflow;
+			overflow = null;
 
-			String input = getLeastSigBitsBinaryForm(hash, localDepth);
-			char leadingBit = input.charAt(0);
-			splitEntries(otherBucket, leadingBit);
+			int leadingBitMask = getLeadingBitMask(localDepth);
+			int leadingBit = hash & leadingBitMask;
+			splitEntries(otherBucket, leadingBit, leadingBitMask);
 
 			Arrays.fill(keys, numKeys, keys.length, null); // Cleaning up memory
 			Arrays.fill(values, numKeys, values.length, null);
+
+			// Overflow entries are split the same way into new chains
+			for (Bucket bucket = chain; bucket != null; bucket = bucket.overflow) {
+				for (int i = 0; i < bucket.numKeys; i++) {
+					Bucket target = (bucket.hashes[i] & leadingBitMask) == leadingBit ? this : otherBucket;
+					target.appendToChain(bucket.keys[i], bucket.values[i], bucket.hashes[i]);
+				}
+			}
 			return otherBucket;
 		}
 
+		void appendToChain(K key, V value, int hash) {
+			Bucket bucket = this;
+			while (!bucket.insert(key, value, hash)) {
+				if (bucket.overflow == null) {
+					bucket.overflow = new Bucket(localDepth);
+				}
+				bucket = bucket.overflow;
+			}
+		}
+
+		// The first bucket of the chain that is not full, null if there is none
+		Bucket withRoom() {
+			Bucket bucket = this;
+			while (bucket != null && bucket.isFull()) {
+				bucket = bucket.overflow;
+			}
+			return bucket;
+		}
+
+		// Splitting can not separate entries that all have the same hash
+		boolean allHashesEqual(int hash) {
+			for (Bucket bucket = this; bucket != null; bucket = bucket.overflow) {
+				for (int i = 0; i < bucket.numKeys; i++) {
+					if (bucket.hashes[i] != hash) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		int chainLength() {
+			int length = 0;
+			for (Bucket bucket = this; bucket != null; bucket = bucket.overflow) {
+				length++;
+			}
+			return length;
+		}
+
+		Bucket chainAt(int position) {
+			Bucket bucket = this;
+			for (int i = 0; i < position; i++) {
+				bucket = bucket.overflow;
+			}
+			return bucket;
+		}
+
 		/**
 		 * Splits content of current bucket with other bucket. There are instances where
 		 * no entries will be distributed to the other bucket due to the entries in the
 		 * current bucket.
 		 * 
-		 * @param otherBucket Other bucket to split items with.
-		 * @param leadingBit  If binary bit is equal to leading bit then the current
-		 *                    bucket will get the item otherwise other bucket gets the
-		 *                    item.
+		 * @param otherBucket    Other bucket to split items with.
+		 * @param leadingBit     If the key's hash masked by the leading bit mask is
+		 *                       equal to leading bit then the current bucket will get
+		 *                       the item otherwise other bucket gets the item.
+		 * @param leadingBitMask Mask that only has the leading bit of the local depth
+		 *                       set.
 		 */
-		private void splitEntries(Bucket otherBucket, char leadingBit) {
-			final int leadingBitPos = 0;
+		private void splitEntries(Bucket otherBucket, int leadingBit, int leadingBitMask) {
 			for (int i = 0; i < keys.length; i++) {
-				String binaryForm = getLeastSigBitsBinaryForm(hasher.apply(keys[i]), localDepth);
-				if (binaryForm.charAt(leadingBitPos) == leadingBit) {
-					this.insert(keys[i], values[i]);
+				if ((hashes[i] & leadingBitMask) == leadingBit) {
+					this.insert(keys[i], values[i], hashes[i]);
 				} else {
-					otherBucket.insert(keys[i], values[i]);
+					otherBucket.insert(keys[i], values[i], hashes[i]);
 				}
 			}
 		}
 
-		// Bucket will copy everything the other bucket's contents.
-		public void borrowAll(Bucket other) {
-			numKeys = other.numKeys;
-			System.arraycopy(other.keys, 0, keys, 0, numKeys);
-			System.arraycopy(other.values, 0, values, 0, numKeys);
+		// Copies the whole chain
+		Bucket copy() {
+			Bucket copy = new Bucket(localDepth);
+			copy.numKeys = numKeys;
+			System.arraycopy(hashes, 0, copy.hashes, 0, numKeys);
+			System.arraycopy(keys, 0, copy.keys, 0, numKeys);
+			System.arraycopy(values, 0, copy.values, 0, numKeys);
+			if (overflow != null) {
+				copy.overflow = overflow.copy();
+			}
+			return copy;
+		}
+
+		// Only calls equals on keys with the same hash
+		int indexOfKey(Object key, int hash) {
+			for (int i = 0; i < numKeys; i++) {
+				if (hashes[i] == hash && Objects.equals(keys[i], key)) {
+					return i;
+				}
+			}
+
+			return NOT_FOUND;
 		}
 
 		int indexOf(Object o, Object[] objects) {
@@ -154,8 +294,13 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 			return NOT_FOUND;
 		}
 
-		boolean contains(Object o, Object[] objects) {
-			return indexOf(o, objects) != NOT_FOUND;
+		boolean containsValue(Object value) {
+			for (Bucket bucket = this; bucket != null; bucket = bucket.overflow) {
+				if (bucket.indexOf(value, bucket.values) != NOT_FOUND) {
+					return true;
+				}
+			}
+			return false;
 		}
 
 		public boolean isFull() {
@@ -163,7 +308,7 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 		}
 
 		public boolean isEmpty() {
-			return numKeys == 0;
+			return numKeys == 0 && overflow == null;
 		}
 
 		void decrementDepth() {
@@ -194,6 +339,31 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	}
 
 	public ExtendibleHashTable(int bucketSize, Function<Object, Integer> hashFunction) {
+		this(bucketSize, hashFunction, false);
+	}
+
+	/**
+	 *
+	 * @param bucketSize   The number of entries per bucket.
+	 * @param hashFunction The hash function of the keys.
+	 * @param recordStats  Whether to keep the stats returned by
+	 *                     {@link #getStats()}.
+	 */
+	public ExtendibleHashTable(int bucketSize, Function<Object, Integer> hashFunction, boolean recordStats) {
+		this(bucketSize, hashFunction, recordStats, false);
+	}
+
+	/**
+	 *
+	 * @param bucketSize    The number of entries per bucket.
+	 * @param hashFunction  The hash function of the keys.
+	 * @param recordStats   Whether to keep the stats returned by
+	 *                      {@link #getStats()}.
+	 * @param duplicateKeys Whether a key can map to multiple values, puts add a
+	 *                      value instead of replacing it.
+	 */
+	public ExtendibleHashTable(int bucketSize, Function<Object, Integer> hashFunction, boolean recordStats,
+			boolean duplicateKeys) {
 		Objects.requireNonNull(hashFunction);
 		if (bucketSize < 0) {
 			throw new IllegalArgumentException("Bucket size must be greater than 0");
@@ -202,18 +372,238 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 		globalDepth = MIN_DEPTH;
 		hasher = hashFunction;
 		this.bucketSize = bucketSize;
+		this.duplicateKeys = duplicateKeys;
+		if (recordStats) {
+			stats = new ExtendibleHashTableStats(bucketSize);
+		}
 		resetDirectoryBuckets();
 	}
 
+	/**
+	 * Creates a table with enough buckets for the expected number of entries, so
+	 * filling it up to that size takes few splits and directory doublings.
+	 *
+	 * @param bucketSize   The number of entries per bucket.
+	 * @param hashFunction The hash function of the keys.
+	 * @param expectedSize The number of entries the table is expected to hold.
+	 */
+	public ExtendibleHashTable(int bucketSize, Function<Object, Integer> hashFunction, int expectedSize) {
+		this(bucketSize, hashFunction, expectedSize, false);
+	}
+
+	/**
+	 * Creates a table with enough buckets for the expected number of entries.
+	 *
+	 * @param bucketSize   The number of entries per bucket.
+	 * @param hashFunction The hash function of the keys.
+	 * @param expectedSize The number of entries the table is expected to hold.
+	 * @param recordStats  Whether to keep the stats returned by
+	 *                     {@link #getStats()}.
+	 */
+	public ExtendibleHashTable(int bucketSize, Function<Object, Integer> hashFunction, int expectedSize,
+			boolean recordStats) {
+		this(bucketSize, hashFunction, recordStats);
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Expected size must not be negative");
+		}
+
+		presize(expectedSize);
+	}
+
+	// Shares the table's directory and buckets
+	private ExtendibleHashTable(ExtendibleHashTable<K, V> table) {
+		globalDepth = table.globalDepth;
+		bucketSize = table.bucketSize;
+		segments = table.segments;
+		version = table.version;
+		segmentVersions = table.segmentVersions.clone();
+		segmentsShared = true;
+		size = table.size;
+		hasher = table.hasher;
+		duplicateKeys = table.duplicateKeys;
+	}
+
+	/**
+	 * Builds a table out of the entries. The table is presized for the number of
+	 * entries, then the entries are placed directly into the empty buckets. A
+	 * parallel load partitions the directory on the high bits of its indices and
+	 * fills each partition on its own thread of the common fork-join pool, the few
+	 * entries that do not fit into their presized bucket are put afterwards. Later
+	 * entries replace earlier entries with the same key.
+	 *
+	 * @param entries      The entries to load.
+	 * @param bucketSize   The number of entries per bucket.
+	 * @param hashFunction The hash function of the keys.
+	 * @param parallel     Whether to load on multiple threads.
+	 * @return The loaded table.
+	 */
+	public static <K, V> ExtendibleHashTable<K, V> bulkLoad(
+			Collection<? extends Entry<? extends K, ? extends V>> entries, int bucketSize,
+			Function<Object, Integer> hashFunction, boolean parallel) {
+		Objects.requireNonNull(entries);
+		ExtendibleHashTable<K, V> table = new ExtendibleHashTable<>(bucketSize, hashFunction, entries.size());
+		table.load(entries.toArray(), parallel);
+		return table;
+	}
+
+	private void presize(int expectedSize) {
+		double buckets = expectedSize / (bucketSize * PRESIZE_FILL);
+		int depth = MIN_DEPTH;
+		while (depth < MAX_PRESIZE_DEPTH && (1 << depth) < buckets) {
+			depth++;
+		}
+
+		globalDepth = (byte) depth;
+		resetDirectoryBuckets();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void load(Object[] entries, boolean parallel) {
+		int[] hashes = new int[entries.length];
+		IntStream indices = IntStream.range(0, entries.length);
+		(parallel ? indices.parallel() : indices).forEach(i -> {
+			Entry<? extends K, ? extends V> entry = (Entry<? extends K, ? extends V>) entries[i];
+			Objects.requireNonNull(entry.getKey());
+			Objects.requireNonNull(entry.getValue());
+			hashes[i] = hasher.apply(entry.getKey());
+		});
+
+		// Each partition owns a range of directory indices and their buckets
+		int partitionBits = parallel ? Math.min(globalDepth, MAX_PARTITION_BITS) : 0;
+		int shift = globalDepth - partitionBits;
+		int directoryMask = totalPotentialBuckets() - 1;
+		int partitionCount = 1 << partitionBits;
+		int[] starts = new int[partitionCount + 1];
+		int[] order = partitionCount == 1 ? null : new int[entries.length];
+		if (order == null) {
+			starts[1] = entries.length;
+		} else {
+			// Counting sort of the entry indices by partition, stable so later entries
+			// still replace earlier entries with the same key
+			for (int hash : hashes) {
+				starts[((hash & directoryMask) >>> shift) + 1]++;
+			}
+			for (int partition = 0; partition < partitionCount; partition++) {
+				starts[partition + 1] += starts[partition];
+			}
+			int[] next = Arrays.copyOf(starts, partitionCount);
+			for (int i = 0; i < entries.length; i++) {
+				order[next[(hashes[i] & directoryMask) >>> shift]++] = i;
+			}
+		}
+
+		int[] added = new int[partitionCount];
+		boolean[] placed = new boolean[entries.length];
+		IntStream partitions = IntStream.range(0, partitionCount);
+		(parallel ? partitions.parallel() : partitions).forEach(partition -> {
+			for (int j = starts[partition]; j < starts[partition + 1]; j++) {
+				int i = order == null ? j : order[j];
+				int hash = hashes[i];
+				Entry<? extends K, ? extends V> entry = (Entry<? extends K, ? extends V>) entries[i];
+				Bucket bucket = getBucket(hash);
+				int index = bucket.indexOfKey(entry.getKey(), hash);
+				if (index != NOT_FOUND) {
+					bucket.replace(entry.getKey(), entry.getValue(), index);
+					placed[i] = true;
+				} else if (bucket.insert(entry.getKey(), entry.getValue(), hash)) {
+					added[partition]++;
+					placed[i] = true;
+				}
+			}
+		});
+
+		size += Arrays.stream(added).sum();
+		modCount++;
+		recountStats();
+		for (int i = 0; i < entries.length; i++) {
+			if (!placed[i]) {
+				Entry<? extends K, ? extends V> entry = (Entry<? extends K, ? extends V>) entries[i];
+				putHelper(entry.getKey(), entry.getValue(), hashes[i]);
+			}
+		}
+	}
+
 	private int totalPotentialBuckets() {
 		// Working with powers of 2
 		return 1 << globalDepth;
 	}
 
-	@SuppressWarnings("unchecked")
 	private Bucket getBucket(int hash) {
-		int directoryIndex = getLeastSigBitsValue(hash, globalDepth);
-		return (Bucket) directory[directoryIndex];
+		return bucketAt(getLeastSigBitsValue(hash, globalDepth));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Bucket bucketAt(int directoryIndex) {
+		return (Bucket) segments[directoryIndex >>> SEGMENT_BITS][directoryIndex & (SEGMENT_SIZE - 1)];
+	}
+
+	// Copies the segment first if it may be shared
+	private void setBucket(int directoryIndex, Bucket bucket) {
+		int segment = directoryIndex >>> SEGMENT_BITS;
+		if (segmentVersions[segment] != version) {
+			if (segmentsShared) {
+				segments = segments.clone();
+				segmentsShared = false;
+			}
+			segments[segment] = segments[segment].clone();
+			segmentVersions[segment] = version;
+		}
+		segments[segment][directoryIndex & (SEGMENT_SIZE - 1)] = bucket;
+	}
+
+	/*
+	 * Returns the bucket if it is newer than the last snapshot, otherwise copies
+	 * the bucket and points every directory index of the bucket to the copy.
+	 */
+	private Bucket writable(Bucket bucket, int directoryIndex) {
+		if (bucket.version == version) {
+			return bucket;
+		}
+
+		Bucket copy = bucket.copy();
+		setBuckets(directoryIndex, bucket.localDepth, copy);
+		return copy;
+	}
+
+	/*
+	 * Points every directory index that shares the given index's low depth bits
+	 * to the bucket, these are 2^depth indices apart.
+	 */
+	private void setBuckets(int directoryIndex, int depth, Bucket bucket) {
+		int step = 1 << depth;
+		for (int i = getLeastSigBitsValue(directoryIndex, depth); i < totalPotentialBuckets(); i += step) {
+			setBucket(i, bucket);
+		}
+	}
+
+	/**
+	 * Returns the table's live stats, they can be polled from any thread or
+	 * registered as an MXBean.
+	 *
+	 * @return The stats of this table.
+	 * @throws IllegalStateException If the table was created without stats.
+	 */
+	public ExtendibleHashTableStats getStats() {
+		if (stats == null) {
+			throw new IllegalStateException("Stats are not enabled for this table");
+		}
+		return stats;
+	}
+
+	/**
+	 * Returns a read-only view of the table as it is now, in O(1). The view shares
+	 * the directory and buckets with the table, the table copies a bucket or
+	 * directory segment before it writes to one it shares. The view can be read
+	 * from other threads while the table keeps being written to, readers never
+	 * block the writer.
+	 *
+	 * @return A read-only point in time view of the table.
+	 */
+	public Map<K, V> snapshot() {
+		ExtendibleHashTable<K, V> snapshot = new ExtendibleHashTable<>(this);
+		version++;
+		segmentsShared = true;
+		return Collections.unmodifiableMap(snapshot);
 	}
 
 	/**
@@ -225,8 +615,37 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	@Override
 	public boolean containsKey(Object key) {
 		Objects.requireNonNull(key);
-		Bucket keyBucket = getBucket(hasher.apply(key));
-		return keyBucket.contains(key, keyBucket.keys);
+		int hash = hasher.apply(key);
+		return find(getBucket(hash), key, hash) != NOT_FOUND;
+	}
+
+	/*
+	 * Finds the key in the bucket's chain, returns the chain position of the
+	 * bucket holding it in the high int and the index in the low int.
+	 */
+	private long find(Bucket keyBucket, Object key, int hash) {
+		int position = 0;
+		for (Bucket bucket = keyBucket; bucket != null; bucket = bucket.overflow, position++) {
+			int index = bucket.indexOfKey(key, hash);
+			if (index != NOT_FOUND) {
+				return ((long) position << 32) | index;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	// Finds an entry with the key and value
+	private long find(Bucket keyBucket, Object key, int hash, Object value) {
+		int position = 0;
+		for (Bucket bucket = keyBucket; bucket != null; bucket = bucket.overflow, position++) {
+			for (int i = 0; i < bucket.numKeys; i++) {
+				if (bucket.hashes[i] == hash && Objects.equals(bucket.keys[i], key)
+						&& Objects.equals(bucket.values[i], value)) {
+					return ((long) position << 32) | i;
+				}
+			}
+		}
+		return NOT_FOUND;
 	}
 
 	/**
@@ -242,19 +661,21 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	public boolean containsValue(Object value) {
 		Objects.requireNonNull(value);
 
-		Set<Bucket> seenBuckets = new HashSet<>();
-		for (Object bucket : directory) {
-			Bucket b = (Bucket) bucket;
-			if (seenBuckets.add(b)) {
-				if (b.contains(value, b.values)) {
-					return true;
-				}
+		for (int i = 0; i < totalPotentialBuckets(); i++) {
+			Bucket b = bucketAt(i);
+			if (isFirstIndex(i, b) && b.containsValue(value)) {
+				return true;
 			}
 		}
 
 		return false;
 	}
 
+	// Whether the directory index is the lowest index that points to the bucket
+	private boolean isFirstIndex(int directoryIndex, Bucket bucket) {
+		return directoryIndex < (1 << bucket.localDepth);
+	}
+
 	/**
 	 * Returns the associated value that the key maps to.
 	 * 
@@ -265,9 +686,76 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	@Override
 	public V get(Object key) {
 		Objects.requireNonNull(key);
-		Bucket keyBucket = getBucket(hasher.apply(key));
-		int index = keyBucket.indexOf(key, keyBucket.keys);
-		return index != NOT_FOUND ? keyBucket.values[index] : null;
+		int hash = hasher.apply(key);
+		int scanned = 0;
+		for (Bucket bucket = getBucket(hash); bucket != null; bucket = bucket.overflow) {
+			int index = bucket.indexOfKey(key, hash);
+			if (index != NOT_FOUND) {
+				if (stats != null) {
+					stats.recordGet(scanned + index + 1);
+				}
+				return bucket.values[index];
+			}
+			scanned += bucket.numKeys;
+		}
+
+		if (stats != null) {
+			stats.recordGet(scanned);
+		}
+		return null;
+	}
+
+	/**
+	 * Streams the values of the key without copying them, a table with duplicate
+	 * keys can hold many values per key. The values are read from the table as
+	 * the iterator advances, the iterator is fail-fast.
+	 *
+	 * @param key The key to look up.
+	 * @return An iterator over the key's values, in the order they were put.
+	 */
+	public Iterator<V> getValues(K key) {
+		Objects.requireNonNull(key);
+		int hash = hasher.apply(key);
+		Bucket keyBucket = getBucket(hash);
+		return new Iterator<V>() {
+			private final int expectedModCount = modCount;
+			private Bucket bucket = keyBucket;
+			private int index = -1;
+
+			{
+				advance();
+			}
+
+			private void advance() {
+				while (bucket != null) {
+					while (++index < bucket.numKeys) {
+						if (bucket.hashes[index] == hash && Objects.equals(bucket.keys[index], key)) {
+							return;
+						}
+					}
+					bucket = bucket.overflow;
+					index = -1;
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return bucket != null;
+			}
+
+			@Override
+			public V next() {
+				if (modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				} else if (bucket == null) {
+					throw new NoSuchElementException();
+				}
+
+				V value = bucket.values[index];
+				advance();
+				return value;
+			}
+		};
 	}
 
 	/**
@@ -276,7 +764,8 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	 *
 	 * @param The key create or override an association.
 	 * @param The value override and store.
-	 * @return The previous value that was overrided.
+	 * @return The previous value that was overrided, always null when duplicate
+	 *         keys are allowed since the value is added.
 	 */
 	@Override
 	public V put(K key, V value) {
@@ -286,14 +775,34 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	}
 
 	private V putHelper(K key, V value) {
-		int hash = hasher.apply(key);
-		Bucket keyBucket = getBucket(hash);
+		return putHelper(key, value, hasher.apply(key));
+	}
+
+	private V putHelper(K key, V value, int hash) {
+		Bucket keyBucket = writable(getBucket(hash), hash);
+
+		long found = duplicateKeys ? NOT_FOUND : find(keyBucket, key, hash);
+		if (found != NOT_FOUND) {
+			return keyBucket.chainAt((int) (found >>> 32)).replace(key, value, (int) found);
+		} else if (keyBucket.insert(key, value, hash)) {
+			if (stats != null) {
+				stats.recordFill(keyBucket.numKeys - 1, keyBucket.numKeys);
+			}
+			size++;
+			modCount++;
+			return null;
+		}
 
-		int index = keyBucket.indexOf(key, keyBucket.keys);
-		if (index != NOT_FOUND) {
-			return keyBucket.insert(key, value, index);
-		} else if (keyBucket.insert(key, value)) {
+		Bucket room = keyBucket.withRoom();
+		if (room != null || keyBucket.allHashesEqual(hash)) {
+			// Splitting would not make room, overflow instead
+			int chainLength = keyBucket.chainLength();
+			keyBucket.appendToChain(key, value, hash);
+			if (stats != null) {
+				stats.recordOverflow(keyBucket.chainLength() - chainLength);
+			}
 			size++;
+			modCount++;
 			return null;
 		}
 
@@ -302,102 +811,161 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 		}
 
 		// split buckets
+		int chainLength = keyBucket.chainLength();
 		Bucket splitBucket = keyBucket.split(hash);
-		Collection<Integer> samePointingDirectories = getAllDirectoryIndicesPointingTo(keyBucket);
-
-		int bitsToMatch = getLeastSigBitsValue(hash, keyBucket.localDepth);
-		Collection<Integer> splitDirectoriesIndices = samePointingDirectories.stream()
-				.filter(directoryBin -> getLeastSigBitsValue(directoryBin, keyBucket.localDepth) != bitsToMatch)
-				.collect(Collectors.toList());
-
-		for (int directoryIndex : splitDirectoriesIndices) {
-			directory[directoryIndex] = splitBucket;
+		if (stats != null) {
+			stats.recordSplit(keyBucket.localDepth - 1, keyBucket.numKeys, splitBucket.numKeys);
+			stats.recordOverflow(keyBucket.chainLength() + splitBucket.chainLength() - chainLength - 1);
 		}
 
+		// The bucket was referenced every 2^(depth - 1) indices, every other one of
+		// those now references the split bucket
+		int splitIndex = hash ^ getLeadingBitMask(keyBucket.localDepth);
+		setBuckets(splitIndex, keyBucket.localDepth, splitBucket);
+
 		// recursively try to reinsert in case of numerous splits
-		return putHelper(key, value);
+		return putHelper(key, value, hash);
 	}
 
-	private Collection<Integer> getAllDirectoryIndicesPointingTo(Bucket bucket) {
-		Collection<Integer> directoryIndices = new LinkedList<>();
-		for (int i = 0; i < directory.length; i++) {
-			if (directory[i] == bucket) {
-				directoryIndices.add(i);
-			}
+	private void growDirectory() {
+		globalDepth++;
+		int length = totalPotentialBuckets();
+		if (length <= SEGMENT_SIZE) {
+			// Copy contents of first half into second half
+			Object[] segment = Arrays.copyOf(segments[0], length);
+			System.arraycopy(segment, 0, segment, length / 2, length / 2);
+			segments = new Object[][] { segment };
+			segmentVersions = new int[] { version };
+		} else {
+			// Both halves share the segments until one of them is written to
+			int half = segments.length;
+			segments = Arrays.copyOf(segments, half * 2);
+			System.arraycopy(segments, 0, segments, half, half);
+			segmentVersions = new int[half * 2];
+			Arrays.fill(segmentVersions, SHARED_SEGMENT);
+		}
+		segmentsShared = false;
+		if (stats != null) {
+			stats.recordDoubling(globalDepth);
 		}
-		return directoryIndices;
 	}
 
-	private void growDirectory() {
-		globalDepth++;
-		Object[] newDirectory = new Object[totalPotentialBuckets()];
-		int halfDirectoryPosition = totalPotentialBuckets() / 2;
+	@Override
+	public V remove(Object key) {
+		Objects.requireNonNull(key);
 
-		// Copy contents of first half into second half
-		for (int i = 0; i < directory.length; i++) {
-			newDirectory[i] = directory[i];
-			newDirectory[i + halfDirectoryPosition] = directory[i];
+		int hash = hasher.apply(key);
+		long found = find(getBucket(hash), key, hash);
+		if (found == NOT_FOUND) {
+			return null;
 		}
-		directory = newDirectory;
+
+		// Every value of a duplicate key
+		V value = removeEntry(writable(getBucket(hash), hash), found);
+		while (duplicateKeys && (found = find(getBucket(hash), key, hash)) != NOT_FOUND) {
+			removeEntry(getBucket(hash), found);
+		}
+		mergeWithBuddy(hash);
+		return value;
 	}
 
-	@SuppressWarnings("unchecked")
-	public V remove(Object key) {
+	/**
+	 * Removes the entry if the key maps to the value, when duplicate keys are
+	 * allowed only that one value of the key is removed.
+	 */
+	@Override
+	public boolean remove(Object key, Object value) {
 		Objects.requireNonNull(key);
+		if (value == null) {
+			return false;
+		}
 
 		int hash = hasher.apply(key);
-		Bucket keyBucket = getBucket(hash);
+		long found = find(getBucket(hash), key, hash, value);
+		if (found == NOT_FOUND) {
+			return false;
+		}
 
-		V value = keyBucket.remove(key);
+		removeEntry(writable(getBucket(hash), hash), found);
+		mergeWithBuddy(hash);
+		return true;
+	}
 
-		if (keyBucket.isEmpty() && globalDepth > MIN_DEPTH) {
-			int keyBucketDirectory = getLeastSigBitsValue(hash, globalDepth);
-			int upperHalfBucketDirectory = totalPotentialBuckets() / 2;
+	/*
+	 * Removes the entry found in the bucket's chain, then keeps the chain free of
+	 * empty overflow buckets.
+	 */
+	private V removeEntry(Bucket keyBucket, long found) {
+		int position = (int) (found >>> 32);
+		int primaryKeys = keyBucket.numKeys;
+		int chainLength = keyBucket.chainLength();
+		Bucket bucket = keyBucket.chainAt(position);
+		V value = bucket.removeAt((int) found);
+
+		if (position > 0 && bucket.numKeys == 0) {
+			keyBucket.chainAt(position - 1).overflow = bucket.overflow;
+		} else if (keyBucket.numKeys == 0 && keyBucket.overflow != null) {
+			// Move the first overflow bucket into the emptied bucket
+			Bucket first = keyBucket.overflow;
+			System.arraycopy(first.hashes, 0, keyBucket.hashes, 0, first.numKeys);
+			System.arraycopy(first.keys, 0, keyBucket.keys, 0, first.numKeys);
+			System.arraycopy(first.values, 0, keyBucket.values, 0, first.numKeys);
+			keyBucket.numKeys = first.numKeys;
+			keyBucket.overflow = first.overflow;
+		}
 
-			if (keyBucketDirectory < upperHalfBucketDirectory) {
-				Bucket upperHalfSiblingBucket = (Bucket) this.directory[upperHalfBucketDirectory + keyBucketDirectory];
+		if (stats != null) {
+			stats.recordFill(primaryKeys, keyBucket.numKeys);
+			stats.recordOverflow(keyBucket.chainLength() - chainLength);
+		}
+		return value;
+	}
 
-				keyBucket.borrowAll(upperHalfSiblingBucket);
-				keyBucket.decrementDepth();
-				updateDirectoryPointers(upperHalfSiblingBucket, keyBucket);
+	/*
+	 * Merges the hash's bucket with its buddy, the bucket that differs only in the
+	 * leading bit of the local depth, while one of the two is empty and the buddy
+	 * has not been split further. Keeps every bucket referenced by exactly the
+	 * directory indices that match its local depth bits.
+	 */
+	@SuppressWarnings("unchecked")
+	private void mergeWithBuddy(int hash) {
+		for (;;) {
+			Bucket keyBucket = getBucket(hash);
+			int localDepth = keyBucket.localDepth;
+			if (localDepth == MIN_DEPTH) {
+				break;
 			}
 
-			while (canCollapseDirectory()) {
-				collapseDirectory();
+			int buddyIndex = getLeastSigBitsValue(hash, localDepth) ^ getLeadingBitMask(localDepth);
+			Bucket buddy = bucketAt(buddyIndex);
+			if (buddy.localDepth != localDepth || (!keyBucket.isEmpty() && !buddy.isEmpty())) {
+				break;
 			}
 
-			if (globalDepth == MIN_DEPTH) {
-				/*
-				 * Special cases where after collapsing or borrowing from rippled buckets, the
-				 * bucket's depth may not necessarily be correct.
-				 */
-				for (int i = 0; i < this.totalPotentialBuckets(); i++) {
-					Bucket b = (Bucket) directory[i];
-					b.localDepth = 1;
-				}
+			int emptyIndex = keyBucket.isEmpty() ? hash : buddyIndex;
+			int keptIndex = keyBucket.isEmpty() ? buddyIndex : hash;
+			Bucket keptBucket = writable(bucketAt(getLeastSigBitsValue(keptIndex, globalDepth)), keptIndex);
+			setBuckets(emptyIndex, localDepth, keptBucket);
+			keptBucket.decrementDepth();
+			if (stats != null) {
+				stats.recordMerge(localDepth);
 			}
 		}
 
-		return value;
-	}
-
-	private void updateDirectoryPointers(Bucket oldBucket, Bucket newBucket) {
-		for (int i : getAllDirectoryIndicesPointingTo(oldBucket)) {
-			this.directory[i] = newBucket;
+		while (canCollapseDirectory()) {
+			collapseDirectory();
 		}
 	}
 
-	@SuppressWarnings("unchecked")
+	// The directory can be halved once both halves point to the same buckets
 	private boolean canCollapseDirectory() {
 		if (globalDepth == MIN_DEPTH) {
 			return false;
 		}
 
-		final int fullBuckets = totalPotentialBuckets();
-		for (int i = fullBuckets / 2; i < fullBuckets; i++) {
-			Bucket bucket = (Bucket) directory[i];
-
-			if (!bucket.isEmpty()) {
+		int half = totalPotentialBuckets() / 2;
+		for (int i = 0; i < half; i++) {
+			if (bucketAt(i) != bucketAt(i + half)) {
 				return false;
 			}
 		}
@@ -406,74 +974,734 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 
 	private void collapseDirectory() {
 		globalDepth--;
-		Object[] halfDirectory = new Object[totalPotentialBuckets()];
-		System.arraycopy(directory, 0, halfDirectory, 0, halfDirectory.length);
-		directory = halfDirectory;
+		int length = totalPotentialBuckets();
+		if (length < SEGMENT_SIZE) {
+			segments = new Object[][] { Arrays.copyOf(segments[0], length) };
+			segmentVersions = new int[] { version };
+		} else {
+			segments = Arrays.copyOf(segments, segments.length / 2);
+			segmentVersions = Arrays.copyOf(segmentVersions, segments.length);
+		}
+		segmentsShared = false;
+		if (stats != null) {
+			stats.recordCollapse(globalDepth);
+		}
 	}
 
+	/**
+	 * Puts every entry of the map. The keys are hashed up front and inserted in
+	 * bucket order so each bucket is loaded into the cache once, an empty table
+	 * is presized for the map first.
+	 */
+	@SuppressWarnings("unchecked")
 	@Override
 	public void putAll(Map<? extends K, ? extends V> map) {
 		Objects.requireNonNull(map);
-		map.entrySet().forEach(entry -> put(entry.getKey(), entry.getValue()));
+		if (isEmpty() && map.size() > totalPotentialBuckets() * bucketSize) {
+			presize(map.size());
+		}
+
+		Object[] entries = map.entrySet().toArray();
+		int[] hashes = new int[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			Entry<? extends K, ? extends V> entry = (Entry<? extends K, ? extends V>) entries[i];
+			Objects.requireNonNull(entry.getKey());
+			Objects.requireNonNull(entry.getValue());
+			hashes[i] = hasher.apply(entry.getKey());
+		}
+
+		for (int i : bucketOrder(hashes)) {
+			Entry<? extends K, ? extends V> entry = (Entry<? extends K, ? extends V>) entries[i];
+			putHelper(entry.getKey(), entry.getValue(), hashes[i]);
+		}
+	}
+
+	/**
+	 * Looks up every key, the keys are visited in bucket order so each bucket is
+	 * loaded into the cache once.
+	 *
+	 * @param keys The keys to look up.
+	 * @return The keys that are present mapped to their values.
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<K, V> getAll(Collection<? extends K> keys) {
+		Objects.requireNonNull(keys);
+		Object[] lookups = keys.toArray();
+		int[] hashes = new int[lookups.length];
+		for (int i = 0; i < lookups.length; i++) {
+			hashes[i] = hasher.apply(Objects.requireNonNull(lookups[i]));
+		}
+
+		Map<K, V> found = new HashMap<>();
+		for (int i : bucketOrder(hashes)) {
+			Bucket keyBucket = getBucket(hashes[i]);
+			long position = find(keyBucket, lookups[i], hashes[i]);
+			if (position != NOT_FOUND) {
+				found.put((K) lookups[i], keyBucket.chainAt((int) (position >>> 32)).values[(int) position]);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Orders the indices of the hashes by their bits reversed, hashes that share
+	 * their n least significant bits end up next to each other for every n. So
+	 * keys that share a bucket are visited together no matter the directory's
+	 * depth, even while it grows.
+	 *
+	 * @param hashes The hashes to order.
+	 * @return The indices of the hashes in bucket order.
+	 */
+	private static int[] bucketOrder(int[] hashes) {
+		long[] sorted = new long[hashes.length];
+		for (int i = 0; i < hashes.length; i++) {
+			// Flipping the sign bit makes the signed sort an unsigned one
+			sorted[i] = ((long) (Integer.reverse(hashes[i]) ^ Integer.MIN_VALUE) << 32) | i;
+		}
+		Arrays.sort(sorted);
+
+		int[] order = new int[hashes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = (int) sorted[i];
+		}
+		return order;
 	}
 
 	@Override
 	public void clear() {
 		size = 0;
+		modCount++;
 		globalDepth = MIN_DEPTH;
 		resetDirectoryBuckets();
 	}
 
 	private void resetDirectoryBuckets() {
-		directory = new Object[totalPotentialBuckets()];
-		for (int i = 0; i < directory.length; i++) {
-			directory[i] = new Bucket(globalDepth);
+		int length = totalPotentialBuckets();
+		segments = new Object[Math.max(1, length >>> SEGMENT_BITS)][Math.min(length, SEGMENT_SIZE)];
+		segmentVersions = new int[segments.length];
+		Arrays.fill(segmentVersions, version);
+		segmentsShared = false;
+		for (int i = 0; i < length; i++) {
+			segments[i >>> SEGMENT_BITS][i & (SEGMENT_SIZE - 1)] = new Bucket(globalDepth);
 		}
+		recountStats();
 	}
 
-	@SuppressWarnings("unchecked")
-	@Override
-	public Set<K> keySet() {
-		Set<K> keys = new HashSet<>();
+	// Rebuilds the stats' histograms from the buckets
+	private void recountStats() {
+		if (stats == null) {
+			return;
+		}
 
-		for (Object bucket : directory) {
-			Bucket b = (Bucket) bucket;
-			for (int i = 0; i < b.numKeys; i++) {
-				keys.add(b.keys[i]);
+		long[] depths = new long[MAX_INT_BITS + 1];
+		long[] fills = new long[bucketSize + 1];
+		long overflowBuckets = 0;
+		for (int i = 0; i < totalPotentialBuckets(); i++) {
+			Bucket b = bucketAt(i);
+			if (isFirstIndex(i, b)) {
+				depths[b.localDepth]++;
+				fills[b.numKeys]++;
+				overflowBuckets += b.chainLength() - 1;
 			}
 		}
-
-		return keys;
+		stats.setBuckets(globalDepth, depths, fills, overflowBuckets);
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
-	public Collection<V> values() {
-		Collection<V> values = new ArrayList<>();
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		Objects.requireNonNull(action);
+		int expectedModCount = modCount;
+		for (int i = 0; i < totalPotentialBuckets(); i++) {
+			if (!isFirstIndex(i, bucketAt(i))) {
+				continue;
+			}
 
-		for (Object bucket : directory) {
-			Bucket b = (Bucket) bucket;
-			for (int i = 0; i < b.numKeys; i++) {
-				values.add(b.values[i]);
+			for (Bucket b = bucketAt(i); b != null; b = b.overflow) {
+				for (int j = 0; j < b.numKeys; j++) {
+					action.accept(b.keys[j], b.values[j]);
+				}
 			}
 		}
 
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (values == null) {
+			values = new Values();
+		}
 		return values;
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Returns a live view of the entries. Its iterator and spliterator return the
+	 * same entry each time, moved to the next mapping, so an entry is only valid
+	 * until the next call and has to be copied to be kept. {@link Set#toArray()}
+	 * returns copies.
+	 */
 	@Override
 	public Set<Entry<K, V>> entrySet() {
-		Set<Entry<K, V>> entries = new HashSet<>();
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/*
+	 * With duplicate keys the size counts the distinct keys, which takes a walk
+	 * over the table.
+	 */
+	private class KeySet extends AbstractSet<K> {
+		@Override
+		public int size() {
+			if (!duplicateKeys) {
+				return size;
+			}
+
+			int keys = 0;
+			for (Iterator<K> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+				keys++;
+			}
+			return keys;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			return ExtendibleHashTable.this.remove(key) != null;
+		}
+
+		@Override
+		public void clear() {
+			ExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			if (duplicateKeys) {
+				return new DistinctKeyIterator();
+			}
+			return new TableIterator<K>() {
+				@Override
+				K element(Bucket bucket, int index) {
+					return bucket.keys[index];
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<K> spliterator() {
+			return new KeySpliterator(0, totalPotentialBuckets(), modCount);
+		}
+	}
+
+	private class Values extends AbstractCollection<V> {
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			return new TableIterator<V>() {
+				@Override
+				V element(Bucket bucket, int index) {
+					return bucket.values[index];
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<V> spliterator() {
+			return new ValueSpliterator(0, totalPotentialBuckets(), modCount);
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry) || ((Entry<?, ?>) o).getKey() == null) {
+				return false;
+			}
+
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			int hash = hasher.apply(entry.getKey());
+			return find(getBucket(hash), entry.getKey(), hash, entry.getValue()) != NOT_FOUND;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return contains(o)
+					&& ExtendibleHashTable.this.remove(((Entry<?, ?>) o).getKey(), ((Entry<?, ?>) o).getValue());
+		}
+
+		@Override
+		public void clear() {
+			ExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new TableIterator<Entry<K, V>>() {
+				private final TableEntry cursor = new TableEntry();
+
+				@Override
+				Entry<K, V> element(Bucket bucket, int index) {
+					return cursor.set(bucket.keys[index], bucket.values[index]);
+				}
+			};
+		}
+
+		// The iterator's entry is reused so the array gets a copy of each entry
+		@Override
+		public Object[] toArray() {
+			return copyEntries().toArray();
+		}
+
+		@Override
+		public <T> T[] toArray(T[] a) {
+			return copyEntries().toArray(a);
+		}
+
+		private List<Entry<K, V>> copyEntries() {
+			List<Entry<K, V>> copies = new ArrayList<>(size);
+			ExtendibleHashTable.this.forEach((key, value) -> copies.add(new TableEntry().set(key, value)));
+			return copies;
+		}
+
+		@Override
+		public Spliterator<Entry<K, V>> spliterator() {
+			return new EntrySpliterator(0, totalPotentialBuckets(), modCount);
+		}
+	}
+
+	/*
+	 * An entry iterator or spliterator moves its one entry to each entry in turn
+	 * so walking the entries does not allocate. Setting the value writes through
+	 * to the table.
+	 */
+	private class TableEntry implements Entry<K, V> {
+		private K key;
+		private V value;
+
+		TableEntry set(K key, V value) {
+			this.key = key;
+			this.value = value;
+			return this;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			Objects.requireNonNull(value);
+			if (!duplicateKeys) {
+				put(key, value);
+			} else {
+				// Replace this entry's value rather than adding one
+				int hash = hasher.apply(key);
+				long found = find(getBucket(hash), key, hash, this.value);
+				if (found != NOT_FOUND) {
+					writable(getBucket(hash), hash).chainAt((int) (found >>> 32)).replace(key, value, (int) found);
+				}
+			}
+			V oldValue = this.value;
+			this.value = value;
+			return oldValue;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(value);
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+	/*
+	 * Walks the entries bucket by bucket. Removing through the iterator does not
+	 * merge buckets so the directory stays the same while it is walked.
+	 */
+	private abstract class TableIterator<T> implements Iterator<T> {
+		private int directoryIndex = -1;
+		private Bucket primary;
+		private Bucket bucket;
+		private int chainPosition;
+		private int entryIndex;
+		private Bucket lastPrimary;
+		private int lastDirectoryIndex;
+		private int lastChainPosition;
+		private int lastIndex = NOT_FOUND;
+		private int expectedModCount = modCount;
+
+		TableIterator() {
+			advance();
+		}
+
+		abstract T element(Bucket bucket, int index);
+
+		// Moves to the next entry, the bucket is null once there are none left
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			while (bucket == null || entryIndex >= bucket.numKeys) {
+				entryIndex = 0;
+				if (bucket != null && bucket.overflow != null) {
+					bucket = bucket.overflow;
+					chainPosition++;
+					continue;
+				} else if (++directoryIndex >= totalPotentialBuckets()) {
+					bucket = null;
+					return;
+				}
+
+				Bucket candidate = bucketAt(directoryIndex);
+				primary = bucket = isFirstIndex(directoryIndex, candidate) ? candidate : null;
+				chainPosition = 0;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return bucket != null;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			} else if (bucket == null) {
+				throw new NoSuchElementException();
+			}
+
+			Bucket lastBucket = bucket;
+			lastPrimary = primary;
+			lastDirectoryIndex = directoryIndex;
+			lastChainPosition = chainPosition;
+			lastIndex = entryIndex++;
+			advance();
+			return element(lastBucket, lastIndex);
+		}
+
+		@Override
+		public void remove() {
+			if (lastIndex == NOT_FOUND) {
+				throw new IllegalStateException();
+			} else if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			// The following entries shift left, an emptied overflow bucket is unlinked
+			int lastPrimaryKeys = lastPrimary.numKeys;
+			Bucket writablePrimary = writable(lastPrimary, lastDirectoryIndex);
+			Bucket lastBucket = writablePrimary.chainAt(lastChainPosition);
+			lastBucket.removeAt(lastIndex);
+			boolean unlinked = lastChainPosition > 0 && lastBucket.numKeys == 0;
+			if (unlinked) {
+				writablePrimary.chainAt(lastChainPosition - 1).overflow = lastBucket.overflow;
+			}
+			if (stats != null) {
+				stats.recordFill(lastPrimaryKeys, writablePrimary.numKeys);
+				stats.recordOverflow(unlinked ? -1 : 0);
+			}
+
+			if (bucket != null && lastPrimary == primary) {
+				// An emptied bucket was already passed, so the current bucket is after it
+				if (unlinked) {
+					chainPosition--;
+				} else if (lastChainPosition == chainPosition) {
+					entryIndex--;
+				}
+				primary = writablePrimary;
+				bucket = writablePrimary.chainAt(chainPosition);
+			}
+			lastIndex = NOT_FOUND;
+			expectedModCount = modCount;
+		}
+	}
+
+	/*
+	 * The keys of a table with duplicate keys, each once. The values of a key
+	 * share one bucket chain, so only the keys of the chain being walked are
+	 * remembered. Removing has to go through the key set, removing a single
+	 * value would leave the key's other values behind.
+	 */
+	private class DistinctKeyIterator implements Iterator<K> {
+		private final TableIterator<K> entries = new TableIterator<K>() {
+			@Override
+			K element(Bucket bucket, int index) {
+				return bucket.keys[index];
+			}
+		};
+		private final Set<K> chainKeys = new HashSet<>();
+		private Bucket chain;
+		private K next;
+
+		DistinctKeyIterator() {
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+			while (entries.hasNext()) {
+				K key = entries.next();
+				if (entries.lastPrimary != chain) {
+					chain = entries.lastPrimary;
+					chainKeys.clear();
+				}
+				if (chainKeys.add(key)) {
+					next = key;
+					return;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public K next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			K key = next;
+			advance();
+			return key;
+		}
+	}
+
+	/*
+	 * Covers a range of directory indices, splitting halves the range. Every
+	 * bucket belongs to the range holding its lowest directory index.
+	 */
+	private abstract class TableSpliterator<T> implements Spliterator<T> {
+		int directoryIndex;
+		final int fence;
+		final int expectedModCount;
+		// The first bucket of the chain being walked
+		Bucket primary;
+		private Bucket bucket;
+		private int entryIndex;
+
+		TableSpliterator(int origin, int fence, int expectedModCount) {
+			directoryIndex = origin;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+
+		abstract T element(Bucket bucket, int index);
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+			for (;;) {
+				if (bucket != null && entryIndex < bucket.numKeys) {
+					action.accept(element(bucket, entryIndex++));
+					if (modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+					return true;
+				} else if (bucket != null && bucket.overflow != null) {
+					bucket = bucket.overflow;
+					entryIndex = 0;
+					continue;
+				} else if (directoryIndex >= fence) {
+					bucket = null;
+					return false;
+				}
+
+				Bucket candidate = bucketAt(directoryIndex);
+				primary = bucket = isFirstIndex(directoryIndex, candidate) ? candidate : null;
+				directoryIndex++;
+				entryIndex = 0;
+			}
+		}
+
+		// Not ordered, so the split off range does not need to be a prefix
+		int splitPoint() {
+			int mid = (directoryIndex + fence) >>> 1;
+			return mid > directoryIndex ? mid : NOT_FOUND;
+		}
+
+		@Override
+		public long estimateSize() {
+			return (long) size * (fence - directoryIndex) / totalPotentialBuckets();
+		}
+
+		// Keys repeat when duplicate keys are allowed
+		@Override
+		public int characteristics() {
+			return duplicateKeys ? Spliterator.NONNULL : Spliterator.DISTINCT | Spliterator.NONNULL;
+		}
+	}
+
+	/*
+	 * With duplicate keys the values of a key share one bucket chain, so the keys
+	 * of the chain being walked are enough to skip the repeated ones.
+	 */
+	private class KeySpliterator extends TableSpliterator<K> {
+		private final Set<K> chainKeys = duplicateKeys ? new HashSet<>() : null;
+		private Bucket chain;
+		private K key;
 
-		for (Object bucket : directory) {
-			Bucket b = (Bucket) bucket;
-			for (int i = 0; i < b.numKeys; i++) {
-				entries.add(new Pair<>(b.keys[i], b.values[i]));
+		KeySpliterator(int origin, int fence, int expectedModCount) {
+			super(origin, fence, expectedModCount);
+		}
+
+		@Override
+		K element(Bucket bucket, int index) {
+			return bucket.keys[index];
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super K> action) {
+			if (chainKeys == null) {
+				return super.tryAdvance(action);
 			}
+
+			Objects.requireNonNull(action);
+			while (super.tryAdvance(next -> key = next)) {
+				if (primary != chain) {
+					chain = primary;
+					chainKeys.clear();
+				}
+				if (chainKeys.add(key)) {
+					action.accept(key);
+					return true;
+				}
+			}
+			return false;
 		}
 
-		return entries;
+		@Override
+		public int characteristics() {
+			return Spliterator.DISTINCT | Spliterator.NONNULL;
+		}
+
+		@Override
+		public Spliterator<K> trySplit() {
+			int mid = splitPoint();
+			if (mid == NOT_FOUND) {
+				return null;
+			}
+
+			Spliterator<K> prefix = new KeySpliterator(directoryIndex, mid, expectedModCount);
+			directoryIndex = mid;
+			return prefix;
+		}
+	}
+
+	private class ValueSpliterator extends TableSpliterator<V> {
+		ValueSpliterator(int origin, int fence, int expectedModCount) {
+			super(origin, fence, expectedModCount);
+		}
+
+		@Override
+		V element(Bucket bucket, int index) {
+			return bucket.values[index];
+		}
+
+		@Override
+		public Spliterator<V> trySplit() {
+			int mid = splitPoint();
+			if (mid == NOT_FOUND) {
+				return null;
+			}
+
+			Spliterator<V> prefix = new ValueSpliterator(directoryIndex, mid, expectedModCount);
+			directoryIndex = mid;
+			return prefix;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL;
+		}
+	}
+
+	private class EntrySpliterator extends TableSpliterator<Entry<K, V>> {
+		private final TableEntry cursor = new TableEntry();
+
+		EntrySpliterator(int origin, int fence, int expectedModCount) {
+			super(origin, fence, expectedModCount);
+		}
+
+		@Override
+		Entry<K, V> element(Bucket bucket, int index) {
+			return cursor.set(bucket.keys[index], bucket.values[index]);
+		}
+
+		@Override
+		public Spliterator<Entry<K, V>> trySplit() {
+			int mid = splitPoint();
+			if (mid == NOT_FOUND) {
+				return null;
+			}
+
+			Spliterator<Entry<K, V>> prefix = new EntrySpliterator(directoryIndex, mid, expectedModCount);
+			directoryIndex = mid;
+			return prefix;
+		}
 	}
 
 	/**
@@ -495,39 +1723,29 @@ public class ExtendibleHashTable<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * Builds the binary string representation of the given value for n least
-	 * signiticant bits building up the string from left to right by masking each
-	 * position for the specific bit at that position.
+	 * Masks the given value down to its n least significant bits.
 	 * 
 	 * <pre>
-	 * String leastBits = getLeastSigBitsBinaryFormStr(122, 4);
-	 * leastBits.equals("1010");
+	 * int leastBits = getLeastSigBitsValue(122, 4);
+	 * leastBits == 0b1010;
 	 * </pre>
 	 * 
-	 * 
-	 * @param value value The value you want to get your bits from
-	 * @param nBits nBits the amount of bits you want.
-	 * @return The least significant n bits as string
+	 * @param value The value you want to get your bits from
+	 * @param nBits the amount of bits you want. Max of 32 bits.
+	 * @return the least significant n bits as an int
 	 */
-	private static String getLeastSigBitsBinaryForm(int value, int nBits) {
-		StringBuilder binarySB = new StringBuilder(nBits);
-		nBits = Math.min(nBits, MAX_INT_BITS);
-		for (int i = nBits - 1; i >= 0; i--) {
-			int mask = 1 << i;
-			char bit = (value & mask) == 0 ? '0' : '1';
-			binarySB.append(bit);
-		}
-		return binarySB.toString();
+	private static int getLeastSigBitsValue(int value, int nBits) {
+		return nBits >= MAX_INT_BITS ? value : value & ((1 << nBits) - 1);
 	}
 
 	/**
-	 * Convert the given value into X least significant bits as an int value.
+	 * Retrieves a mask with only the highest bit of the n least significant bits
+	 * set, this is the bit that decides which side of a split an entry belongs to.
 	 * 
-	 * @param value The value you want to get your bits from
-	 * @param nBits the amount of bits you want. Max of 32 bits.
-	 * @return the least significant n bits as an int
+	 * @param nBits the amount of bits being looked at. Max of 32 bits.
+	 * @return A mask with only the nth least significant bit set.
 	 */
-	private static int getLeastSigBitsValue(int value, int nBits) {
-		return Integer.parseInt(getLeastSigBitsBinaryForm(value, nBits), 2);
+	private static int getLeadingBitMask(int nBits) {
+		return 1 << (Math.min(nBits, MAX_INT_BITS) - 1);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics of an {@link ExtendibleHashTable}, returned by
+ * {@link ExtendibleHashTable#getStats()} when the table was created with stats
+ * enabled.
+ *
+ * Events such as splits and gets are counted with {@link LongAdder}s, so
+ * readers on other threads never contend with the table. The shape of the
+ * table, the histograms of local depths and bucket fills, is kept up to date by
+ * the table as buckets split, merge and fill up instead of walking the
+ * directory, reading it is O(bucket size). The histograms are read without
+ * locking and can be slightly behind while the table is being written to.
+ *
+ * The stats can be polled directly or registered as an MXBean:
+ *
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(table.getStats(),
+ * 		new ObjectName("datastructures:type=ExtendibleHashTable,name=index"));
+ * </pre>
+ *
+ * A global depth that keeps growing while the distinct buckets and the average
+ * fill stay low points to a hasher that maps many keys to the same low bits.
+ *
+ * @author Ethan
+ *
+ */
+public class ExtendibleHashTableStats implements ExtendibleHashTableStatsMXBean {
+	private static final int MAX_DEPTH = 32;
+
+	private final int bucketSize;
+	private volatile int globalDepth;
+	// Number of buckets per local depth and per number of keys
+	private final long[] localDepths = new long[MAX_DEPTH + 1];
+	private final long[] fills;
+	private volatile long overflowBuckets;
+
+	private final LongAdder splits = new LongAdder();
+	private final LongAdder doublings = new LongAdder();
+	private final LongAdder collapses = new LongAdder();
+	private final LongAdder gets = new LongAdder();
+	private final LongAdder keysScanned = new LongAdder();
+
+	ExtendibleHashTableStats(int bucketSize) {
+		this.bucketSize = bucketSize;
+		fills = new long[bucketSize + 1];
+	}
+
+	void recordGet(int scanned) {
+		gets.increment();
+		keysScanned.add(scanned);
+	}
+
+	// A full bucket of the given depth split into two buckets one deeper
+	void recordSplit(int depth, int keptKeys, int splitKeys) {
+		splits.increment();
+		localDepths[depth]--;
+		localDepths[depth + 1] += 2;
+		fills[bucketSize]--;
+		fills[keptKeys]++;
+		fills[splitKeys]++;
+	}
+
+	// An empty bucket of the given depth merged into its buddy
+	void recordMerge(int depth) {
+		localDepths[depth] -= 2;
+		localDepths[depth - 1]++;
+		fills[0]--;
+	}
+
+	void recordFill(int oldKeys, int newKeys) {
+		fills[oldKeys]--;
+		fills[newKeys]++;
+	}
+
+	void recordOverflow(int buckets) {
+		overflowBuckets += buckets;
+	}
+
+	void recordDoubling(int depth) {
+		doublings.increment();
+		globalDepth = depth;
+	}
+
+	void recordCollapse(int depth) {
+		collapses.increment();
+		globalDepth = depth;
+	}
+
+	/*
+	 * Replaces the shape of the table after it was rebuilt, the counters keep
+	 * counting.
+	 */
+	void setBuckets(int depth, long[] bucketDepths, long[] bucketFills, long overflow) {
+		globalDepth = depth;
+		overflowBuckets = overflow;
+		System.arraycopy(bucketDepths, 0, localDepths, 0, localDepths.length);
+		System.arraycopy(bucketFills, 0, fills, 0, fills.length);
+	}
+
+	@Override
+	public int getGlobalDepth() {
+		return globalDepth;
+	}
+
+	/**
+	 *
+	 * @return The number of buckets with each local depth, indexed by depth.
+	 */
+	@Override
+	public long[] getLocalDepthHistogram() {
+		return localDepths.clone();
+	}
+
+	@Override
+	public long getDistinctBuckets() {
+		return Arrays.stream(localDepths).sum();
+	}
+
+	/**
+	 *
+	 * @return The number of keys over the capacity of every bucket, between 0 and
+	 *         1.
+	 */
+	@Override
+	public double getAverageBucketFill() {
+		long buckets = 0;
+		long keys = 0;
+		for (int i = 0; i < fills.length; i++) {
+			buckets += fills[i];
+			keys += i * fills[i];
+		}
+		return buckets == 0 || bucketSize == 0 ? 0 : (double) keys / (buckets * bucketSize);
+	}
+
+	/**
+	 *
+	 * @return The number of keys in the fullest bucket.
+	 */
+	@Override
+	public int getMaxBucketFill() {
+		for (int i = fills.length - 1; i > 0; i--) {
+			if (fills[i] > 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 *
+	 * @return The number of overflow buckets chained to buckets that could not
+	 *         split, not counted in the distinct buckets or fills.
+	 */
+	@Override
+	public long getOverflowBuckets() {
+		return overflowBuckets;
+	}
+
+	@Override
+	public long getSplits() {
+		return splits.sum();
+	}
+
+	@Override
+	public long getDirectoryDoublings() {
+		return doublings.sum();
+	}
+
+	@Override
+	public long getDirectoryCollapses() {
+		return collapses.sum();
+	}
+
+	@Override
+	public long getGets() {
+		return gets.sum();
+	}
+
+	/**
+	 *
+	 * @return The average number of keys compared per get, a hit stops at the
+	 *         matching key and a miss scans the whole bucket.
+	 */
+	@Override
+	public double getAverageKeysScannedPerGet() {
+		long count = gets.sum();
+		return count == 0 ? 0 : (double) keysScanned.sum() / count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"ExtendibleHashTableStats, global depth=%d, buckets=%d, average fill=%.3f, max fill=%d, overflow buckets=%d, splits=%d, doublings=%d, collapses=%d, keys scanned per get=%.3f",
+				getGlobalDepth(), getDistinctBuckets(), getAverageBucketFill(), getMaxBucketFill(),
+				getOverflowBuckets(), getSplits(), getDirectoryDoublings(), getDirectoryCollapses(),
+				getAverageKeysScannedPerGet());
+	}
+}
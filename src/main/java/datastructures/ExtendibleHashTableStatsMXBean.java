@@ -0,0 +1,32 @@
+package datastructures;
+
+/**
+ * The JMX view of {@link ExtendibleHashTableStats}, register the stats of a
+ * table with a platform MBean server to read them from a JMX console.
+ *
+ * @author Ethan
+ *
+ */
+public interface ExtendibleHashTableStatsMXBean {
+	public int getGlobalDepth();
+
+	public long[] getLocalDepthHistogram();
+
+	public long getDistinctBuckets();
+
+	public double getAverageBucketFill();
+
+	public int getMaxBucketFill();
+
+	public long getOverflowBuckets();
+
+	public long getSplits();
+
+	public long getDirectoryDoublings();
+
+	public long getDirectoryCollapses();
+
+	public long getGets();
+
+	public double getAverageKeysScannedPerGet();
+}
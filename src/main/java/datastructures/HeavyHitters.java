@@ -0,0 +1,231 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the k most inserted items of a stream, for example the hottest keys of
+ * a cache, in the memory of a {@link ConcurrentCountMinSketch} and k
+ * candidates.
+ *
+ * Every insert goes to the sketch, then the item's estimate is compared with
+ * the candidates, kept in a binary min heap by estimate with a map from item to
+ * heap position. A candidate that is inserted again moves down the heap, and
+ * an item whose estimate beats the smallest candidate replaces it, both in
+ * O(log k).
+ *
+ * Many threads can insert at once. The sketch is lock free and the candidates
+ * are behind a lock, but the smallest candidate estimate is published in a
+ * volatile field: once k candidates are tracked, an insert whose estimate is not
+ * above it can not change the candidates and skips the lock. In a skewed
+ * stream almost all inserts of cold items take that path.
+ *
+ * The estimates never fall below the true counts, so a cold item that shares
+ * counters with hot ones can be reported. Size the sketch so epsilon times the
+ * stream length is small next to the counts of interest.
+ *
+ * Resources: Charikar, Chen, Farach-Colton, Finding Frequent Items in Data
+ * Streams; Cormode, Muthukrishnan, An Improved Data Stream Summary: The
+ * Count-Min Sketch and its Applications
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class HeavyHitters<T> {
+	private final ConcurrentCountMinSketch<T> sketch;
+	private final int k;
+	private final ReentrantLock lock = new ReentrantLock();
+	// The candidates as a binary min heap of estimates, guarded by the lock
+	private final T[] items;
+	private final int[] counts;
+	private final Map<T, Integer> positions;
+	private int size;
+	// The smallest candidate estimate once k candidates are tracked, -1 before.
+	// Only grows, so a stale read only sends an insert through the lock.
+	private volatile int threshold = -1;
+
+	/**
+	 *
+	 * @param k      The number of items to track.
+	 * @param sketch The sketch counting the items, should only be inserted into
+	 *               through this tracker.
+	 */
+	@SuppressWarnings("unchecked")
+	public HeavyHitters(int k, ConcurrentCountMinSketch<T> sketch) {
+		Objects.requireNonNull(sketch);
+		if (k <= 0) {
+			throw new IllegalArgumentException("K should be greater than 0");
+		}
+
+		this.sketch = sketch;
+		this.k = k;
+		items = (T[]) new Object[k];
+		counts = new int[k];
+		positions = new HashMap<>(k * 2);
+	}
+
+	/**
+	 * Creates a tracker hashing items by their hash code.
+	 *
+	 * @param k       The number of items to track.
+	 * @param epsilon The error of the estimates relative to the total count.
+	 * @param delta   The probability of a larger error.
+	 * @return A tracker over a sketch sized for the error.
+	 * @see ConcurrentCountMinSketch#create(double, double,
+	 *      BloomFilter.LongHashable)
+	 */
+	public static <T> HeavyHitters<T> create(int k, double epsilon, double delta) {
+		return new HeavyHitters<>(k, ConcurrentCountMinSketch.create(epsilon, delta));
+	}
+
+	public void insert(T item) {
+		insert(item, 1);
+	}
+
+	/**
+	 * Inserts the item count times, safe to call from many threads at once.
+	 *
+	 * @param item  The item to insert, not null.
+	 * @param count The number of times to insert it, not negative.
+	 */
+	public void insert(T item, int count) {
+		Objects.requireNonNull(item);
+		int estimate = sketch.insert(item, count);
+		if (count == 0) {
+			return;
+		}
+
+		// A candidate's estimate grows by at least count, so an estimate not above
+		// the threshold is not a candidate's and is too small to become one
+		if (estimate <= threshold) {
+			return;
+		}
+
+		lock.lock();
+		try {
+			offer(item, estimate);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void offer(T item, int estimate) {
+		Integer position = positions.get(item);
+		if (position != null) {
+			// Another thread may have stored a newer estimate
+			if (estimate > counts[position]) {
+				counts[position] = estimate;
+				siftDown(position);
+			}
+		} else if (size < k) {
+			items[size] = item;
+			counts[size] = estimate;
+			positions.put(item, size);
+			siftUp(size++);
+		} else if (estimate > counts[0]) {
+			positions.remove(items[0]);
+			items[0] = item;
+			counts[0] = estimate;
+			positions.put(item, 0);
+			siftDown(0);
+		} else {
+			return;
+		}
+
+		if (size == k) {
+			threshold = counts[0];
+		}
+	}
+
+	private void siftUp(int position) {
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (counts[parent] <= counts[position]) {
+				break;
+			}
+			swap(position, parent);
+			position = parent;
+		}
+	}
+
+	private void siftDown(int position) {
+		while (true) {
+			int smallest = position;
+			int left = position * 2 + 1;
+			int right = left + 1;
+			if (left < size && counts[left] < counts[smallest]) {
+				smallest = left;
+			}
+			if (right < size && counts[right] < counts[smallest]) {
+				smallest = right;
+			}
+			if (smallest == position) {
+				return;
+			}
+			swap(position, smallest);
+			position = smallest;
+		}
+	}
+
+	private void swap(int first, int second) {
+		T item = items[first];
+		items[first] = items[second];
+		items[second] = item;
+		int count = counts[first];
+		counts[first] = counts[second];
+		counts[second] = count;
+		positions.put(items[first], first);
+		positions.put(items[second], second);
+	}
+
+	/**
+	 *
+	 * @param item The item to count.
+	 * @return The estimated number of times the item was inserted, never less
+	 *         than the true number.
+	 */
+	public int count(T item) {
+		return sketch.count(item);
+	}
+
+	/**
+	 * The estimates are the ones recorded at the candidates' last inserts, the
+	 * list is a copy taken under the lock.
+	 *
+	 * @return Up to k items with their estimated counts, the largest first.
+	 */
+	public List<Map.Entry<T, Integer>> getTopK() {
+		List<Map.Entry<T, Integer>> topK = new ArrayList<>(k);
+		lock.lock();
+		try {
+			for (int i = 0; i < size; i++) {
+				topK.add(new ImmutablePair<>(items[i], counts[i]));
+			}
+		} finally {
+			lock.unlock();
+		}
+		topK.sort(Map.Entry.<T, Integer>comparingByValue().reversed());
+		return topK;
+	}
+
+	/**
+	 *
+	 * @return The number of items tracked.
+	 */
+	public int getK() {
+		return k;
+	}
+
+	/**
+	 *
+	 * @return The number of insertions.
+	 */
+	public long getTotalCount() {
+		return sketch.getTotalCount();
+	}
+}
@@ -0,0 +1,537 @@
+package datastructures;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A hash table that uses linear hashing, an alternative to
+ * {@link ExtendibleHashTable} that grows one bucket at a time.
+ *
+ * An extendible hash table doubles its directory when a bucket at the global
+ * depth splits, the put that triggers it pays for the whole doubling. Linear
+ * hashing has no directory, the buckets split in a fixed round robin order
+ * instead of the bucket that overflowed. A split pointer walks over the buckets
+ * of the current round, each time the table gets fuller than its max load the
+ * bucket at the pointer splits into itself and a new bucket appended at the
+ * end. Buckets before the pointer are addressed with one more hash bit than the
+ * rest. Once every bucket of the round has split the number of buckets has
+ * doubled and the next round starts, the doubling is spread over as many puts
+ * as there are entries, so a put splits at most one bucket.
+ *
+ * Keys that arrive before their bucket's turn to split go to overflow buckets
+ * chained to it. Removing entries merges the last bucket back when the table
+ * gets emptier than its min load.
+ *
+ * The buckets are stored in segments of 2^10 buckets, growing the table only
+ * ever allocates one segment and occasionally grows the array of segments.
+ *
+ * Null keys and values are not allowed.
+ *
+ * Resources: https://en.wikipedia.org/wiki/Linear_hashing
+ * https://hackthology.com/pdfs/Litwin-1980-Linear_Hashing.pdf
+ *
+ * @author Ethan
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LinearHashTable<K, V> extends AbstractMap<K, V> {
+	public static final int DEFAULT_BUCKET_SIZE = ExtendibleHashTable.DEFAULT_BUCKET_SIZE;
+	public static final double DEFAULT_MAX_LOAD = 0.8;
+
+	private static final int MIN_LEVEL = 1;
+	private static final int NOT_FOUND = -1;
+
+	// Bucket segments hold up to 2^10 buckets
+	private static final int SEGMENT_BITS = 10;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+	private final int bucketSize;
+	private final double maxLoad;
+	private final double minLoad;
+	private final Function<Object, Integer> hasher;
+	private Object[][] segments;
+	private int bucketCount;
+	// Buckets in a round, 2^level, and the next bucket of the round to split
+	private int level;
+	private int splitPointer;
+	private int size;
+	private int overflowBuckets;
+	private int modCount;
+	private Set<Entry<K, V>> entrySet;
+
+	private class Bucket {
+		int numKeys;
+		final int[] hashes;
+		final K[] keys;
+		final V[] values;
+		Bucket overflow;
+
+		@SuppressWarnings("unchecked")
+		Bucket() {
+			hashes = new int[bucketSize];
+			keys = (K[]) new Object[bucketSize];
+			values = (V[]) new Object[bucketSize];
+		}
+
+		// Only calls equals on keys with the same hash
+		int indexOfKey(Object key, int hash) {
+			for (int i = 0; i < numKeys; i++) {
+				if (hashes[i] == hash && Objects.equals(keys[i], key)) {
+					return i;
+				}
+			}
+			return NOT_FOUND;
+		}
+
+		void append(K key, V value, int hash) {
+			hashes[numKeys] = hash;
+			keys[numKeys] = key;
+			values[numKeys] = value;
+			numKeys++;
+		}
+
+		V removeAt(int index) {
+			V oldValue = values[index];
+			numKeys--;
+			hashes[index] = hashes[numKeys];
+			keys[index] = keys[numKeys];
+			values[index] = values[numKeys];
+			keys[numKeys] = null;
+			values[numKeys] = null;
+			return oldValue;
+		}
+
+		boolean isFull() {
+			return numKeys == bucketSize;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Bucket, total keys=%d, keys=%s, values=%s, overflow=%b", numKeys,
+					Arrays.toString(Arrays.copyOf(keys, numKeys)), Arrays.toString(Arrays.copyOf(values, numKeys)),
+					overflow != null);
+		}
+	}
+
+	public LinearHashTable() {
+		this(DEFAULT_BUCKET_SIZE);
+	}
+
+	public LinearHashTable(int bucketSize) {
+		this(bucketSize, ExtendibleHashTable.DEFAULT_HASHER);
+	}
+
+	public LinearHashTable(int bucketSize, Function<Object, Integer> hashFunction) {
+		this(bucketSize, hashFunction, DEFAULT_MAX_LOAD);
+	}
+
+	/**
+	 *
+	 * @param bucketSize   The number of entries per bucket.
+	 * @param hashFunction The hash function of the keys.
+	 * @param maxLoad      A bucket splits when the number of entries over the
+	 *                     capacity of the primary buckets exceeds this, the last
+	 *                     bucket merges back below half of it.
+	 */
+	public LinearHashTable(int bucketSize, Function<Object, Integer> hashFunction, double maxLoad) {
+		Objects.requireNonNull(hashFunction);
+		if (bucketSize <= 0) {
+			throw new IllegalArgumentException("Bucket size must be greater than 0");
+		}
+		if (!(maxLoad > 0)) {
+			throw new IllegalArgumentException("Max load must be greater than 0");
+		}
+
+		this.bucketSize = bucketSize;
+		this.maxLoad = maxLoad;
+		minLoad = maxLoad / 2;
+		hasher = hashFunction;
+		resetBuckets();
+	}
+
+	private void resetBuckets() {
+		level = MIN_LEVEL;
+		splitPointer = 0;
+		bucketCount = 0;
+		overflowBuckets = 0;
+		segments = new Object[1][];
+		for (int i = 0; i < 1 << MIN_LEVEL; i++) {
+			appendBucket(new Bucket());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Bucket bucketAt(int index) {
+		return (Bucket) segments[index >>> SEGMENT_BITS][index & (SEGMENT_SIZE - 1)];
+	}
+
+	private void appendBucket(Bucket bucket) {
+		int segment = bucketCount >>> SEGMENT_BITS;
+		if (segment == segments.length) {
+			segments = Arrays.copyOf(segments, segments.length * 2);
+		}
+		if (segments[segment] == null) {
+			segments[segment] = new Object[SEGMENT_SIZE];
+		}
+		segments[segment][bucketCount & (SEGMENT_SIZE - 1)] = bucket;
+		bucketCount++;
+	}
+
+	private Bucket removeLastBucket() {
+		bucketCount--;
+		int segment = bucketCount >>> SEGMENT_BITS;
+		Bucket bucket = bucketAt(bucketCount);
+		segments[segment][bucketCount & (SEGMENT_SIZE - 1)] = null;
+		if ((bucketCount & (SEGMENT_SIZE - 1)) == 0) {
+			segments[segment] = null;
+		}
+		return bucket;
+	}
+
+	/*
+	 * Buckets before the split pointer have already split this round and use one
+	 * more bit of the hash.
+	 */
+	private int bucketIndex(int hash) {
+		int index = hash & ((1 << level) - 1);
+		return index < splitPointer ? hash & ((2 << level) - 1) : index;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Returns the associated value that the key maps to.
+	 *
+	 * @param The key to retrieve the associated value.
+	 * @return The value associated with the key. Returns null if there is no
+	 *         associated value.
+	 */
+	@Override
+	public V get(Object key) {
+		Objects.requireNonNull(key);
+		int hash = hasher.apply(key);
+		for (Bucket bucket = bucketAt(bucketIndex(hash)); bucket != null; bucket = bucket.overflow) {
+			int index = bucket.indexOfKey(key, hash);
+			if (index != NOT_FOUND) {
+				return bucket.values[index];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the previous associated value that was overrided by the new value
+	 * given the key. Splits at most one bucket.
+	 *
+	 * @param The key create or override an association.
+	 * @param The value override and store.
+	 * @return The previous value that was overrided.
+	 */
+	@Override
+	public V put(K key, V value) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		int hash = hasher.apply(key);
+
+		Bucket bucket = bucketAt(bucketIndex(hash));
+		Bucket free = null;
+		for (;;) {
+			int index = bucket.indexOfKey(key, hash);
+			if (index != NOT_FOUND) {
+				V oldValue = bucket.values[index];
+				bucket.values[index] = value;
+				return oldValue;
+			} else if (free == null && !bucket.isFull()) {
+				free = bucket;
+			}
+
+			if (bucket.overflow == null) {
+				break;
+			}
+			bucket = bucket.overflow;
+		}
+
+		if (free == null) {
+			free = bucket.overflow = new Bucket();
+			overflowBuckets++;
+		}
+		free.append(key, value, hash);
+		size++;
+		modCount++;
+
+		if (size > maxLoad * bucketCount * bucketSize) {
+			split();
+		}
+		return null;
+	}
+
+	/*
+	 * Splits the bucket at the split pointer, entries with the next hash bit set
+	 * move to a new bucket at the end.
+	 */
+	private void split() {
+		int highBit = 1 << level;
+		Bucket chain = bucketAt(splitPointer);
+		Bucket kept = new Bucket();
+		Bucket moved = new Bucket();
+		appendBucket(moved);
+		overflowBuckets -= chainLength(chain) - 1;
+
+		for (Bucket bucket = chain; bucket != null; bucket = bucket.overflow) {
+			for (int i = 0; i < bucket.numKeys; i++) {
+				Bucket target = (bucket.hashes[i] & highBit) == 0 ? kept : moved;
+				appendToChain(target, bucket.keys[i], bucket.values[i], bucket.hashes[i]);
+			}
+		}
+		segments[splitPointer >>> SEGMENT_BITS][splitPointer & (SEGMENT_SIZE - 1)] = kept;
+
+		if (++splitPointer == highBit) {
+			level++;
+			splitPointer = 0;
+		}
+	}
+
+	/*
+	 * Merges the last bucket back into the bucket it was split from, undoing the
+	 * last split.
+	 */
+	private void merge() {
+		if (splitPointer == 0) {
+			level--;
+			splitPointer = 1 << level;
+		}
+		splitPointer--;
+
+		Bucket last = removeLastBucket();
+		Bucket target = bucketAt(splitPointer);
+		overflowBuckets -= chainLength(last) - 1;
+		for (Bucket bucket = last; bucket != null; bucket = bucket.overflow) {
+			for (int i = 0; i < bucket.numKeys; i++) {
+				appendToChain(target, bucket.keys[i], bucket.values[i], bucket.hashes[i]);
+			}
+		}
+	}
+
+	private void appendToChain(Bucket chain, K key, V value, int hash) {
+		Bucket bucket = chain;
+		while (bucket.isFull()) {
+			if (bucket.overflow == null) {
+				bucket.overflow = new Bucket();
+				overflowBuckets++;
+			}
+			bucket = bucket.overflow;
+		}
+		bucket.append(key, value, hash);
+	}
+
+	private int chainLength(Bucket chain) {
+		int length = 0;
+		for (Bucket bucket = chain; bucket != null; bucket = bucket.overflow) {
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Removes the key's mapping if there is one, merges at most one bucket.
+	 *
+	 * @param key The key to remove.
+	 * @return The value the key was mapped to, or null if there was none.
+	 */
+	@Override
+	public V remove(Object key) {
+		Objects.requireNonNull(key);
+		int hash = hasher.apply(key);
+
+		Bucket previous = null;
+		for (Bucket bucket = bucketAt(bucketIndex(hash)); bucket != null; bucket = bucket.overflow) {
+			int index = bucket.indexOfKey(key, hash);
+			if (index != NOT_FOUND) {
+				V oldValue = bucket.removeAt(index);
+				if (bucket.numKeys == 0 && previous != null) {
+					previous.overflow = bucket.overflow;
+					overflowBuckets--;
+				}
+				size--;
+				modCount++;
+
+				if (bucketCount > 1 << MIN_LEVEL && size < minLoad * bucketCount * bucketSize) {
+					merge();
+				}
+				return oldValue;
+			}
+			previous = bucket;
+		}
+		return null;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		modCount++;
+		resetBuckets();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry) || ((Entry<?, ?>) o).getKey() == null) {
+				return false;
+			}
+
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			V value = get(entry.getKey());
+			return value != null && value.equals(entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return contains(o) && LinearHashTable.this.remove(((Entry<?, ?>) o).getKey()) != null;
+		}
+
+		@Override
+		public void clear() {
+			LinearHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	/*
+	 * Walks the primary buckets in order, each followed by its overflow chain.
+	 * Removing through the iterator does not merge the last bucket back so the
+	 * buckets stay the same while they are walked.
+	 */
+	private class EntryIterator implements Iterator<Entry<K, V>> {
+		private int bucketIndex = -1;
+		private Bucket previous;
+		private Bucket bucket;
+		private int entryIndex;
+		private Bucket lastPrevious;
+		private Bucket lastBucket;
+		private int lastIndex = NOT_FOUND;
+		private int expectedModCount = modCount;
+
+		EntryIterator() {
+			advance();
+		}
+
+		// Moves to the next entry, the bucket is null once there are none left
+		private void advance() {
+			while (bucket == null || entryIndex >= bucket.numKeys) {
+				if (bucket != null && bucket.overflow != null) {
+					previous = bucket;
+					bucket = bucket.overflow;
+				} else if (++bucketIndex < bucketCount) {
+					previous = null;
+					bucket = bucketAt(bucketIndex);
+				} else {
+					bucket = null;
+					return;
+				}
+				entryIndex = 0;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return bucket != null;
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			} else if (bucket == null) {
+				throw new NoSuchElementException();
+			}
+
+			lastPrevious = previous;
+			lastBucket = bucket;
+			lastIndex = entryIndex++;
+			advance();
+			return new SimpleImmutableEntry<>(lastBucket.keys[lastIndex], lastBucket.values[lastIndex]);
+		}
+
+		@Override
+		public void remove() {
+			if (lastIndex == NOT_FOUND) {
+				throw new IllegalStateException();
+			} else if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			// The bucket's last entry moves into the removed one's place, it has not
+			// been returned yet when the walk is still in this bucket
+			lastBucket.removeAt(lastIndex);
+			if (lastBucket == bucket) {
+				entryIndex--;
+				advance();
+			}
+			if (lastBucket.numKeys == 0 && lastPrevious != null) {
+				lastPrevious.overflow = lastBucket.overflow;
+				overflowBuckets--;
+				if (previous == lastBucket) {
+					previous = lastPrevious;
+				}
+			}
+			size--;
+			modCount++;
+			expectedModCount = modCount;
+			lastIndex = NOT_FOUND;
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 *
+	 * @return The number of primary buckets, not counting overflow buckets.
+	 */
+	public int getBucketCount() {
+		return bucketCount;
+	}
+
+	/**
+	 *
+	 * @return The number of overflow buckets chained to the primary buckets.
+	 */
+	public int getOverflowBucketCount() {
+		return overflowBuckets;
+	}
+}
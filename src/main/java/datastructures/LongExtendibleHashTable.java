@@ -0,0 +1,162 @@
+package datastructures;
+
+import java.util.Objects;
+
+/**
+ * A hash table that uses extendible hashing with primitive long keys.
+ *
+ * Each bucket stores its keys in a long array next to the value array, and keys
+ * are hashed by a {@link LongHashable} that returns an int, so
+ * {@link #getLong(long)}, {@link #putLong(long, Object)} and
+ * {@link #removeLong(long)} never box. The {@link java.util.Map} methods are
+ * still available, they unbox the key and call the primitive methods.
+ *
+ * A bucket is merged with its buddy bucket when either becomes empty and the
+ * directory collapses when every bucket is referenced at least twice.
+ *
+ * Null values are not allowed.
+ *
+ * Resources: https://www2.cs.sfu.ca/CourseCentral/354/lxwu/notes/chapter11.pdf
+ * https://en.wikipedia.org/wiki/Extendible_hashing
+ *
+ * @author Ethan
+ *
+ * @param <V> value type
+ */
+public class LongExtendibleHashTable<V> extends PrimitiveExtendibleHashTable<Long, V> {
+	public interface LongHashable {
+		public int hash(long key);
+	}
+
+	public static final int DEFAULT_BUCKET_SIZE = ExtendibleHashTable.DEFAULT_BUCKET_SIZE;
+
+	// Same as Long.hashCode spread the way HashMap does
+	static final LongHashable DEFAULT_HASHER = key -> {
+		int h = (int) (key ^ (key >>> 32));
+		return h ^ (h >>> 16);
+	};
+
+	private final LongHashable hasher;
+
+	public LongExtendibleHashTable() {
+		this(DEFAULT_BUCKET_SIZE);
+	}
+
+	public LongExtendibleHashTable(int bucketSize) {
+		this(bucketSize, DEFAULT_HASHER);
+	}
+
+	public LongExtendibleHashTable(int bucketSize, LongHashable hashFunction) {
+		super(bucketSize);
+		hasher = Objects.requireNonNull(hashFunction);
+	}
+
+	@Override
+	Object newKeys(int length) {
+		return new long[length];
+	}
+
+	@Override
+	int hashAt(Object keys, int index) {
+		return hasher.hash(((long[]) keys)[index]);
+	}
+
+	@Override
+	Long keyAt(Object keys, int index) {
+		return ((long[]) keys)[index];
+	}
+
+	private int indexOf(Bucket bucket, long key) {
+		long[] keys = (long[]) bucket.keys;
+		for (int i = 0; i < bucket.numKeys; i++) {
+			if (keys[i] == key) {
+				return i;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+	 *
+	 * @param key The key whose presence in this map is to be tested
+	 * @return <tt>true</tt> if this map contains a mapping for the specified key.
+	 */
+	public boolean containsLong(long key) {
+		return indexOf(getBucket(hasher.hash(key)), key) != NOT_FOUND;
+	}
+
+	/**
+	 * Returns the associated value that the key maps to.
+	 *
+	 * @param The key to retrieve the associated value.
+	 * @return The value associated with the key. Returns null if there is no
+	 *         associated value.
+	 */
+	public V getLong(long key) {
+		Bucket bucket = getBucket(hasher.hash(key));
+		int index = indexOf(bucket, key);
+		return index != NOT_FOUND ? bucket.values[index] : null;
+	}
+
+	/**
+	 * Returns the previous associated value that was overrided by the new value
+	 * given the key.
+	 *
+	 * @param The key create or override an association.
+	 * @param The value override and store.
+	 * @return The previous value that was overrided.
+	 * @throws IllegalStateException If more than bucket size keys share the same
+	 *                               hash.
+	 */
+	public V putLong(long key, V value) {
+		Objects.requireNonNull(value);
+		int hash = hasher.hash(key);
+		Bucket bucket = getBucket(hash);
+		int index = indexOf(bucket, key);
+		if (index != NOT_FOUND) {
+			V oldValue = bucket.values[index];
+			bucket.values[index] = value;
+			return oldValue;
+		}
+
+		bucket = bucketWithRoom(hash);
+		((long[]) bucket.keys)[bucket.numKeys] = key;
+		append(bucket, value);
+		return null;
+	}
+
+	/**
+	 * Removes the key's mapping if there is one.
+	 *
+	 * @param key The key to remove.
+	 * @return The value the key was mapped to, or null if there was none.
+	 */
+	public V removeLong(long key) {
+		int hash = hasher.hash(key);
+		Bucket bucket = getBucket(hash);
+		int index = indexOf(bucket, key);
+		return index != NOT_FOUND ? removeAt(bucket, index, hash) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Long && containsLong((Long) key);
+	}
+
+	@Override
+	public V get(Object key) {
+		return key instanceof Long ? getLong((Long) key) : null;
+	}
+
+	@Override
+	public V put(Long key, V value) {
+		Objects.requireNonNull(key);
+		return putLong(key, value);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return key instanceof Long ? removeLong((Long) key) : null;
+	}
+}
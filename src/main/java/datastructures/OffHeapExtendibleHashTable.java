@@ -0,0 +1,146 @@
+package datastructures;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Set;
+
+import datastructures.storage.Serializer;
+import datastructures.storage.SlabPageCache;
+
+/**
+ * A hash table that uses extendible hashing and keeps its entries outside of
+ * the Java heap.
+ *
+ * The table is a {@link PagedExtendibleHashTable} whose pages come from a
+ * {@link SlabPageCache} instead of a file: each bucket is a fixed size page
+ * carved out of direct {@link ByteBuffer} slabs, the first slab is small and
+ * the following ones double up to the max slab size. Entries are stored
+ * serialized in the pages, so however many entries the table holds the garbage
+ * collector only sees the directory, the slabs and short lived page views.
+ *
+ * Freed pages are reused before new pages are carved out. The memory of the
+ * slabs is released once the table is garbage collected, or by
+ * {@link #clear()}.
+ *
+ * Null keys and values are not allowed.
+ *
+ * @author Ethan
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class OffHeapExtendibleHashTable<K, V> extends AbstractMap<K, V> {
+	public static final int DEFAULT_PAGE_SIZE = 1024;
+
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final int pageSize;
+	private final int maxSlabSize;
+
+	private SlabPageCache slabs;
+	private PagedExtendibleHashTable<K, V> table;
+
+	public OffHeapExtendibleHashTable(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(DEFAULT_PAGE_SIZE, keySerializer, valueSerializer);
+	}
+
+	public OffHeapExtendibleHashTable(int pageSize, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(pageSize, SlabPageCache.DEFAULT_MAX_SLAB_SIZE, keySerializer, valueSerializer);
+	}
+
+	/**
+	 *
+	 * @param pageSize        The size of a bucket in bytes, an entry has to fit in
+	 *                        a bucket.
+	 * @param maxSlabSize     The size of the largest direct buffer the buckets are
+	 *                        allocated from, a multiple of the page size.
+	 * @param keySerializer   Serializer for the keys.
+	 * @param valueSerializer Serializer for the values.
+	 */
+	public OffHeapExtendibleHashTable(int pageSize, int maxSlabSize, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) {
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.pageSize = pageSize;
+		this.maxSlabSize = maxSlabSize;
+		reset();
+	}
+
+	private void reset() {
+		slabs = new SlabPageCache(pageSize, maxSlabSize);
+		table = new PagedExtendibleHashTable<>(slabs, keySerializer, valueSerializer);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return table.containsKey(key);
+	}
+
+	@Override
+	public V get(Object key) {
+		return table.get(key);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the entry does not fit in a page.
+	 * @throws IllegalStateException    If a page fills up with keys that share
+	 *                                  the same hash.
+	 */
+	@Override
+	public V put(K key, V value) {
+		return table.put(key, value);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return table.remove(key);
+	}
+
+	/**
+	 * Removes every entry and drops the slabs, their memory is released once the
+	 * buffers are garbage collected.
+	 */
+	@Override
+	public void clear() {
+		reset();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return table.entrySet();
+	}
+
+	@Override
+	public int size() {
+		return table.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return table.isEmpty();
+	}
+
+	/**
+	 *
+	 * @return The current number of bits used to index the directory.
+	 */
+	public int getGlobalDepth() {
+		return table.getGlobalDepth();
+	}
+
+	/**
+	 *
+	 * @return The number of bytes of direct memory held by the slabs.
+	 */
+	public long getOffHeapBytes() {
+		return slabs.getCapacityBytes();
+	}
+
+	/**
+	 *
+	 * @return The number of pages carved out of the slabs, including free pages.
+	 */
+	public int getPageCount() {
+		return table.getPageCount();
+	}
+}
@@ -0,0 +1,230 @@
+package datastructures;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counting bloom filter that packs its counters into longs, 4 bits per
+ * counter by default instead of the 32 bits of {@link CountingBloomFIlter}.
+ *
+ * Counters saturate at their largest value, 15 for 4 bits. A saturated counter
+ * is never decremented again since the number of items behind it is lost,
+ * removing those items leaves their bits set rather than risk false negatives.
+ * Saturating a counter is counted as an overflow. With 4 bits the chance of
+ * any counter overflowing in a filter sized by {@link #create(long, double)} is
+ * about 1.37e-15 times the number of counters, so overflows point to a filter
+ * holding many more items than it was sized for or to the same item inserted
+ * over and over.
+ *
+ * Counters are updated with a compare and set of their long, so any number of
+ * threads can insert, remove and look up items at once. Removing an item that
+ * was never inserted decrements the counters of other items and can cause
+ * false negatives.
+ *
+ * Resources: Fan, Cao, Almeida, Broder, Summary Cache: A Scalable Wide-Area Web
+ * Cache Sharing Protocol
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class PackedCountingBloomFilter<T> {
+	public static final int DEFAULT_COUNTER_BITS = 4;
+
+	private final BloomFilter.LongHashable<T> hashFunction;
+	private final int numHashes;
+	private final int numCounters;
+	private final int counterBits;
+	private final long counterMask;
+	// log2 of the counters per long
+	private final int countersPerWordShift;
+	private final AtomicLongArray counters;
+	private final LongAdder overflows = new LongAdder();
+
+	/**
+	 *
+	 * @param numCounters  The number of counters.
+	 * @param numHashes    The number of counters incremented per item.
+	 * @param counterBits  The width of each counter, 1, 2, 4, 8 or 16 bits.
+	 * @param hashFunction A well mixed 64 bit hash of the items.
+	 */
+	public PackedCountingBloomFilter(int numCounters, int numHashes, int counterBits,
+			BloomFilter.LongHashable<T> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (numCounters <= 0) {
+			throw new IllegalArgumentException("Number of counters should be greater than 0");
+		}
+		if (numHashes <= 0) {
+			throw new IllegalArgumentException("Number of hashes should be greater than 0");
+		}
+		if (counterBits <= 0 || counterBits > 16 || Integer.bitCount(counterBits) != 1) {
+			throw new IllegalArgumentException("Counter bits should be 1, 2, 4, 8 or 16");
+		}
+
+		this.hashFunction = hashFunction;
+		this.numHashes = numHashes;
+		this.numCounters = numCounters;
+		this.counterBits = counterBits;
+		counterMask = (1L << counterBits) - 1;
+		countersPerWordShift = Integer.numberOfTrailingZeros(Long.SIZE / counterBits);
+		long countersPerWord = 1L << countersPerWordShift;
+		counters = new AtomicLongArray((int) ((numCounters + countersPerWord - 1) >>> countersPerWordShift));
+	}
+
+	/**
+	 * Creates a filter with 4 bit counters hashing items by their hash code.
+	 *
+	 * @see #create(long, double, int, BloomFilter.LongHashable)
+	 */
+	public static <T> PackedCountingBloomFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+		return create(expectedInsertions, falsePositiveRate, DEFAULT_COUNTER_BITS, BloomFilter::hashCodeMix);
+	}
+
+	/**
+	 * Creates a filter with as many counters as
+	 * {@link BloomFilter#create(long, double, BloomFilter.LongHashable)} would
+	 * have bits.
+	 *
+	 * @param expectedInsertions The number of distinct items that will be
+	 *                           present at once.
+	 * @param falsePositiveRate  The wanted false positive rate, between 0 and 1
+	 *                           exclusive.
+	 * @param counterBits        The width of each counter, 1, 2, 4, 8 or 16 bits.
+	 * @param hashFunction       A well mixed 64 bit hash of the items.
+	 * @return A filter sized for the expected insertions.
+	 */
+	public static <T> PackedCountingBloomFilter<T> create(long expectedInsertions, double falsePositiveRate,
+			int counterBits, BloomFilter.LongHashable<T> hashFunction) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Expected insertions should be greater than 0");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate should be between 0 and 1 exclusive");
+		}
+
+		long numCounters = BloomFilter.optimalNumBits(expectedInsertions, falsePositiveRate);
+		if (numCounters > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format("%d counters are needed, more than the %d supported",
+					numCounters, Integer.MAX_VALUE));
+		}
+		return new PackedCountingBloomFilter<>((int) numCounters,
+				BloomFilter.optimalNumHashes(expectedInsertions, numCounters), counterBits, hashFunction);
+	}
+
+	// The index of the i-th counter of an item, h1 + i * h2 without the sign bit
+	private int index(long hash, int i) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		int combined = h1 + i * h2;
+		return (combined & Integer.MAX_VALUE) % numCounters;
+	}
+
+	private int shift(int index) {
+		return (index & ((1 << countersPerWordShift) - 1)) * counterBits;
+	}
+
+	private long get(int index) {
+		return (counters.get(index >>> countersPerWordShift) >>> shift(index)) & counterMask;
+	}
+
+	/*
+	 * Adds delta to the counter unless it is saturated or the result would leave
+	 * the counter's range. Returns false if the counter is or became saturated.
+	 */
+	private boolean add(int index, long delta) {
+		int word = index >>> countersPerWordShift;
+		int shift = shift(index);
+		long current;
+		long count;
+		do {
+			current = counters.get(word);
+			count = (current >>> shift) & counterMask;
+			if (count == counterMask) {
+				return false;
+			}
+			if (count + delta < 0) {
+				return true;
+			}
+		} while (!counters.compareAndSet(word, current, current + (delta << shift)));
+		return count + delta != counterMask;
+	}
+
+	/**
+	 * Inserts the item, safe to call from many threads at once.
+	 *
+	 * @param item The item to insert.
+	 * @return False if a counter of the item overflowed, its counters stay
+	 *         saturated.
+	 */
+	public boolean insert(T item) {
+		long hash = hashFunction.hash(item);
+		boolean overflowed = false;
+		for (int i = 1; i <= numHashes; i++) {
+			if (!add(index(hash, i), 1)) {
+				overflowed = true;
+			}
+		}
+
+		if (overflowed) {
+			overflows.increment();
+		}
+		return !overflowed;
+	}
+
+	/**
+	 * Removes an inserted item, safe to call from many threads at once. Saturated
+	 * counters are left as they are.
+	 *
+	 * @param item The item to remove.
+	 */
+	public void remove(T item) {
+		long hash = hashFunction.hash(item);
+		for (int i = 1; i <= numHashes; i++) {
+			add(index(hash, i), -1);
+		}
+	}
+
+	// may contain it
+	public boolean contains(T item) {
+		long hash = hashFunction.hash(item);
+		for (int i = 1; i <= numHashes; i++) {
+			if (get(index(hash, i)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @return The number of inserts that found or left a counter saturated.
+	 */
+	public long getOverflows() {
+		return overflows.sum();
+	}
+
+	/**
+	 *
+	 * @return The number of bytes held by the counters.
+	 */
+	public long getMemoryBytes() {
+		return (long) counters.length() * Long.BYTES;
+	}
+
+	/**
+	 *
+	 * @return The number of counters of the filter.
+	 */
+	public int getNumCounters() {
+		return numCounters;
+	}
+
+	/**
+	 *
+	 * @return The number of counters incremented per item.
+	 */
+	public int getNumHashes() {
+		return numHashes;
+	}
+}
@@ -0,0 +1,1226 @@
+package datastructures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import datastructures.storage.BufferPool;
+import datastructures.storage.PageCache;
+import datastructures.storage.PageFile;
+import datastructures.storage.Serializer;
+import datastructures.storage.WriteAheadLog;
+
+/**
+ * A disk backed hash table that uses extendible hashing, each bucket is a fixed
+ * size page of a page file.
+ *
+ * The pages are either memory mapped, or cached by a {@link BufferPool} of a
+ * fixed number of pages when the table is opened with a buffer pool size. A
+ * split only changes the page of the bucket being split and the page of the new
+ * bucket, a merge only changes the page of the kept bucket and the freed page.
+ *
+ * The directory is kept in memory as an int array of page ids and is written to
+ * a separate directory file (the page file's path with a ".dir" suffix) when
+ * the table is flushed or closed. Reopening the table only reads the directory
+ * file, the buckets are read in as they are used.
+ *
+ * Keys and values are stored through their serializers, lookups hash and
+ * compare the serialized key bytes so a key's hash is stable between runs. A
+ * bucket is merged with its buddy bucket when either becomes empty and the
+ * directory collapses when every bucket is referenced at least twice.
+ *
+ * Without a write-ahead log a crash can corrupt the table, not only lose the
+ * changes made after the last {@link #flush()}: pages can be written back at
+ * any time, memory mapped pages by the operating system and cached pages when
+ * they are evicted, while the directory file stays as of the last flush. After
+ * a crash the directory can point at pages that later splits, merges or frees
+ * rewrote, so entries written before the flush can be lost or misplaced. Only
+ * use a table without a log for data that can be rebuilt.
+ *
+ * With a write-ahead log (the page file's path with a ".wal" suffix) every put,
+ * remove and clear is durable once it returns. Each operation appends one redo
+ * record holding the changed byte ranges of its pages and its directory
+ * changes, a merge appends a record of its own. The buffer pool only writes a
+ * page once the log is durable up to the last record that changed it, memory
+ * mapped pages can be written at any time so the log requires a buffer pool.
+ * {@link #flush()} is a checkpoint: the pages are written, the directory file
+ * records the last lsn and the log is emptied. Opening the table replays the
+ * records after the directory's lsn.
+ *
+ * Operations hold the table's lock, the log is committed after the lock is
+ * released so concurrent writers share a single log sync.
+ *
+ * Null keys and values are not allowed.
+ *
+ * Resources: https://www2.cs.sfu.ca/CourseCentral/354/lxwu/notes/chapter11.pdf
+ * https://en.wikipedia.org/wiki/Extendible_hashing
+ *
+ * @author Ethan
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class PagedExtendibleHashTable<K, V> extends AbstractMap<K, V> implements Closeable {
+	private static final int MIN_DEPTH = 1;
+	private static final int MAX_DEPTH = 30;
+	private static final int NOT_FOUND = -1;
+	private static final int NO_PAGE = -1;
+
+	// Directory file layout, followed by the directory's page ids
+	private static final int MAGIC = 0x45485444;
+	private static final int FORMAT_VERSION = 2;
+	private static final int DIRECTORY_HEADER_SIZE = 36;
+	// Written before the log, the header has no lsn and the pages are the same
+	private static final int FORMAT_VERSION_WITHOUT_LSN = 1;
+
+	// Bucket page layout, followed by the entries
+	private static final int LOCAL_DEPTH_OFFSET = 0;
+	private static final int NUM_ENTRIES_OFFSET = 4;
+	private static final int END_OFFSET = 8;
+	private static final int PAGE_HEADER_SIZE = 12;
+
+	// Entry layout: hash, key length, value length, key bytes, value bytes
+	private static final int ENTRY_HEADER_SIZE = 12;
+
+	// Free page layout
+	private static final int NEXT_FREE_OFFSET = 0;
+
+	// Redo record items, each item starts with its tag
+	private static final byte REDO_PAGE = 1; // page id, offset, length, bytes
+	private static final byte REDO_GROW = 2;
+	private static final byte REDO_COLLAPSE = 3;
+	private static final byte REDO_REPOINT = 4; // from page id, to page id, index mask
+	private static final byte REDO_RESET = 5;
+	private static final byte REDO_META = 6; // size, page count, free list head
+
+	// Log size in bytes that triggers a checkpoint
+	private static final long CHECKPOINT_LOG_SIZE = 64L * 1024 * 1024;
+
+	private final PageFile pageFile;
+	private final PageCache pageCache;
+	private final Path directoryPath;
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final int pageSize;
+	private final WriteAheadLog log;
+
+	private int globalDepth;
+	private int[] directory;
+	private int size;
+	private int pageCount;
+	private int freeListHead;
+	private ByteBuffer keyBuffer = ByteBuffer.allocate(64);
+	// Counts the changes that can move entries, iterators fail fast on them
+	private int modCount;
+	private Set<Entry<K, V>> entrySet;
+
+	// Redo items of the current operation and the pages it changed, the pages
+	// stay pinned until the record is appended
+	private ByteBuffer redo;
+	private final List<Integer> loggedPages = new ArrayList<>();
+	private long lastLsn;
+	private long checkpointLsn;
+
+	/*
+	 * A pinned bucket page, has to be released once it is no longer used.
+	 */
+	private class Bucket {
+		final int pageId;
+		final ByteBuffer page;
+		boolean dirty;
+		int dirtyFrom = Integer.MAX_VALUE;
+		int dirtyTo;
+
+		Bucket(int pageId) {
+			this.pageId = pageId;
+			page = pageCache.pin(pageId);
+		}
+
+		void markDirty(int from, int to) {
+			dirty = true;
+			dirtyFrom = Math.min(dirtyFrom, from);
+			dirtyTo = Math.max(dirtyTo, to);
+		}
+
+		// With a log the changed bytes are logged and the page is unpinned by logStep
+		void release() {
+			if (dirty && log != null) {
+				logPage(pageId, page, dirtyFrom, dirtyTo);
+			} else {
+				pageCache.unpin(pageId, dirty);
+			}
+		}
+
+		void init(int localDepth) {
+			setLocalDepth(localDepth);
+			setNumEntries(0);
+			setEnd(PAGE_HEADER_SIZE);
+		}
+
+		int getLocalDepth() {
+			return page.getInt(LOCAL_DEPTH_OFFSET);
+		}
+
+		void setLocalDepth(int localDepth) {
+			markDirty(LOCAL_DEPTH_OFFSET, LOCAL_DEPTH_OFFSET + Integer.BYTES);
+			page.putInt(LOCAL_DEPTH_OFFSET, localDepth);
+		}
+
+		int getNumEntries() {
+			return page.getInt(NUM_ENTRIES_OFFSET);
+		}
+
+		void setNumEntries(int numEntries) {
+			markDirty(NUM_ENTRIES_OFFSET, NUM_ENTRIES_OFFSET + Integer.BYTES);
+			page.putInt(NUM_ENTRIES_OFFSET, numEntries);
+		}
+
+		// Offset of the first free byte after the entries
+		int getEnd() {
+			return page.getInt(END_OFFSET);
+		}
+
+		void setEnd(int end) {
+			markDirty(END_OFFSET, END_OFFSET + Integer.BYTES);
+			page.putInt(END_OFFSET, end);
+		}
+
+		int getNextFree() {
+			return page.getInt(NEXT_FREE_OFFSET);
+		}
+
+		void setNextFree(int pageId) {
+			markDirty(NEXT_FREE_OFFSET, NEXT_FREE_OFFSET + Integer.BYTES);
+			page.putInt(NEXT_FREE_OFFSET, pageId);
+		}
+
+		int getHash(int offset) {
+			return page.getInt(offset);
+		}
+
+		int getKeyLength(int offset) {
+			return page.getInt(offset + 4);
+		}
+
+		int getValueLength(int offset) {
+			return page.getInt(offset + 8);
+		}
+
+		int getEntrySize(int offset) {
+			return ENTRY_HEADER_SIZE + getKeyLength(offset) + getValueLength(offset);
+		}
+
+		boolean hasRoom(int entrySize) {
+			return getEnd() + entrySize <= pageSize;
+		}
+
+		/**
+		 * Finds the entry of the serialized key in the key buffer.
+		 *
+		 * @return The offset of the entry, otherwise NOT_FOUND
+		 */
+		int indexOf(int hash, int keyLength) {
+			int end = getEnd();
+			for (int offset = PAGE_HEADER_SIZE; offset < end; offset += getEntrySize(offset)) {
+				if (getHash(offset) == hash && getKeyLength(offset) == keyLength
+						&& keyBytesEqual(offset + ENTRY_HEADER_SIZE, keyLength)) {
+					return offset;
+				}
+			}
+			return NOT_FOUND;
+		}
+
+		// Compares 8 bytes at a time, the key buffer is padded with zeros
+		private boolean keyBytesEqual(int keyOffset, int keyLength) {
+			int i = 0;
+			for (; i + Long.BYTES <= keyLength; i += Long.BYTES) {
+				if (page.getLong(keyOffset + i) != keyBuffer.getLong(i)) {
+					return false;
+				}
+			}
+			for (; i < keyLength; i++) {
+				if (page.get(keyOffset + i) != keyBuffer.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		K readKey(int offset) {
+			ByteBuffer in = page.duplicate();
+			in.position(offset + ENTRY_HEADER_SIZE);
+			return keySerializer.read(in, getKeyLength(offset));
+		}
+
+		V readValue(int offset) {
+			ByteBuffer in = page.duplicate();
+			in.position(offset + ENTRY_HEADER_SIZE + getKeyLength(offset));
+			return valueSerializer.read(in, getValueLength(offset));
+		}
+
+		// Appends the serialized key in the key buffer along with the value
+		void append(int hash, int keyLength, V value, int valueLength) {
+			int offset = getEnd();
+			markDirty(offset, offset + ENTRY_HEADER_SIZE + keyLength + valueLength);
+			page.putInt(offset, hash);
+			page.putInt(offset + 4, keyLength);
+			page.putInt(offset + 8, valueLength);
+
+			ByteBuffer out = page.duplicate();
+			out.position(offset + ENTRY_HEADER_SIZE);
+			ByteBuffer key = keyBuffer.duplicate();
+			key.position(0).limit(keyLength);
+			out.put(key);
+			valueSerializer.write(value, out);
+
+			setEnd(offset + ENTRY_HEADER_SIZE + keyLength + valueLength);
+			setNumEntries(getNumEntries() + 1);
+		}
+
+		// Appends an already serialized entry
+		void appendRaw(ByteBuffer entry) {
+			int offset = getEnd();
+			ByteBuffer out = page.duplicate();
+			out.position(offset);
+			int length = entry.remaining();
+			markDirty(offset, offset + length);
+			out.put(entry);
+
+			setEnd(offset + length);
+			setNumEntries(getNumEntries() + 1);
+		}
+
+		void overwriteValue(int offset, V value) {
+			int valueOffset = offset + ENTRY_HEADER_SIZE + getKeyLength(offset);
+			markDirty(valueOffset, valueOffset + getValueLength(offset));
+			ByteBuffer out = page.duplicate();
+			out.position(valueOffset);
+			valueSerializer.write(value, out);
+		}
+
+		void removeAt(int offset) {
+			int entrySize = getEntrySize(offset);
+			int end = getEnd();
+			markDirty(offset, end - entrySize);
+
+			// Shift the following entries left, destination is before source
+			for (int i = offset + entrySize; i < end; i++) {
+				page.put(i - entrySize, page.get(i));
+			}
+
+			setEnd(end - entrySize);
+			setNumEntries(getNumEntries() - 1);
+		}
+
+		/**
+		 * Splits the entries in this bucket with a newly allocated bucket, entries
+		 * whose hash has the leading bit of the new local depth set move to the new
+		 * bucket.
+		 *
+		 * @return The new split bucket, pinned.
+		 */
+		Bucket split() {
+			int leadingBitMask = 1 << getLocalDepth();
+			int newDepth = getLocalDepth() + 1;
+			Bucket otherBucket = new Bucket(allocatePage());
+			otherBucket.init(newDepth);
+
+			byte[] entries = new byte[getEnd() - PAGE_HEADER_SIZE];
+			ByteBuffer in = page.duplicate();
+			in.position(PAGE_HEADER_SIZE);
+			in.get(entries);
+			init(newDepth);
+
+			ByteBuffer entryBuffer = ByteBuffer.wrap(entries);
+			for (int offset = 0; offset < entries.length;) {
+				int hash = entryBuffer.getInt(offset);
+				int entrySize = ENTRY_HEADER_SIZE + entryBuffer.getInt(offset + 4) + entryBuffer.getInt(offset + 8);
+				entryBuffer.limit(offset + entrySize).position(offset);
+				if ((hash & leadingBitMask) == 0) {
+					appendRaw(entryBuffer);
+				} else {
+					otherBucket.appendRaw(entryBuffer);
+				}
+				entryBuffer.limit(entries.length);
+				offset += entrySize;
+			}
+
+			return otherBucket;
+		}
+
+		boolean allHashesEqual(int hash) {
+			int end = getEnd();
+			for (int offset = PAGE_HEADER_SIZE; offset < end; offset += getEntrySize(offset)) {
+				if (getHash(offset) != hash) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Opens the table stored at the given path, or creates a new table if the
+	 * path does not exist yet.
+	 *
+	 * @param path            The page file of the table.
+	 * @param keySerializer   Serializer for the keys.
+	 * @param valueSerializer Serializer for the values.
+	 * @throws IOException If the files can not be opened.
+	 */
+	public PagedExtendibleHashTable(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+			throws IOException {
+		this(path, PageFile.DEFAULT_PAGE_SIZE, keySerializer, valueSerializer);
+	}
+
+	public PagedExtendibleHashTable(Path path, int pageSize, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		this(path, pageSize, 0, keySerializer, valueSerializer);
+	}
+
+	public PagedExtendibleHashTable(Path path, int pageSize, int bufferPoolSize, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		this(path, pageSize, bufferPoolSize, false, keySerializer, valueSerializer);
+	}
+
+	/**
+	 * Opens the table stored at the given path, or creates a new table if the
+	 * path does not exist yet. A table that was written with a write-ahead log
+	 * has to be opened with one for its log to be replayed.
+	 *
+	 * @param path            The page file of the table.
+	 * @param pageSize        The size of each bucket page, a power of 2.
+	 * @param bufferPoolSize  The number of pages to cache in a buffer pool, or 0 to
+	 *                        memory map the page file instead.
+	 * @param writeAheadLog   Whether changes are logged so they survive a crash,
+	 *                        requires a buffer pool.
+	 * @param keySerializer   Serializer for the keys.
+	 * @param valueSerializer Serializer for the values.
+	 * @throws IOException If the files can not be opened.
+	 */
+	public PagedExtendibleHashTable(Path path, int pageSize, int bufferPoolSize, boolean writeAheadLog,
+			Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		Objects.requireNonNull(path);
+		Objects.requireNonNull(keySerializer);
+		Objects.requireNonNull(valueSerializer);
+		if (writeAheadLog && bufferPoolSize == 0) {
+			throw new IllegalArgumentException(
+					"The write-ahead log requires a buffer pool, memory mapped pages can be written at any time");
+		}
+
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.pageSize = pageSize;
+		directoryPath = path.resolveSibling(path.getFileName() + ".dir");
+		pageFile = new PageFile(path, pageSize);
+		if (writeAheadLog) {
+			log = new WriteAheadLog(path.resolveSibling(path.getFileName() + ".wal"));
+			redo = ByteBuffer.allocate(pageSize);
+			pageCache = new BufferPool(pageFile, bufferPoolSize, BufferPool.DEFAULT_WRITE_BATCH_SIZE, log::commit);
+		} else {
+			log = null;
+			pageCache = bufferPoolSize == 0 ? pageFile : new BufferPool(pageFile, bufferPoolSize);
+		}
+
+		if (Files.exists(directoryPath)) {
+			readDirectory();
+			if (log != null) {
+				recover();
+			}
+		} else {
+			resetDirectoryBuckets();
+			logStep();
+			flush();
+		}
+	}
+
+	/**
+	 * Creates an empty table whose pages only live in the page cache, there are no
+	 * files and the table can not be reopened.
+	 *
+	 * @param pageCache       The pages of the table.
+	 * @param keySerializer   Serializer for the keys.
+	 * @param valueSerializer Serializer for the values.
+	 */
+	PagedExtendibleHashTable(PageCache pageCache, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		Objects.requireNonNull(pageCache);
+		Objects.requireNonNull(keySerializer);
+		Objects.requireNonNull(valueSerializer);
+		if (pageCache.getPageSize() <= PAGE_HEADER_SIZE + ENTRY_HEADER_SIZE) {
+			throw new IllegalArgumentException(
+					"Page size must be greater than " + (PAGE_HEADER_SIZE + ENTRY_HEADER_SIZE));
+		}
+
+		this.pageCache = pageCache;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		pageSize = pageCache.getPageSize();
+		pageFile = null;
+		directoryPath = null;
+		log = null;
+		resetDirectoryBuckets();
+	}
+
+	private void resetDirectoryBuckets() {
+		globalDepth = MIN_DEPTH;
+		size = 0;
+		pageCount = 0;
+		freeListHead = NO_PAGE;
+		directory = new int[1 << globalDepth];
+		for (int i = 0; i < directory.length; i++) {
+			Bucket bucket = new Bucket(allocatePage());
+			bucket.init(globalDepth);
+			bucket.release();
+			directory[i] = bucket.pageId;
+		}
+		logItem(REDO_RESET, 0);
+	}
+
+	// Pages are allocated in order after a reset, replaying a reset only has to
+	// restore the directory
+	private void resetDirectory() {
+		globalDepth = MIN_DEPTH;
+		directory = new int[1 << globalDepth];
+		for (int i = 0; i < directory.length; i++) {
+			directory[i] = i;
+		}
+	}
+
+	private int allocatePage() {
+		if (freeListHead == NO_PAGE) {
+			return pageCount++;
+		}
+
+		int pageId = freeListHead;
+		Bucket freePage = new Bucket(pageId);
+		freeListHead = freePage.getNextFree();
+		freePage.release();
+		return pageId;
+	}
+
+	private void freePage(int pageId) {
+		Bucket freePage = new Bucket(pageId);
+		freePage.setNextFree(freeListHead);
+		freePage.release();
+		freeListHead = pageId;
+	}
+
+	// The bucket is pinned, it has to be released by the caller
+	private Bucket getBucket(int hash) {
+		return new Bucket(directory[hash & (directory.length - 1)]);
+	}
+
+	/*
+	 * Serializes the key into the key buffer, growing it if necessary. The key is
+	 * followed by 8 zero bytes so it can be compared a long at a time.
+	 */
+	@SuppressWarnings("unchecked")
+	private int serializeKey(Object key) {
+		K k = (K) key;
+		int keyLength = keySerializer.sizeOf(k);
+		if (keyBuffer.capacity() < keyLength + Long.BYTES) {
+			keyBuffer = ByteBuffer.allocate(Math.max(keyLength + Long.BYTES, keyBuffer.capacity() * 2));
+		}
+		keyBuffer.clear();
+		keySerializer.write(k, keyBuffer);
+		keyBuffer.putLong(0);
+		return keyLength;
+	}
+
+	/*
+	 * FNV-1a over the key bytes with a final mix, since only the least
+	 * significant bits are used to index the directory.
+	 */
+	private int hashKeyBuffer(int keyLength) {
+		int hash = 0x811C9DC5;
+		for (int i = 0; i < keyLength; i++) {
+			hash ^= keyBuffer.get(i) & 0xFF;
+			hash *= 0x01000193;
+		}
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		Objects.requireNonNull(key);
+		int keyLength = serializeKey(key);
+		int hash = hashKeyBuffer(keyLength);
+		Bucket bucket = getBucket(hash);
+		try {
+			return bucket.indexOf(hash, keyLength) != NOT_FOUND;
+		} finally {
+			bucket.release();
+		}
+	}
+
+	/**
+	 * Returns the associated value that the key maps to.
+	 *
+	 * @param The key to retrieve the associated value.
+	 * @return The value associated with the key. Returns null if there is no
+	 *         associated value.
+	 */
+	@Override
+	public synchronized V get(Object key) {
+		Objects.requireNonNull(key);
+		int keyLength = serializeKey(key);
+		int hash = hashKeyBuffer(keyLength);
+		Bucket bucket = getBucket(hash);
+		try {
+			int offset = bucket.indexOf(hash, keyLength);
+			return offset != NOT_FOUND ? bucket.readValue(offset) : null;
+		} finally {
+			bucket.release();
+		}
+	}
+
+	/**
+	 * Returns the previous associated value that was overrided by the new value
+	 * given the key.
+	 *
+	 * @param The key create or override an association.
+	 * @param The value override and store.
+	 * @return The previous value that was overrided.
+	 * @throws IllegalArgumentException If the entry does not fit in a page.
+	 */
+	@Override
+	public V put(K key, V value) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+
+		V oldValue;
+		long lsn;
+		synchronized (this) {
+			try {
+				oldValue = putEntry(key, value);
+			} finally {
+				lsn = logStep();
+			}
+			checkpointIfLogIsFull();
+		}
+		commit(lsn);
+		return oldValue;
+	}
+
+	private V putEntry(K key, V value) {
+		int keyLength = serializeKey(key);
+		int valueLength = valueSerializer.sizeOf(value);
+		int entrySize = ENTRY_HEADER_SIZE + keyLength + valueLength;
+		if (entrySize > pageSize - PAGE_HEADER_SIZE) {
+			throw new IllegalArgumentException(
+					String.format("Entry of %d bytes does not fit in a page of %d bytes", entrySize, pageSize));
+		}
+
+		int hash = hashKeyBuffer(keyLength);
+		V oldValue = null;
+		Bucket bucket = getBucket(hash);
+		try {
+			int offset = bucket.indexOf(hash, keyLength);
+			int oldEntrySize = 0;
+			if (offset != NOT_FOUND) {
+				oldValue = bucket.readValue(offset);
+				if (bucket.getValueLength(offset) == valueLength) {
+					bucket.overwriteValue(offset, value);
+					return oldValue;
+				}
+				oldEntrySize = bucket.getEntrySize(offset);
+			}
+
+			// The old entry is only removed once the new one fits, a split that fails
+			// leaves the old entry in place
+			while (!bucket.hasRoom(entrySize - oldEntrySize)) {
+				split(bucket, hash);
+				bucket.release();
+				bucket = null;
+				bucket = getBucket(hash);
+			}
+
+			if (offset != NOT_FOUND) {
+				bucket.removeAt(bucket.indexOf(hash, keyLength));
+				size--;
+			}
+			bucket.append(hash, keyLength, value, valueLength);
+			size++;
+			modCount++;
+			return oldValue;
+		} finally {
+			if (bucket != null) {
+				bucket.release();
+			}
+		}
+	}
+
+	private void split(Bucket bucket, int hash) {
+		int localDepth = bucket.getLocalDepth();
+		if (localDepth == MAX_DEPTH || bucket.allHashesEqual(hash)) {
+			throw new IllegalStateException("Bucket can not be split any further, too many keys share the same hash");
+		}
+
+		if (localDepth == globalDepth) {
+			growDirectory();
+			logItem(REDO_GROW, 0);
+		}
+
+		Bucket splitBucket = bucket.split();
+		splitBucket.release();
+		repoint(bucket.pageId, splitBucket.pageId, 1 << localDepth);
+	}
+
+	private void growDirectory() {
+		int half = directory.length;
+		directory = Arrays.copyOf(directory, half * 2);
+		System.arraycopy(directory, 0, directory, half, half);
+		globalDepth++;
+	}
+
+	/*
+	 * Points the directory indices of one page that have every bit of the mask set
+	 * to another page.
+	 */
+	private void repoint(int fromPageId, int toPageId, int mask) {
+		for (int i = 0; i < directory.length; i++) {
+			if (directory[i] == fromPageId && (i & mask) == mask) {
+				directory[i] = toPageId;
+			}
+		}
+		logItem(REDO_REPOINT, 3 * Integer.BYTES).putInt(fromPageId).putInt(toPageId).putInt(mask);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return removeKey(key, true);
+	}
+
+	/*
+	 * Removes the key's entry, merging its bucket with the buddy bucket when one
+	 * of them is empty if merge is true.
+	 */
+	private V removeKey(Object key, boolean merge) {
+		Objects.requireNonNull(key);
+		V oldValue;
+		long lsn;
+		synchronized (this) {
+			try {
+				oldValue = removeEntry(key, merge);
+			} finally {
+				lsn = logStep();
+			}
+			checkpointIfLogIsFull();
+		}
+		commit(lsn);
+		return oldValue;
+	}
+
+	private V removeEntry(Object key, boolean merge) {
+		int keyLength = serializeKey(key);
+		int hash = hashKeyBuffer(keyLength);
+		V oldValue;
+		Bucket bucket = getBucket(hash);
+		try {
+			int offset = bucket.indexOf(hash, keyLength);
+			if (offset == NOT_FOUND) {
+				return null;
+			}
+
+			oldValue = bucket.readValue(offset);
+			bucket.removeAt(offset);
+			size--;
+			modCount++;
+		} finally {
+			bucket.release();
+		}
+
+		if (merge) {
+			mergeWithBuddy(hash);
+		}
+		return oldValue;
+	}
+
+	/*
+	 * Merges the hash's bucket with its buddy, the bucket that differs only in the
+	 * leading bit of the local depth, while one of the two is empty and the buddy
+	 * has not been split further. The empty bucket's page is freed.
+	 */
+	private void mergeWithBuddy(int hash) {
+		for (;;) {
+			// Each merge is logged on its own so only two pages stay pinned
+			logStep();
+			Bucket bucket = getBucket(hash);
+			Bucket buddy = null;
+			try {
+				int localDepth = bucket.getLocalDepth();
+				if (localDepth == MIN_DEPTH) {
+					break;
+				}
+
+				int buddyIndex = (hash & ((1 << localDepth) - 1)) ^ (1 << (localDepth - 1));
+				buddy = new Bucket(directory[buddyIndex]);
+				if (buddy.getLocalDepth() != localDepth
+						|| (bucket.getNumEntries() != 0 && buddy.getNumEntries() != 0)) {
+					break;
+				}
+
+				Bucket emptyBucket = bucket.getNumEntries() == 0 ? bucket : buddy;
+				Bucket keptBucket = emptyBucket == bucket ? buddy : bucket;
+				repoint(emptyBucket.pageId, keptBucket.pageId, 0);
+				keptBucket.setLocalDepth(localDepth - 1);
+				freePage(emptyBucket.pageId);
+			} finally {
+				bucket.release();
+				if (buddy != null) {
+					buddy.release();
+				}
+			}
+		}
+
+		while (canCollapseDirectory()) {
+			collapseDirectory();
+			logItem(REDO_COLLAPSE, 0);
+		}
+	}
+
+	private boolean canCollapseDirectory() {
+		if (globalDepth == MIN_DEPTH) {
+			return false;
+		}
+
+		int half = directory.length / 2;
+		for (int i = 0; i < half; i++) {
+			if (directory[i] != directory[i + half]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void collapseDirectory() {
+		globalDepth--;
+		directory = Arrays.copyOf(directory, directory.length / 2);
+	}
+
+	@Override
+	public void clear() {
+		long lsn;
+		synchronized (this) {
+			try {
+				resetDirectoryBuckets();
+				modCount++;
+			} finally {
+				lsn = logStep();
+			}
+		}
+		commit(lsn);
+	}
+
+	/*
+	 * Reserves room for a redo item, the returned buffer is positioned after the
+	 * tag. Returns a scratch buffer when nothing is logged.
+	 */
+	private ByteBuffer logItem(byte tag, int length) {
+		if (log == null) {
+			return ByteBuffer.allocate(length);
+		}
+
+		if (redo.remaining() < 1 + length) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(redo.capacity() * 2, redo.position() + 1 + length));
+			redo.flip();
+			larger.put(redo);
+			redo = larger;
+		}
+		return redo.put(tag);
+	}
+
+	private void logPage(int pageId, ByteBuffer page, int from, int to) {
+		int length = Math.max(to - from, 0);
+		ByteBuffer bytes = page.duplicate();
+		bytes.limit(from + length).position(from);
+		logItem(REDO_PAGE, 3 * Integer.BYTES + length).putInt(pageId).putInt(from).putInt(length).put(bytes);
+		loggedPages.add(pageId);
+	}
+
+	/*
+	 * Appends the items logged since the last step as one record and unpins the
+	 * pages it changed with the record's lsn.
+	 *
+	 * @return The lsn to commit before the step is durable.
+	 */
+	private long logStep() {
+		if (log == null || redo.position() == 0) {
+			return lastLsn;
+		}
+
+		logItem(REDO_META, 3 * Integer.BYTES).putInt(size).putInt(pageCount).putInt(freeListHead);
+		redo.flip();
+		lastLsn = log.append(redo);
+		redo.clear();
+		for (int pageId : loggedPages) {
+			pageCache.unpin(pageId, true, lastLsn);
+		}
+		loggedPages.clear();
+		return lastLsn;
+	}
+
+	private void commit(long lsn) {
+		if (log != null) {
+			log.commit(lsn);
+		}
+	}
+
+	private void checkpointIfLogIsFull() {
+		if (log != null && log.size() >= CHECKPOINT_LOG_SIZE) {
+			flush();
+		}
+	}
+
+	/*
+	 * Redoes the records written after the last checkpoint on top of the
+	 * checkpoint's directory. Page items are after images of byte ranges so pages
+	 * that were already written are simply overwritten with the same bytes.
+	 */
+	private void recover() {
+		log.advancePast(checkpointLsn);
+		lastLsn = log.getLastLsn();
+		if (lastLsn == checkpointLsn) {
+			return;
+		}
+
+		log.replay(checkpointLsn, this::redo);
+		flush();
+	}
+
+	private void redo(long lsn, ByteBuffer record) {
+		while (record.hasRemaining()) {
+			byte tag = record.get();
+			switch (tag) {
+			case REDO_PAGE:
+				int pageId = record.getInt();
+				int offset = record.getInt();
+				int length = record.getInt();
+				ByteBuffer bytes = record.duplicate();
+				bytes.limit(bytes.position() + length);
+				record.position(record.position() + length);
+
+				ByteBuffer page = pageCache.pin(pageId);
+				page.position(offset);
+				page.put(bytes);
+				pageCache.unpin(pageId, true, lsn);
+				break;
+			case REDO_GROW:
+				growDirectory();
+				break;
+			case REDO_COLLAPSE:
+				collapseDirectory();
+				break;
+			case REDO_REPOINT:
+				int fromPageId = record.getInt();
+				int toPageId = record.getInt();
+				int mask = record.getInt();
+				for (int i = 0; i < directory.length; i++) {
+					if (directory[i] == fromPageId && (i & mask) == mask) {
+						directory[i] = toPageId;
+					}
+				}
+				break;
+			case REDO_RESET:
+				resetDirectory();
+				break;
+			case REDO_META:
+				size = record.getInt();
+				pageCount = record.getInt();
+				freeListHead = record.getInt();
+				break;
+			default:
+				throw new IllegalStateException("Unknown redo item " + tag + " in log record " + lsn);
+			}
+		}
+	}
+
+	/**
+	 * Returns a live view of the entries. Its iterator reads one bucket at a time
+	 * and fails fast when the table is changed other than through the iterator.
+	 */
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public int size() {
+			return PagedExtendibleHashTable.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return PagedExtendibleHashTable.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			if (entry.getKey() == null || entry.getValue() == null) {
+				return false;
+			}
+			return entry.getValue().equals(get(entry.getKey()));
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			synchronized (PagedExtendibleHashTable.this) {
+				if (!contains(entry)) {
+					return false;
+				}
+				PagedExtendibleHashTable.this.remove(entry.getKey());
+				return true;
+			}
+		}
+
+		@Override
+		public void clear() {
+			PagedExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	/*
+	 * Reads the entries of one bucket at a time under the table's lock, each
+	 * bucket from the first directory index that points to it. Removing through
+	 * the iterator does not merge buckets so the directory stays the same while
+	 * it is walked.
+	 */
+	private class EntryIterator implements Iterator<Entry<K, V>> {
+		private final List<Entry<K, V>> entries = new ArrayList<>();
+		private int directoryIndex;
+		private int entryIndex;
+		private K lastKey;
+		private int expectedModCount;
+
+		EntryIterator() {
+			synchronized (PagedExtendibleHashTable.this) {
+				expectedModCount = modCount;
+				advance();
+			}
+		}
+
+		// Caller holds the table's lock
+		private void advance() {
+			while (entryIndex >= entries.size() && directoryIndex < directory.length) {
+				entries.clear();
+				entryIndex = 0;
+				Bucket bucket = new Bucket(directory[directoryIndex]);
+				try {
+					if (directoryIndex < (1 << bucket.getLocalDepth())) {
+						int end = bucket.getEnd();
+						for (int offset = PAGE_HEADER_SIZE; offset < end; offset += bucket.getEntrySize(offset)) {
+							entries.add(new SimpleImmutableEntry<>(bucket.readKey(offset), bucket.readValue(offset)));
+						}
+					}
+				} finally {
+					bucket.release();
+				}
+				directoryIndex++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return entryIndex < entries.size();
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			synchronized (PagedExtendibleHashTable.this) {
+				if (modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				} else if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				Entry<K, V> entry = entries.get(entryIndex++);
+				lastKey = entry.getKey();
+				advance();
+				return entry;
+			}
+		}
+
+		@Override
+		public void remove() {
+			if (lastKey == null) {
+				throw new IllegalStateException();
+			}
+
+			synchronized (PagedExtendibleHashTable.this) {
+				if (modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				removeKey(lastKey, false);
+				expectedModCount = modCount;
+			}
+			lastKey = null;
+		}
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Writes all changed pages to disk followed by the directory. The directory
+	 * file is replaced atomically so a crash leaves either the old or the new
+	 * directory. With a write-ahead log this is a checkpoint, the directory
+	 * records the last lsn and the log is emptied afterwards.
+	 */
+	public synchronized void flush() {
+		pageCache.flush();
+		if (directoryPath == null) {
+			return;
+		}
+		writeDirectory(lastLsn);
+		checkpointLsn = lastLsn;
+		if (log != null) {
+			log.truncate();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		flush();
+		if (log != null) {
+			log.close();
+		}
+		if (pageFile != null) {
+			pageFile.close();
+		}
+	}
+
+	private void writeDirectory(long lsn) {
+		ByteBuffer out = ByteBuffer.allocate(DIRECTORY_HEADER_SIZE + directory.length * Integer.BYTES);
+		out.putInt(MAGIC);
+		out.putInt(FORMAT_VERSION);
+		out.putInt(pageSize);
+		out.putInt(globalDepth);
+		out.putInt(size);
+		out.putInt(pageCount);
+		out.putInt(freeListHead);
+		out.putLong(lsn);
+		out.asIntBuffer().put(directory);
+		out.clear();
+
+		Path tempPath = directoryPath.resolveSibling(directoryPath.getFileName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (out.hasRemaining()) {
+					channel.write(out);
+				}
+				channel.force(true);
+			}
+
+			try {
+				Files.move(tempPath, directoryPath, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempPath, directoryPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void readDirectory() throws IOException {
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(directoryPath));
+		if (in.getInt() != MAGIC) {
+			throw new IOException("Not a directory file: " + directoryPath);
+		}
+		int version = in.getInt();
+		if (version != FORMAT_VERSION && version != FORMAT_VERSION_WITHOUT_LSN) {
+			throw new IOException(String.format("Unsupported directory version %d in %s", version, directoryPath));
+		}
+		if (in.getInt() != pageSize) {
+			throw new IOException("Table was created with a different page size");
+		}
+
+		globalDepth = in.getInt();
+		size = in.getInt();
+		pageCount = in.getInt();
+		freeListHead = in.getInt();
+		checkpointLsn = version == FORMAT_VERSION_WITHOUT_LSN ? 0 : in.getLong();
+		lastLsn = checkpointLsn;
+		directory = new int[1 << globalDepth];
+		in.asIntBuffer().get(directory);
+	}
+
+	/**
+	 *
+	 * @return The buffer pool caching the pages, or null if the pages are memory
+	 *         mapped.
+	 */
+	public BufferPool getBufferPool() {
+		return pageCache instanceof BufferPool ? (BufferPool) pageCache : null;
+	}
+
+	/**
+	 *
+	 * @return The log the changes are written to, or null if the table has no
+	 *         write-ahead log.
+	 */
+	public WriteAheadLog getWriteAheadLog() {
+		return log;
+	}
+
+	/**
+	 *
+	 * @return The current number of bits used to index the directory.
+	 */
+	public synchronized int getGlobalDepth() {
+		return globalDepth;
+	}
+
+	/**
+	 *
+	 * @return The number of pages allocated, including free pages.
+	 */
+	synchronized int getPageCount() {
+		return pageCount;
+	}
+}
@@ -0,0 +1,451 @@
+package datastructures;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The directory and buckets shared by the extendible hash tables with
+ * primitive keys, {@link LongExtendibleHashTable} and
+ * {@link IntExtendibleHashTable}.
+ *
+ * Each bucket keeps its keys in a primitive array created by
+ * {@link #newKeys(int)} next to the value array. Keys are moved between
+ * buckets with {@link System#arraycopy} so only hashing, comparing and boxing
+ * a key depend on its type, the subclasses look keys up in their own typed
+ * arrays.
+ *
+ * A bucket is merged with its buddy bucket when either becomes empty and the
+ * directory collapses when every bucket is referenced at least twice.
+ *
+ * Resources: https://www2.cs.sfu.ca/CourseCentral/354/lxwu/notes/chapter11.pdf
+ * https://en.wikipedia.org/wiki/Extendible_hashing
+ *
+ * @author Ethan
+ *
+ * @param <K> boxed key type
+ * @param <V> value type
+ */
+abstract class PrimitiveExtendibleHashTable<K, V> extends AbstractMap<K, V> {
+	static final int MIN_DEPTH = 1;
+	static final int MAX_DEPTH = 30;
+	static final int NOT_FOUND = -1;
+
+	private final int bucketSize;
+	private int globalDepth;
+	private Object[] directory;
+	private int size;
+	private int modCount;
+	private Set<Entry<K, V>> entrySet;
+
+	final class Bucket {
+		int localDepth;
+		int numKeys;
+		// A primitive array of the subclass's key type
+		final Object keys;
+		final V[] values;
+
+		@SuppressWarnings("unchecked")
+		Bucket(int depth) {
+			localDepth = depth;
+			keys = newKeys(bucketSize);
+			values = (V[]) new Object[bucketSize];
+		}
+
+		// The key has to be stored at numKeys by the caller first
+		void append(V value) {
+			values[numKeys] = value;
+			numKeys++;
+		}
+
+		V removeAt(int index) {
+			V oldValue = values[index];
+			numKeys--;
+			System.arraycopy(keys, numKeys, keys, index, 1);
+			values[index] = values[numKeys];
+			values[numKeys] = null;
+			return oldValue;
+		}
+
+		/**
+		 * Splits the entries in this bucket with a new bucket, entries whose hash has
+		 * the leading bit of the new local depth set move to the new bucket.
+		 *
+		 * @return The new split bucket.
+		 */
+		Bucket split() {
+			int leadingBitMask = 1 << localDepth;
+			localDepth++;
+			Bucket otherBucket = new Bucket(localDepth);
+
+			int kept = 0;
+			for (int i = 0; i < numKeys; i++) {
+				if ((hashAt(keys, i) & leadingBitMask) == 0) {
+					System.arraycopy(keys, i, keys, kept, 1);
+					values[kept] = values[i];
+					kept++;
+				} else {
+					System.arraycopy(keys, i, otherBucket.keys, otherBucket.numKeys, 1);
+					otherBucket.append(values[i]);
+				}
+			}
+
+			Arrays.fill(values, kept, numKeys, null); // Cleaning up memory
+			numKeys = kept;
+			return otherBucket;
+		}
+
+		boolean allHashesEqual(int hash) {
+			for (int i = 0; i < numKeys; i++) {
+				if (hashAt(keys, i) != hash) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean isFull() {
+			return numKeys == bucketSize;
+		}
+
+		boolean isEmpty() {
+			return numKeys == 0;
+		}
+
+		@Override
+		public String toString() {
+			List<K> bucketKeys = new ArrayList<>();
+			for (int i = 0; i < numKeys; i++) {
+				bucketKeys.add(keyAt(keys, i));
+			}
+			return String.format("Bucket, depth=%d, total keys=%d, keys=%s, values=%s", localDepth, numKeys,
+					bucketKeys, Arrays.toString(Arrays.copyOf(values, numKeys)));
+		}
+	}
+
+	PrimitiveExtendibleHashTable(int bucketSize) {
+		if (bucketSize <= 0) {
+			throw new IllegalArgumentException("Bucket size must be greater than 0");
+		}
+
+		this.bucketSize = bucketSize;
+		resetDirectoryBuckets();
+	}
+
+	/**
+	 *
+	 * @param length The number of keys.
+	 * @return A new primitive array of the key type.
+	 */
+	abstract Object newKeys(int length);
+
+	/**
+	 *
+	 * @param keys  An array created by {@link #newKeys(int)}.
+	 * @param index The index of the key.
+	 * @return The hash of the key at the index.
+	 */
+	abstract int hashAt(Object keys, int index);
+
+	/**
+	 *
+	 * @param keys  An array created by {@link #newKeys(int)}.
+	 * @param index The index of the key.
+	 * @return The key at the index, boxed.
+	 */
+	abstract K keyAt(Object keys, int index);
+
+	private void resetDirectoryBuckets() {
+		globalDepth = MIN_DEPTH;
+		directory = new Object[1 << globalDepth];
+		for (int i = 0; i < directory.length; i++) {
+			directory[i] = new Bucket(globalDepth);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	final Bucket getBucket(int hash) {
+		return (Bucket) directory[hash & (directory.length - 1)];
+	}
+
+	/**
+	 * Splits the hash's bucket until it has room for another key.
+	 *
+	 * @throws IllegalStateException If more than bucket size keys share the same
+	 *                               hash.
+	 */
+	final Bucket bucketWithRoom(int hash) {
+		for (;;) {
+			Bucket bucket = getBucket(hash);
+			if (!bucket.isFull()) {
+				return bucket;
+			}
+			split(bucket, hash);
+		}
+	}
+
+	/**
+	 * Appends an entry whose key was stored at the bucket's numKeys.
+	 */
+	final void append(Bucket bucket, V value) {
+		bucket.append(value);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Removes the entry at the index of the hash's bucket and merges the bucket
+	 * with its buddy if either is empty.
+	 *
+	 * @return The removed value.
+	 */
+	final V removeAt(Bucket bucket, int index, int hash) {
+		V oldValue = bucket.removeAt(index);
+		size--;
+		modCount++;
+		mergeWithBuddy(hash);
+		return oldValue;
+	}
+
+	private void split(Bucket bucket, int hash) {
+		if (bucket.localDepth == MAX_DEPTH || bucket.allHashesEqual(hash)) {
+			throw new IllegalStateException("Bucket can not be split any further, too many keys share the same hash");
+		}
+
+		if (bucket.localDepth == globalDepth) {
+			growDirectory();
+		}
+
+		// The bucket was referenced every 2^depth indices, every other one of those
+		// now references the split bucket
+		int leadingBitMask = 1 << bucket.localDepth;
+		Bucket splitBucket = bucket.split();
+		setBuckets(hash | leadingBitMask, splitBucket.localDepth, splitBucket);
+	}
+
+	/*
+	 * Points every directory index that shares the given index's low depth bits
+	 * to the bucket, these are 2^depth indices apart.
+	 */
+	private void setBuckets(int index, int depth, Bucket bucket) {
+		int step = 1 << depth;
+		for (int i = index & (step - 1); i < directory.length; i += step) {
+			directory[i] = bucket;
+		}
+	}
+
+	private void growDirectory() {
+		int half = directory.length;
+		directory = Arrays.copyOf(directory, half * 2);
+		System.arraycopy(directory, 0, directory, half, half);
+		globalDepth++;
+	}
+
+	/*
+	 * Merges the hash's bucket with its buddy, the bucket that differs only in the
+	 * leading bit of the local depth, while one of the two is empty and the buddy
+	 * has not been split further.
+	 */
+	@SuppressWarnings("unchecked")
+	private void mergeWithBuddy(int hash) {
+		for (;;) {
+			Bucket bucket = getBucket(hash);
+			int localDepth = bucket.localDepth;
+			if (localDepth == MIN_DEPTH) {
+				break;
+			}
+
+			int buddyIndex = (hash & ((1 << localDepth) - 1)) ^ (1 << (localDepth - 1));
+			Bucket buddy = (Bucket) directory[buddyIndex];
+			if (buddy.localDepth != localDepth || (!bucket.isEmpty() && !buddy.isEmpty())) {
+				break;
+			}
+
+			int emptyIndex = bucket.isEmpty() ? hash : buddyIndex;
+			Bucket keptBucket = bucket.isEmpty() ? buddy : bucket;
+			setBuckets(emptyIndex, localDepth, keptBucket);
+			keptBucket.localDepth--;
+		}
+
+		while (canCollapseDirectory()) {
+			globalDepth--;
+			directory = Arrays.copyOf(directory, directory.length / 2);
+		}
+	}
+
+	private boolean canCollapseDirectory() {
+		if (globalDepth == MIN_DEPTH) {
+			return false;
+		}
+
+		int half = directory.length / 2;
+		for (int i = 0; i < half; i++) {
+			if (directory[i] != directory[i + half]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		modCount++;
+		resetDirectoryBuckets();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			V value = get(entry.getKey());
+			return value != null && value.equals(entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return contains(o) && PrimitiveExtendibleHashTable.this.remove(((Entry<?, ?>) o).getKey()) != null;
+		}
+
+		@Override
+		public void clear() {
+			PrimitiveExtendibleHashTable.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	// Setting the value writes through to the table
+	private class TableEntry extends AbstractMap.SimpleEntry<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		TableEntry(K key, V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(V value) {
+			Objects.requireNonNull(value);
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+	}
+
+	/*
+	 * Walks the entries bucket by bucket, each bucket from the first directory
+	 * index that points to it. Removing through the iterator does not merge
+	 * buckets so the directory stays the same while it is walked.
+	 */
+	private class EntryIterator implements Iterator<Entry<K, V>> {
+		private int directoryIndex = -1;
+		private Bucket bucket;
+		private int entryIndex;
+		private Bucket lastBucket;
+		private int lastIndex = NOT_FOUND;
+		private int expectedModCount = modCount;
+
+		EntryIterator() {
+			advance();
+		}
+
+		// Moves to the next entry, the bucket is null once there are none left
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			while (bucket == null || entryIndex >= bucket.numKeys) {
+				if (++directoryIndex >= directory.length) {
+					bucket = null;
+					return;
+				}
+
+				Bucket candidate = (Bucket) directory[directoryIndex];
+				bucket = directoryIndex < (1 << candidate.localDepth) ? candidate : null;
+				entryIndex = 0;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return bucket != null;
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			} else if (bucket == null) {
+				throw new NoSuchElementException();
+			}
+
+			lastBucket = bucket;
+			lastIndex = entryIndex++;
+			advance();
+			return new TableEntry(keyAt(lastBucket.keys, lastIndex), lastBucket.values[lastIndex]);
+		}
+
+		@Override
+		public void remove() {
+			if (lastIndex == NOT_FOUND) {
+				throw new IllegalStateException();
+			} else if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			// The bucket's last entry moves into the removed one's place, it has not
+			// been returned yet when the walk is still in this bucket
+			lastBucket.removeAt(lastIndex);
+			if (lastBucket == bucket) {
+				entryIndex--;
+				advance();
+			}
+			size--;
+			modCount++;
+			expectedModCount = modCount;
+			lastIndex = NOT_FOUND;
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 *
+	 * @return The current number of bits used to index the directory.
+	 */
+	public int getGlobalDepth() {
+		return globalDepth;
+	}
+}
@@ -0,0 +1,172 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bloom filter that grows as items are inserted, for when the number of
+ * items is not known up front.
+ *
+ * The filter is a chain of {@link BloomFilter} slices. Once the newest slice
+ * holds the items it was sized for a new slice is added, each slice holding
+ * growth times the items of the previous one with a false positive rate
+ * tightened by the tightening ratio. The rates of the slices form a geometric
+ * series that sums to at most the target rate:
+ *
+ * <pre>
+ * rate of slice i = target * (1 - tightening) * tightening^i
+ * </pre>
+ *
+ * Items are inserted into the newest slice, lookups check the slices from
+ * newest to oldest since the newest slices are the largest.
+ *
+ * Resources: Almeida, Baquero, Preguica, Hutchison, Scalable Bloom Filters
+ *
+ * @author Ethan
+ *
+ * @param <T>
+ */
+public class ScalableBloomFilter<T> {
+	public static final int DEFAULT_GROWTH = 2;
+	public static final double DEFAULT_TIGHTENING = 0.85;
+
+	private final BloomFilter.LongHashable<T> hashFunction;
+	private final double falsePositiveRate;
+	private final int growth;
+	private final double tightening;
+	private final List<BloomFilter<T>> slices = new ArrayList<>();
+	// Items each slice was sized for and the items inserted into each slice
+	private final List<Long> capacities = new ArrayList<>();
+	private final List<Long> insertions = new ArrayList<>();
+
+	public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+		this(initialCapacity, falsePositiveRate, DEFAULT_GROWTH, DEFAULT_TIGHTENING, BloomFilter::hashCodeMix);
+	}
+
+	/**
+	 *
+	 * @param initialCapacity   The number of items of the first slice.
+	 * @param falsePositiveRate The bound on the overall false positive rate,
+	 *                          between 0 and 1 exclusive.
+	 * @param growth            How many times more items each slice holds than
+	 *                          the previous one, 2 or 4 fit slow and fast growing
+	 *                          streams.
+	 * @param tightening        The ratio between the false positive rates of
+	 *                          consecutive slices, between 0 and 1 exclusive.
+	 * @param hashFunction      A well mixed 64 bit hash of the items.
+	 */
+	public ScalableBloomFilter(long initialCapacity, double falsePositiveRate, int growth, double tightening,
+			BloomFilter.LongHashable<T> hashFunction) {
+		Objects.requireNonNull(hashFunction);
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("Initial capacity should be greater than 0");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate should be between 0 and 1 exclusive");
+		}
+		if (growth < 1) {
+			throw new IllegalArgumentException("Growth should be at least 1");
+		}
+		if (!(tightening > 0 && tightening < 1)) {
+			throw new IllegalArgumentException("Tightening ratio should be between 0 and 1 exclusive");
+		}
+
+		this.hashFunction = hashFunction;
+		this.falsePositiveRate = falsePositiveRate;
+		this.growth = growth;
+		this.tightening = tightening;
+		addSlice(initialCapacity);
+	}
+
+	private void addSlice(long capacity) {
+		double sliceRate = falsePositiveRate * (1 - tightening) * Math.pow(tightening, slices.size());
+		slices.add(BloomFilter.create(capacity, sliceRate, hashFunction));
+		capacities.add(capacity);
+		insertions.add(0L);
+	}
+
+	/**
+	 * Inserts the item into the newest slice unless the filter may already
+	 * contain it, so repeated items do not fill up the slices.
+	 *
+	 * @param item The item to insert.
+	 * @return True if the item was inserted, false if it may already be present.
+	 */
+	public boolean insert(T item) {
+		if (contains(item)) {
+			return false;
+		}
+
+		int newest = slices.size() - 1;
+		if (insertions.get(newest) >= capacities.get(newest)) {
+			addSlice(capacities.get(newest) * growth);
+			newest++;
+		}
+		slices.get(newest).insert(item);
+		insertions.set(newest, insertions.get(newest) + 1);
+		return true;
+	}
+
+	// may contain it
+	public boolean contains(T item) {
+		for (int i = slices.size() - 1; i >= 0; i--) {
+			if (slices.get(i).contains(item)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Estimates the false positive rate from how full each slice is, a slice with
+	 * n of its m bits set by k hashes has a rate of (1 - e^(-kn/m))^k and a lookup
+	 * is a false positive if any slice reports one.
+	 *
+	 * @return The estimated overall false positive rate, at most the target rate
+	 *         given at construction.
+	 */
+	public double getEstimatedFalsePositiveRate() {
+		double trueNegativeRate = 1;
+		for (int i = 0; i < slices.size(); i++) {
+			BloomFilter<T> slice = slices.get(i);
+			double k = slice.getNumHashes();
+			double sliceRate = Math.pow(1 - Math.exp(-k * insertions.get(i) / slice.getNumBits()), k);
+			trueNegativeRate *= 1 - sliceRate;
+		}
+		return 1 - trueNegativeRate;
+	}
+
+	/**
+	 *
+	 * @return The number of bytes held by the bits of the slices.
+	 */
+	public long getMemoryBytes() {
+		long bytes = 0;
+		for (BloomFilter<T> slice : slices) {
+			bytes += (slice.getNumBits() + 63L) / 64 * Long.BYTES;
+		}
+		return bytes;
+	}
+
+	/**
+	 *
+	 * @return The number of items inserted, not counting items the filter
+	 *         reported as possibly present.
+	 */
+	public long getInsertions() {
+		long total = 0;
+		for (long count : insertions) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 *
+	 * @return The number of slices.
+	 */
+	public int getSliceCount() {
+		return slices.size();
+	}
+}
@@ -0,0 +1,310 @@
+package datastructures.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * A fixed size pool of page frames in front of a page file.
+ *
+ * Pages are read into a frame when they are pinned and stay there until the
+ * frame is chosen for eviction. Victims are chosen with the CLOCK algorithm, a
+ * hand sweeps over the frames and gives every recently used frame a second
+ * chance before evicting it. Pinned frames are never evicted.
+ *
+ * Dirty pages are written back in batches, when a dirty victim has to be
+ * written the other dirty unpinned frames are written along with it, sorted by
+ * page id so consecutive pages go out in a single gathering write.
+ *
+ * The frames are allocated once outside of the heap, the pool never uses more
+ * than capacity * page size bytes.
+ *
+ * When the pool is given a log flusher it follows the write-ahead rule, the
+ * flusher is called with the highest lsn a page was unpinned with before the
+ * page is written.
+ *
+ * Resources: https://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock
+ * https://15445.courses.cs.cmu.edu/fall2021/slides/05-bufferpool.pdf
+ *
+ * @author Ethan
+ *
+ */
+public class BufferPool implements PageCache {
+	public static final int DEFAULT_CAPACITY = 1024;
+	public static final int MIN_CAPACITY = 4;
+	public static final int DEFAULT_WRITE_BATCH_SIZE = 32;
+
+	private static final int NO_PAGE = -1;
+
+	private final PageFile pageFile;
+	private final int capacity;
+	private final int writeBatchSize;
+	private final ByteBuffer[] frames;
+	private final int[] framePageIds;
+	private final int[] pinCounts;
+	private final boolean[] dirty;
+	private final boolean[] referenced;
+	private final long[] pageLsns;
+	private final LongConsumer logFlusher;
+	private final Map<Integer, Integer> pageTable;
+	private int clockHand;
+	private int usedFrames;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long pageWrites;
+	private long batchWrites;
+
+	public BufferPool(PageFile pageFile) {
+		this(pageFile, DEFAULT_CAPACITY);
+	}
+
+	public BufferPool(PageFile pageFile, int capacity) {
+		this(pageFile, capacity, DEFAULT_WRITE_BATCH_SIZE);
+	}
+
+	/**
+	 *
+	 * @param pageFile       The file to cache the pages of.
+	 * @param capacity       The number of pages that are kept in memory.
+	 * @param writeBatchSize The max number of dirty pages written back together.
+	 */
+	public BufferPool(PageFile pageFile, int capacity, int writeBatchSize) {
+		this(pageFile, capacity, writeBatchSize, lsn -> {
+		});
+	}
+
+	/**
+	 *
+	 * @param pageFile       The file to cache the pages of.
+	 * @param capacity       The number of pages that are kept in memory.
+	 * @param writeBatchSize The max number of dirty pages written back together.
+	 * @param logFlusher     Makes the log durable up to the given lsn, called
+	 *                       before pages are written.
+	 */
+	public BufferPool(PageFile pageFile, int capacity, int writeBatchSize, LongConsumer logFlusher) {
+		Objects.requireNonNull(pageFile);
+		Objects.requireNonNull(logFlusher);
+		if (capacity < MIN_CAPACITY) {
+			throw new IllegalArgumentException("Capacity must be at least " + MIN_CAPACITY);
+		}
+		if (writeBatchSize <= 0) {
+			throw new IllegalArgumentException("Write batch size must be greater than 0");
+		}
+
+		this.pageFile = pageFile;
+		this.capacity = capacity;
+		this.writeBatchSize = writeBatchSize;
+		frames = new ByteBuffer[capacity];
+		framePageIds = new int[capacity];
+		pinCounts = new int[capacity];
+		dirty = new boolean[capacity];
+		referenced = new boolean[capacity];
+		pageLsns = new long[capacity];
+		this.logFlusher = logFlusher;
+		pageTable = new HashMap<>(capacity * 2);
+		Arrays.fill(framePageIds, NO_PAGE);
+
+		int pageSize = pageFile.getPageSize();
+		ByteBuffer memory = ByteBuffer.allocateDirect(capacity * pageSize);
+		for (int i = 0; i < capacity; i++) {
+			memory.limit((i + 1) * pageSize).position(i * pageSize);
+			frames[i] = memory.slice();
+		}
+	}
+
+	@Override
+	public int getPageSize() {
+		return pageFile.getPageSize();
+	}
+
+	@Override
+	public synchronized ByteBuffer pin(int pageId) {
+		if (pageId < 0) {
+			throw new IllegalArgumentException("Page id must be non negative: " + pageId);
+		}
+
+		Integer frame = pageTable.get(pageId);
+		if (frame != null) {
+			hits++;
+		} else {
+			misses++;
+			frame = findFreeFrame();
+			pageFile.read(pageId, frames[frame].duplicate());
+			framePageIds[frame] = pageId;
+			pageTable.put(pageId, frame);
+		}
+
+		pinCounts[frame]++;
+		referenced[frame] = true;
+		return frames[frame].duplicate();
+	}
+
+	@Override
+	public void unpin(int pageId, boolean isDirty) {
+		unpin(pageId, isDirty, 0);
+	}
+
+	@Override
+	public synchronized void unpin(int pageId, boolean isDirty, long lsn) {
+		Integer frame = pageTable.get(pageId);
+		if (frame == null || pinCounts[frame] == 0) {
+			throw new IllegalStateException("Page is not pinned: " + pageId);
+		}
+
+		pinCounts[frame]--;
+		dirty[frame] |= isDirty;
+		pageLsns[frame] = Math.max(pageLsns[frame], lsn);
+	}
+
+	private int findFreeFrame() {
+		if (usedFrames < capacity) {
+			return usedFrames++;
+		}
+
+		// Two full sweeps clear every reference bit, a third finds nothing only if
+		// every frame is pinned
+		for (int i = 0; i < capacity * 3; i++) {
+			int frame = clockHand;
+			clockHand = (clockHand + 1) % capacity;
+
+			if (pinCounts[frame] > 0) {
+				continue;
+			} else if (referenced[frame]) {
+				referenced[frame] = false;
+				continue;
+			}
+
+			if (dirty[frame]) {
+				writeBack(frame);
+			}
+			evictions++;
+			pageTable.remove(framePageIds[frame]);
+			framePageIds[frame] = NO_PAGE;
+			return frame;
+		}
+
+		throw new IllegalStateException("All pages in the buffer pool are pinned");
+	}
+
+	/*
+	 * Writes the victim along with other dirty unpinned frames.
+	 */
+	private void writeBack(int victim) {
+		int[] batch = new int[writeBatchSize];
+		int batchSize = 0;
+		batch[batchSize++] = victim;
+		for (int frame = 0; frame < capacity && batchSize < writeBatchSize; frame++) {
+			if (frame != victim && dirty[frame] && pinCounts[frame] == 0) {
+				batch[batchSize++] = frame;
+			}
+		}
+		write(batch, batchSize);
+	}
+
+	/*
+	 * Writes the frames sorted by page id, each run of consecutive page ids is
+	 * written at once.
+	 */
+	private void write(int[] batch, int batchSize) {
+		long[] sortedFrames = new long[batchSize];
+		long maxLsn = 0;
+		for (int i = 0; i < batchSize; i++) {
+			sortedFrames[i] = ((long) framePageIds[batch[i]] << 32) | batch[i];
+			maxLsn = Math.max(maxLsn, pageLsns[batch[i]]);
+		}
+		Arrays.sort(sortedFrames);
+		if (maxLsn > 0) {
+			logFlusher.accept(maxLsn);
+		}
+
+		int runStart = 0;
+		for (int i = 1; i <= batchSize; i++) {
+			if (i == batchSize || (int) (sortedFrames[i] >>> 32) != (int) (sortedFrames[i - 1] >>> 32) + 1) {
+				ByteBuffer[] run = new ByteBuffer[i - runStart];
+				for (int j = runStart; j < i; j++) {
+					int frame = (int) sortedFrames[j];
+					run[j - runStart] = frames[frame].duplicate();
+					dirty[frame] = false;
+					pageLsns[frame] = 0;
+				}
+				pageFile.write((int) (sortedFrames[runStart] >>> 32), run);
+				pageWrites += run.length;
+				batchWrites++;
+				runStart = i;
+			}
+		}
+	}
+
+	/**
+	 * Writes every dirty page, pinned or not, and forces them to the storage
+	 * device.
+	 */
+	@Override
+	public synchronized void flush() {
+		int[] batch = new int[capacity];
+		int batchSize = 0;
+		for (int frame = 0; frame < capacity; frame++) {
+			if (dirty[frame]) {
+				batch[batchSize++] = frame;
+			}
+		}
+		write(batch, batchSize);
+		pageFile.flush();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 *
+	 * @return The number of pins that found their page already in memory.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 *
+	 * @return The number of pins that had to read their page from the file.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 *
+	 * @return The number of pages removed from memory to make room.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 *
+	 * @return The number of pages written to the file.
+	 */
+	public synchronized long getPageWrites() {
+		return pageWrites;
+	}
+
+	/**
+	 *
+	 * @return The number of write calls made to the file, each write call can
+	 *         write multiple pages.
+	 */
+	public synchronized long getBatchWrites() {
+		return batchWrites;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("BufferPool, capacity=%d, hits=%d, misses=%d, evictions=%d, page writes=%d, batches=%d",
+				capacity, hits, misses, evictions, pageWrites, batchWrites);
+	}
+}
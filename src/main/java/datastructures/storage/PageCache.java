@@ -0,0 +1,50 @@
+package datastructures.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gives access to the pages of a page file. A page must be pinned before it is
+ * used and unpinned once the caller is done with it, the buffer returned by
+ * {@link #pin(int)} must not be used after the page is unpinned.
+ *
+ * @author Ethan
+ *
+ */
+public interface PageCache {
+	/**
+	 * Pins the page so it stays in memory until it is unpinned.
+	 *
+	 * @param pageId The non negative page id.
+	 * @return A buffer of page size bytes starting at position 0, pages that were
+	 *         never written are all zeros.
+	 */
+	public ByteBuffer pin(int pageId);
+
+	/**
+	 * Unpins the page, a page pinned n times has to be unpinned n times.
+	 *
+	 * @param pageId The page id.
+	 * @param dirty  True if the page was changed while pinned.
+	 */
+	public void unpin(int pageId, boolean dirty);
+
+	/**
+	 * Unpins a page whose changes are described by the log record with the given
+	 * lsn. Caches that follow the write-ahead rule will not write the page until
+	 * that record is durable.
+	 *
+	 * @param pageId The page id.
+	 * @param dirty  True if the page was changed while pinned.
+	 * @param lsn    The lsn of the log record describing the changes.
+	 */
+	public default void unpin(int pageId, boolean dirty, long lsn) {
+		unpin(pageId, dirty);
+	}
+
+	/**
+	 * Writes all changed pages to the storage device.
+	 */
+	public void flush();
+
+	public int getPageSize();
+}
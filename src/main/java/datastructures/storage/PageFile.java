@@ -0,0 +1,165 @@
+package datastructures.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A file split up into fixed size pages, page n starts at byte n * page size.
+ *
+ * Pages can either be accessed through memory mapped segments of the file, or
+ * read and written through the file channel when a {@link BufferPool} manages
+ * which pages stay in memory. The segments are mapped lazily and the file grows
+ * as pages past its end are requested.
+ *
+ * @author Ethan
+ *
+ */
+public class PageFile implements PageCache, Closeable {
+	public static final int DEFAULT_PAGE_SIZE = 4096;
+	private static final int PAGES_PER_SEGMENT = 256;
+
+	private final FileChannel channel;
+	private final int pageSize;
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	public PageFile(Path path) throws IOException {
+		this(path, DEFAULT_PAGE_SIZE);
+	}
+
+	public PageFile(Path path, int pageSize) throws IOException {
+		Objects.requireNonNull(path);
+		if (pageSize <= 0 || Integer.bitCount(pageSize) != 1) {
+			throw new IllegalArgumentException("Page size must be a positive power of 2");
+		}
+
+		this.pageSize = pageSize;
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+	}
+
+	@Override
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Retrieves the page as a view of the mapped file, writes to the returned
+	 * buffer are written to the file.
+	 *
+	 * @param pageId The non negative page id.
+	 * @return A buffer of page size bytes starting at position 0.
+	 */
+	public ByteBuffer map(int pageId) {
+		if (pageId < 0) {
+			throw new IllegalArgumentException("Page id must be non negative: " + pageId);
+		}
+
+		int segment = pageId / PAGES_PER_SEGMENT;
+		ByteBuffer page = getSegment(segment).duplicate();
+		int offset = (pageId % PAGES_PER_SEGMENT) * pageSize;
+		page.position(offset);
+		page.limit(offset + pageSize);
+		return page.slice();
+	}
+
+	private MappedByteBuffer getSegment(int segment) {
+		try {
+			long segmentSize = (long) PAGES_PER_SEGMENT * pageSize;
+			while (segments.size() <= segment) {
+				// Mapping past the end of the file grows the file
+				segments.add(channel.map(MapMode.READ_WRITE, segments.size() * segmentSize, segmentSize));
+			}
+			return segments.get(segment);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Memory mapped pages are always in memory, pinning only maps the page.
+	 */
+	@Override
+	public ByteBuffer pin(int pageId) {
+		return map(pageId);
+	}
+
+	@Override
+	public void unpin(int pageId, boolean dirty) {
+	}
+
+	/**
+	 * Reads the page into the buffer's remaining bytes, zeros are read past the
+	 * end of the file.
+	 *
+	 * @param pageId The non negative page id.
+	 * @param dst    A buffer with page size bytes remaining.
+	 */
+	public void read(int pageId, ByteBuffer dst) {
+		try {
+			long position = (long) pageId * pageSize;
+			while (dst.hasRemaining()) {
+				int read = channel.read(dst, position);
+				if (read < 0) {
+					while (dst.hasRemaining()) {
+						dst.put((byte) 0);
+					}
+				} else {
+					position += read;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes consecutive pages with a single gathering write.
+	 *
+	 * @param firstPageId The page id of the first page.
+	 * @param pages       The pages to write, each with page size bytes remaining.
+	 */
+	public void write(int firstPageId, ByteBuffer... pages) {
+		try {
+			channel.position((long) firstPageId * pageSize);
+			long remaining = (long) pages.length * pageSize;
+			while (remaining > 0) {
+				remaining -= channel.write(pages);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Forces all changes made to the pages to be written to the storage device.
+	 */
+	@Override
+	public void flush() {
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+
+		try {
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		segments.clear();
+		channel.close();
+	}
+}
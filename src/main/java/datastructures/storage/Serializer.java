@@ -0,0 +1,115 @@
+package datastructures.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts items to and from their binary form so they can be stored in pages.
+ *
+ * Implementations must write exactly {@link #sizeOf(Object)} bytes and must be
+ * deterministic, equal items have to produce the same bytes since stored keys
+ * are compared by their bytes.
+ *
+ * @author Ethan
+ *
+ * @param <T> item type
+ */
+public interface Serializer<T> {
+	/**
+	 *
+	 * @param item The item to be written.
+	 * @return The number of bytes the item needs.
+	 */
+	public int sizeOf(T item);
+
+	/**
+	 * Writes the item at the buffer's position, advancing the position by
+	 * {@link #sizeOf(Object)} bytes.
+	 *
+	 * @param item The item to write.
+	 * @param out  The buffer to write to.
+	 */
+	public void write(T item, ByteBuffer out);
+
+	/**
+	 * Reads an item from the buffer's position, advancing the position by length
+	 * bytes.
+	 *
+	 * @param in     The buffer to read from.
+	 * @param length The number of bytes the item was written with.
+	 * @return The read item.
+	 */
+	public T read(ByteBuffer in, int length);
+
+	public static final Serializer<Integer> INTEGER = new Serializer<Integer>() {
+		@Override
+		public int sizeOf(Integer item) {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void write(Integer item, ByteBuffer out) {
+			out.putInt(item);
+		}
+
+		@Override
+		public Integer read(ByteBuffer in, int length) {
+			return in.getInt();
+		}
+	};
+
+	public static final Serializer<Long> LONG = new Serializer<Long>() {
+		@Override
+		public int sizeOf(Long item) {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void write(Long item, ByteBuffer out) {
+			out.putLong(item);
+		}
+
+		@Override
+		public Long read(ByteBuffer in, int length) {
+			return in.getLong();
+		}
+	};
+
+	public static final Serializer<String> STRING = new Serializer<String>() {
+		@Override
+		public int sizeOf(String item) {
+			return item.getBytes(StandardCharsets.UTF_8).length;
+		}
+
+		@Override
+		public void write(String item, ByteBuffer out) {
+			out.put(item.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String read(ByteBuffer in, int length) {
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	public static final Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+		@Override
+		public int sizeOf(byte[] item) {
+			return item.length;
+		}
+
+		@Override
+		public void write(byte[] item, ByteBuffer out) {
+			out.put(item);
+		}
+
+		@Override
+		public byte[] read(ByteBuffer in, int length) {
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			return bytes;
+		}
+	};
+}
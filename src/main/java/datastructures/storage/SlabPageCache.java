@@ -0,0 +1,105 @@
+package datastructures.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Pages kept outside of the Java heap in direct {@link ByteBuffer} slabs, with
+ * no file behind them.
+ *
+ * The first slab holds a few pages and every further slab is twice the size of
+ * the previous one up to the max slab size, so a small table only reserves a
+ * little direct memory and a large one is carved out of a few large
+ * allocations. Slabs are allocated as pages past the last slab are pinned and
+ * are only released once the cache is garbage collected.
+ *
+ * @author Ethan
+ *
+ */
+public class SlabPageCache implements PageCache {
+	public static final int DEFAULT_MAX_SLAB_SIZE = 64 * 1024 * 1024;
+	private static final int FIRST_SLAB_PAGES = 16;
+
+	private final int pageSize;
+	private final int maxSlabPages;
+	private ByteBuffer[] slabs = new ByteBuffer[0];
+	// The id of the first page of each slab, followed by the number of pages
+	private int[] slabFirstPages = { 0 };
+
+	public SlabPageCache(int pageSize) {
+		this(pageSize, DEFAULT_MAX_SLAB_SIZE);
+	}
+
+	/**
+	 *
+	 * @param pageSize    The size of a page in bytes.
+	 * @param maxSlabSize The size of the largest slab, a multiple of the page
+	 *                    size.
+	 */
+	public SlabPageCache(int pageSize, int maxSlabSize) {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+		if (maxSlabSize < pageSize || maxSlabSize % pageSize != 0) {
+			throw new IllegalArgumentException("Slab size must be a multiple of the page size");
+		}
+
+		this.pageSize = pageSize;
+		maxSlabPages = maxSlabSize / pageSize;
+	}
+
+	@Override
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	private void addSlab() {
+		int slabPages = slabs.length == 0 ? Math.min(FIRST_SLAB_PAGES, maxSlabPages)
+				: Math.min(slabs[slabs.length - 1].capacity() / pageSize * 2, maxSlabPages);
+		slabs = Arrays.copyOf(slabs, slabs.length + 1);
+		slabs[slabs.length - 1] = ByteBuffer.allocateDirect(slabPages * pageSize);
+		slabFirstPages = Arrays.copyOf(slabFirstPages, slabFirstPages.length + 1);
+		slabFirstPages[slabFirstPages.length - 1] = slabFirstPages[slabFirstPages.length - 2] + slabPages;
+	}
+
+	/**
+	 * Allocates slabs until the page exists.
+	 */
+	@Override
+	public ByteBuffer pin(int pageId) {
+		if (pageId < 0) {
+			throw new IllegalArgumentException("Page id must be non negative: " + pageId);
+		}
+		while (pageId >= slabFirstPages[slabs.length]) {
+			addSlab();
+		}
+
+		int slab = Arrays.binarySearch(slabFirstPages, 0, slabs.length, pageId);
+		if (slab < 0) {
+			slab = -slab - 2;
+		}
+		ByteBuffer page = slabs[slab].duplicate();
+		int offset = (pageId - slabFirstPages[slab]) * pageSize;
+		page.limit(offset + pageSize).position(offset);
+		return page.slice();
+	}
+
+	@Override
+	public void unpin(int pageId, boolean dirty) {
+	}
+
+	/**
+	 * Nothing to write, the pages only live in memory.
+	 */
+	@Override
+	public void flush() {
+	}
+
+	/**
+	 *
+	 * @return The number of bytes of direct memory held by the slabs.
+	 */
+	public long getCapacityBytes() {
+		return (long) slabFirstPages[slabs.length] * pageSize;
+	}
+}
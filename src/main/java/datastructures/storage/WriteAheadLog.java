@@ -0,0 +1,326 @@
+package datastructures.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append only redo log with group commit.
+ *
+ * Each record gets a log sequence number (lsn) that increases by one per
+ * record. Appending only copies the record into memory, a record is durable
+ * once {@link #commit(long)} returns for its lsn. Threads that commit at the
+ * same time share a single write and fsync: the first thread becomes the leader
+ * and writes every record appended so far, the other threads wait for it and
+ * return right away if the leader's write covered their record.
+ *
+ * Record layout: payload length, crc32 of the lsn and payload, lsn, payload.
+ * A record that was only partially written before a crash fails its checksum,
+ * the log ends at the first invalid record and is truncated there when it is
+ * opened.
+ *
+ * Resources: https://en.wikipedia.org/wiki/Write-ahead_logging
+ * https://15445.courses.cs.cmu.edu/fall2021/slides/19-logging.pdf
+ *
+ * @author Ethan
+ *
+ */
+public class WriteAheadLog implements Closeable {
+	private static final int RECORD_HEADER_SIZE = 16;
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+	private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	private final CRC32 crc = new CRC32();
+	private long nextLsn;
+	private long durableLsn;
+	private boolean flushing;
+	private long size;
+
+	private long appends;
+	private long syncs;
+
+	/**
+	 * Opens the log at the given path, or creates an empty log if the path does not
+	 * exist yet.
+	 *
+	 * @param path The log file.
+	 * @throws IOException If the file can not be opened.
+	 */
+	public WriteAheadLog(Path path) throws IOException {
+		Objects.requireNonNull(path);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		long lastLsn = 0;
+		long validEnd = 0;
+		MappedByteBuffer log = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		ByteBuffer record;
+		while ((record = readRecord(log)) != null) {
+			lastLsn = record.getLong();
+			validEnd = log.position();
+		}
+
+		// Drop a partially written record from a crash
+		channel.truncate(validEnd);
+		channel.position(validEnd);
+		size = validEnd;
+		nextLsn = lastLsn + 1;
+		durableLsn = lastLsn;
+	}
+
+	/*
+	 * Reads the record at the buffer's position and moves past it, returns the
+	 * record's lsn followed by its payload or null if there is no valid record.
+	 */
+	private ByteBuffer readRecord(ByteBuffer log) {
+		int start = log.position();
+		if (log.remaining() < RECORD_HEADER_SIZE) {
+			return null;
+		}
+
+		int length = log.getInt(start);
+		int checksum = log.getInt(start + 4);
+		if (length < 0 || log.remaining() - RECORD_HEADER_SIZE < length) {
+			return null;
+		}
+
+		ByteBuffer body = log.duplicate();
+		body.limit(start + RECORD_HEADER_SIZE + length).position(start + 8);
+		ByteBuffer record = body.slice();
+		crc.reset();
+		crc.update(body);
+		if ((int) crc.getValue() != checksum) {
+			return null;
+		}
+
+		log.position(start + RECORD_HEADER_SIZE + length);
+		return record;
+	}
+
+	/**
+	 * Copies the record into the log's memory buffer, the record is not durable
+	 * until it is committed.
+	 *
+	 * @param record The record's remaining bytes are appended.
+	 * @return The lsn of the record.
+	 */
+	public synchronized long append(ByteBuffer record) {
+		int length = record.remaining();
+		if (pending.remaining() < RECORD_HEADER_SIZE + length) {
+			ByteBuffer larger = ByteBuffer
+					.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER_SIZE + length));
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+
+		long lsn = nextLsn++;
+		int start = pending.position();
+		pending.putInt(length);
+		pending.putInt(0);
+		pending.putLong(lsn);
+		pending.put(record);
+
+		ByteBuffer body = pending.duplicate();
+		body.limit(pending.position()).position(start + 8);
+		crc.reset();
+		crc.update(body);
+		pending.putInt(start + 4, (int) crc.getValue());
+
+		appends++;
+		return lsn;
+	}
+
+	/**
+	 * Waits until the record with the given lsn, and every record before it, is
+	 * durable.
+	 *
+	 * @param lsn The lsn returned by {@link #append(ByteBuffer)}.
+	 */
+	public void commit(long lsn) {
+		for (;;) {
+			ByteBuffer batch;
+			long batchLsn;
+			synchronized (this) {
+				while (flushing && durableLsn < lsn) {
+					waitForFlush();
+				}
+				if (durableLsn >= lsn) {
+					return;
+				}
+
+				// Become the leader, flush everything appended so far
+				flushing = true;
+				batch = pending;
+				batchLsn = nextLsn - 1;
+				pending = spare;
+				spare = null;
+			}
+
+			boolean written = false;
+			try {
+				batch.flip();
+				while (batch.hasRemaining()) {
+					channel.write(batch);
+				}
+				channel.force(false);
+				written = true;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				synchronized (this) {
+					if (written) {
+						size += batch.limit();
+						durableLsn = batchLsn;
+						syncs++;
+						batch.clear();
+						spare = batch;
+					} else {
+						// Put the records back in front of the newer ones so they are retried
+						batch.rewind();
+						ByteBuffer restored = ByteBuffer.allocate(batch.remaining() + pending.capacity());
+						restored.put(batch);
+						pending.flip();
+						restored.put(pending);
+						pending = restored;
+						spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+					}
+					flushing = false;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	private void waitForFlush() {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the log to be written", e);
+		}
+	}
+
+	/**
+	 * Passes each durable record with an lsn greater than the given lsn to the
+	 * consumer, in lsn order.
+	 *
+	 * @param afterLsn Records up to and including this lsn are skipped.
+	 * @param consumer Receives the lsn and payload of each record.
+	 */
+	public synchronized void replay(long afterLsn, BiConsumer<Long, ByteBuffer> consumer) {
+		try {
+			MappedByteBuffer log = channel.map(MapMode.READ_ONLY, 0, size);
+			ByteBuffer record;
+			while ((record = readRecord(log)) != null) {
+				long lsn = record.getLong();
+				if (lsn > afterLsn) {
+					consumer.accept(lsn, record.slice());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Makes every appended record durable and then empties the log, should only
+	 * be called once everything the records describe has been written elsewhere,
+	 * such as at a checkpoint. Lsns keep increasing after the log is emptied.
+	 */
+	public void truncate() {
+		commit(getLastLsn());
+		synchronized (this) {
+			while (flushing) {
+				waitForFlush();
+			}
+
+			try {
+				commitPendingLocked();
+				channel.truncate(0);
+				channel.position(0);
+				channel.force(false);
+				size = 0;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	// Records appended after the commit in truncate, written while holding the lock
+	private void commitPendingLocked() throws IOException {
+		if (pending.position() == 0) {
+			return;
+		}
+
+		pending.flip();
+		while (pending.hasRemaining()) {
+			channel.write(pending);
+		}
+		pending.clear();
+		channel.force(false);
+		durableLsn = nextLsn - 1;
+		syncs++;
+	}
+
+	/**
+	 * Makes sure the next lsn handed out is greater than the given lsn.
+	 *
+	 * @param lsn An lsn that was already used, such as the lsn of a checkpoint.
+	 */
+	public synchronized void advancePast(long lsn) {
+		if (nextLsn <= lsn) {
+			nextLsn = lsn + 1;
+			durableLsn = Math.max(durableLsn, lsn);
+		}
+	}
+
+	/**
+	 *
+	 * @return The lsn of the last appended record.
+	 */
+	public synchronized long getLastLsn() {
+		return nextLsn - 1;
+	}
+
+	/**
+	 *
+	 * @return The number of bytes written to the log file.
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @return The number of records appended.
+	 */
+	public synchronized long getAppends() {
+		return appends;
+	}
+
+	/**
+	 *
+	 * @return The number of times the log was forced to the storage device.
+	 */
+	public synchronized long getSyncs() {
+		return syncs;
+	}
+
+	@Override
+	public void close() throws IOException {
+		commit(getLastLsn());
+		channel.close();
+	}
+}
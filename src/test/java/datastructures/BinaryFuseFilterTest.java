@@ -0,0 +1,109 @@
+package datastructures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class BinaryFuseFilterTest {
+	private static final int TRIALS = 200000;
+
+	private static long[] randomHashes(int size, long seed) {
+		Random random = new Random(seed);
+		long[] hashes = new long[size];
+		for (int i = 0; i < size; i++) {
+			hashes[i] = random.nextLong();
+		}
+		return hashes;
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1, 2, 100, 10000, 1000000 })
+	public void falsePositiveRateTest(int size) {
+		long[] hashes = randomHashes(size, size);
+		BinaryFuseFilter filter = BinaryFuseFilter.build(hashes);
+		Assertions.assertEquals(size, filter.size());
+		for (long hash : hashes) {
+			Assertions.assertTrue(filter.contains(hash));
+		}
+
+		// Fresh random hashes are missing with overwhelming probability
+		long[] others = randomHashes(TRIALS, -size - 1);
+		int falsePositives = 0;
+		for (long hash : others) {
+			if (filter.contains(hash)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue((double) falsePositives / TRIALS < 0.005, "False positives: " + falsePositives);
+	}
+
+	@Test
+	public void sizeTest() {
+		BinaryFuseFilter filter = BinaryFuseFilter.build(randomHashes(1000000, 1));
+		double bitsPerKey = filter.getMemoryBytes() * 8.0 / filter.size();
+		Assertions.assertTrue(bitsPerKey < 9.2, "Bits per key: " + bitsPerKey);
+	}
+
+	@Test
+	public void duplicatesTest() {
+		long[] hashes = new long[1000];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = i % 100;
+		}
+		BinaryFuseFilter filter = BinaryFuseFilter.build(hashes);
+		Assertions.assertEquals(100, filter.size());
+		for (long hash : hashes) {
+			Assertions.assertTrue(filter.contains(hash));
+		}
+	}
+
+	@Test
+	public void writeAndMapTest(@TempDir Path directory) throws IOException {
+		long[] hashes = randomHashes(50000, 2);
+		BinaryFuseFilter filter = BinaryFuseFilter.build(hashes);
+		Path path = directory.resolve("filter");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			filter.writeTo(channel);
+		}
+
+		BinaryFuseFilter mapped = BinaryFuseFilter.mapFrom(path);
+		Assertions.assertEquals(filter.size(), mapped.size());
+		Assertions.assertEquals(filter.getMemoryBytes(), mapped.getMemoryBytes());
+		for (long hash : hashes) {
+			Assertions.assertTrue(mapped.contains(hash));
+		}
+		for (long hash : randomHashes(10000, 3)) {
+			Assertions.assertEquals(filter.contains(hash), mapped.contains(hash));
+		}
+	}
+
+	@Test
+	public void mapCorruptFileTest(@TempDir Path directory) throws IOException {
+		Path path = directory.resolve("filter");
+		Files.write(path, new byte[] { 1, 2, 3 });
+		Assertions.assertThrows(IOException.class, () -> BinaryFuseFilter.mapFrom(path));
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			BinaryFuseFilter.build(randomHashes(1000, 4)).writeTo(channel);
+			// Cut off the last fingerprint
+			channel.truncate(channel.size() - 1);
+		}
+		Assertions.assertThrows(IOException.class, () -> BinaryFuseFilter.mapFrom(path));
+
+		ByteBuffer header = ByteBuffer.allocate(32);
+		header.putInt(0x42465546).putInt(2);
+		Files.write(path, header.array());
+		Assertions.assertThrows(IOException.class, () -> BinaryFuseFilter.mapFrom(path));
+	}
+}
@@ -0,0 +1,40 @@
+package datastructures;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class BlockedBloomFilterTest {
+	@ParameterizedTest
+	@ValueSource(doubles = { 0.1, 0.01 })
+	public void falsePositiveRateTest(double falsePositiveRate) {
+		int insertions = 100000;
+		BlockedBloomFilter<Integer> filter = BlockedBloomFilter.create(insertions, falsePositiveRate);
+		for (int i = 0; i < insertions; i++) {
+			filter.insert(i);
+		}
+		for (int i = 0; i < insertions; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+
+		int falsePositives = 0;
+		for (int i = insertions; i < insertions * 2; i++) {
+			if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		// Blocking costs some accuracy at the same size
+		Assertions.assertTrue((double) falsePositives / insertions < falsePositiveRate * 1.5);
+	}
+
+	@Test
+	public void sizingTest() {
+		BlockedBloomFilter<String> filter = BlockedBloomFilter.create(1000, 0.01);
+		Assertions.assertEquals(19 * 512, filter.getNumBits());
+		Assertions.assertEquals(7, filter.getNumHashes());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BlockedBloomFilter.create(0, 0.01));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new BlockedBloomFilter<>(0, 1, s -> 0));
+	}
+}
@@ -0,0 +1,171 @@
+package datastructures;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class BloomFilterTest {
+	@TempDir
+	public Path tempDir;
+
+	private static void write(BloomFilter<?> filter, Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			filter.writeTo(channel);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(doubles = { 0.1, 0.01, 0.001 })
+	public void falsePositiveRateTest(double falsePositiveRate) {
+		int insertions = 100000;
+		BloomFilter<Integer> filter = BloomFilter.create(insertions, falsePositiveRate);
+		for (int i = 0; i < insertions; i++) {
+			filter.insert(i);
+		}
+		for (int i = 0; i < insertions; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+
+		int falsePositives = 0;
+		for (int i = insertions; i < insertions * 2; i++) {
+			if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue((double) falsePositives / insertions < falsePositiveRate * 1.5);
+	}
+
+	@Test
+	public void sizingTest() {
+		// 9.585 bits and 7 hashes per item for 1%
+		BloomFilter<String> filter = BloomFilter.create(1000, 0.01);
+		Assertions.assertEquals(9586, filter.getNumBits());
+		Assertions.assertEquals(7, filter.getNumHashes());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(1000, 1));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(Long.MAX_VALUE / 2, 0.01));
+	}
+
+	@Test
+	public void hashFunctionsTest() {
+		BloomFilter<String> filter = new BloomFilter<>(1024, String::hashCode, s -> s.hashCode() * 31 + 7);
+		filter.insert("a");
+		filter.insert("hash code that is negative");
+		Assertions.assertTrue(filter.contains("a"));
+		Assertions.assertTrue(filter.contains("hash code that is negative"));
+		Assertions.assertFalse(filter.contains("b"));
+		Assertions.assertEquals(2, filter.getNumHashes());
+
+		BloomFilter<Object> defaultFilter = new BloomFilter<>();
+		defaultFilter.insert(1);
+		Assertions.assertTrue(defaultFilter.contains(1));
+	}
+
+	@Test
+	public void writeAndMapTest() throws IOException {
+		BloomFilter<Integer> filter = BloomFilter.create(100000, 0.01, 42);
+		for (int i = 0; i < 100000; i += 2) {
+			filter.insert(i);
+		}
+		Path path = tempDir.resolve("filter");
+		write(filter, path);
+
+		BloomFilter<Integer> mapped = BloomFilter.mapFrom(path);
+		Assertions.assertEquals(filter.getNumBits(), mapped.getNumBits());
+		Assertions.assertEquals(filter.getNumHashes(), mapped.getNumHashes());
+		for (int i = 0; i < 200000; i++) {
+			Assertions.assertEquals(filter.contains(i), mapped.contains(i));
+		}
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> mapped.insert(1));
+
+		// A mapped filter can be written again
+		Path copy = tempDir.resolve("copy");
+		write(mapped, copy);
+		Assertions.assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(copy));
+
+		Assertions.assertThrows(UnsupportedOperationException.class,
+				() -> write(new BloomFilter<>(64, String::hashCode), tempDir.resolve("hashes")));
+	}
+
+	@Test
+	public void mapCustomHashTest() throws IOException {
+		BloomFilter.LongHashable<Integer> hash = i -> i * 0x9E3779B97F4A7C15L;
+		BloomFilter<Integer> filter = BloomFilter.create(1000, 0.01, hash);
+		for (int i = 0; i < 1000; i++) {
+			filter.insert(i);
+		}
+		Path path = tempDir.resolve("filter");
+		write(filter, path);
+
+		// The default hash would give false negatives
+		Assertions.assertThrows(IOException.class, () -> BloomFilter.mapFrom(path));
+		BloomFilter<Integer> mapped = BloomFilter.mapFrom(path, hash);
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertTrue(mapped.contains(i));
+		}
+
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> mapped.union(BloomFilter.create(1000, 0.01)));
+	}
+
+	@Test
+	public void mapCorruptFileTest() throws IOException {
+		Path path = tempDir.resolve("filter");
+		write(BloomFilter.create(1000, 0.01), path);
+		byte[] bytes = Files.readAllBytes(path);
+
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+		Assertions.assertThrows(IOException.class, () -> BloomFilter.mapFrom(path));
+
+		bytes[7] = 2;
+		Files.write(path, bytes);
+		Assertions.assertThrows(IOException.class, () -> BloomFilter.mapFrom(path));
+
+		Files.write(path, new byte[] { 1, 2, 3 });
+		Assertions.assertThrows(IOException.class, () -> BloomFilter.mapFrom(path));
+	}
+
+	@Test
+	public void unionAndIntersectTest() throws IOException {
+		BloomFilter<Integer> evens = BloomFilter.create(10000, 0.01);
+		BloomFilter<Integer> lows = BloomFilter.create(10000, 0.01);
+		for (int i = 0; i < 10000; i++) {
+			evens.insert(i * 2);
+			lows.insert(i);
+		}
+		Path path = tempDir.resolve("lows");
+		write(lows, path);
+		BloomFilter<Integer> mappedLows = BloomFilter.mapFrom(path);
+
+		BloomFilter<Integer> union = evens.union(mappedLows);
+		BloomFilter<Integer> intersection = evens.intersect(mappedLows);
+		for (int i = 0; i < 10000; i++) {
+			Assertions.assertTrue(union.contains(i));
+			Assertions.assertTrue(union.contains(i * 2));
+			if (i % 2 == 0) {
+				Assertions.assertTrue(intersection.contains(i));
+			}
+		}
+		int falsePositives = 0;
+		for (int i = 10001; i < 20000; i += 2) {
+			if (intersection.contains(i)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue(falsePositives < 5000 * 0.02);
+		union.insert(-1);
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> evens.union(BloomFilter.create(20000, 0.01)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> evens.union(BloomFilter.create(10000, 0.01, 1)));
+	}
+}
@@ -0,0 +1,60 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentBloomFilterTest {
+	@Test
+	public void concurrentInsertTest() throws Exception {
+		int threads = 8;
+		int insertionsPerThread = 50000;
+		ConcurrentBloomFilter<Integer> filter = ConcurrentBloomFilter.create(threads * insertionsPerThread, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int first = t * insertionsPerThread;
+				futures.add(executor.submit(() -> {
+					for (int i = first; i < first + insertionsPerThread; i++) {
+						filter.insert(i);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		int insertions = threads * insertionsPerThread;
+		for (int i = 0; i < insertions; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+
+		int falsePositives = 0;
+		for (int i = insertions; i < insertions * 2; i++) {
+			if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue((double) falsePositives / insertions < 0.015);
+		Assertions.assertEquals(insertions, filter.approximateCount(), insertions * 0.03);
+	}
+
+	@Test
+	public void insertTest() {
+		ConcurrentBloomFilter<String> filter = ConcurrentBloomFilter.create(1000, 0.01);
+		Assertions.assertEquals(0, filter.approximateCount());
+		Assertions.assertTrue(filter.insert("a"));
+		Assertions.assertFalse(filter.insert("a"));
+		Assertions.assertTrue(filter.contains("a"));
+		Assertions.assertEquals(1, filter.approximateCount());
+	}
+}
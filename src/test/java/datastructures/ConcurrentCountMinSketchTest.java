@@ -0,0 +1,63 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentCountMinSketchTest {
+	@Test
+	public void concurrentInsertTest() throws Exception {
+		int threads = 8;
+		int keys = 10000;
+		ConcurrentCountMinSketch<Integer> sketch = ConcurrentCountMinSketch.create(0.0001, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					start.countDown();
+					start.await();
+					// Key i is counted i + 1 times by every thread, one weighted insert and
+					// one single insert so the threads still race on the same counters
+					for (int i = 0; i < keys; i++) {
+						sketch.insert(i, i);
+						sketch.insert(i);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		long total = (long) threads * keys * (keys + 1) / 2;
+		Assertions.assertEquals(total, sketch.getTotalCount());
+		for (int i = 0; i < keys; i++) {
+			int count = sketch.count(i);
+			Assertions.assertTrue(count >= threads * (i + 1));
+			Assertions.assertTrue(count <= threads * (i + 1) + 0.0001 * total * 2);
+		}
+	}
+
+	@Test
+	public void saturationTest() {
+		ConcurrentCountMinSketch<String> sketch = new ConcurrentCountMinSketch<>(16, 3, BloomFilter::hashCodeMix);
+		Assertions.assertEquals(0, sketch.count("a"));
+		sketch.insert("a", Integer.MAX_VALUE - 1);
+		sketch.insert("a");
+		sketch.insert("a", 5);
+		Assertions.assertEquals(Integer.MAX_VALUE, sketch.count("a"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> sketch.insert("a", -1));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ConcurrentCountMinSketch.create(0, 0.01));
+	}
+}
@@ -0,0 +1,172 @@
+package datastructures;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ConcurrentExtendibleHashTableTest {
+	private static final int THREADS = 8;
+	private static final int KEYS_PER_THREAD = 5000;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void init() {
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	public void cleanUp() {
+		executor.shutdownNow();
+	}
+
+	private void runConcurrently(Callable<Void> task) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return task.call();
+			}));
+		}
+		start.countDown();
+		for (Future<Void> future : futures) {
+			future.get();
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 4, 16 })
+	public void concurrentPutGetRemoveTest(int bucketSize) throws Exception {
+		ConcurrentExtendibleHashTable<Integer, Integer> hashtable = new ConcurrentExtendibleHashTable<>(bucketSize);
+		AtomicInteger threadIds = new AtomicInteger();
+
+		runConcurrently(() -> {
+			int offset = threadIds.getAndIncrement() * KEYS_PER_THREAD;
+			for (int key = offset; key < offset + KEYS_PER_THREAD; key++) {
+				Assertions.assertNull(hashtable.put(key, key));
+				// Keys written earlier by this thread must survive other threads' splits
+				int earlier = offset + (key - offset) / 2;
+				Assertions.assertEquals(earlier, hashtable.get(earlier));
+			}
+			return null;
+		});
+
+		Assertions.assertEquals(THREADS * KEYS_PER_THREAD, hashtable.size());
+		Assertions.assertEquals(THREADS * KEYS_PER_THREAD, hashtable.entrySet().size());
+		for (int key = 0; key < THREADS * KEYS_PER_THREAD; key++) {
+			Assertions.assertEquals(key, hashtable.get(key));
+		}
+
+		threadIds.set(0);
+		runConcurrently(() -> {
+			int offset = threadIds.getAndIncrement() * KEYS_PER_THREAD;
+			for (int key = offset; key < offset + KEYS_PER_THREAD; key += 2) {
+				Assertions.assertEquals(key, hashtable.remove(key));
+			}
+			return null;
+		});
+
+		Assertions.assertEquals(THREADS * KEYS_PER_THREAD / 2, hashtable.size());
+		for (int key = 0; key < THREADS * KEYS_PER_THREAD; key++) {
+			Assertions.assertEquals(key % 2 == 0 ? null : key, hashtable.get(key));
+		}
+	}
+
+	@Test
+	public void putIfAbsentSingleWinnerTest() throws Exception {
+		ConcurrentExtendibleHashTable<Integer, Integer> hashtable = new ConcurrentExtendibleHashTable<>(2);
+		AtomicInteger threadIds = new AtomicInteger();
+		AtomicInteger wins = new AtomicInteger();
+
+		runConcurrently(() -> {
+			int threadId = threadIds.getAndIncrement();
+			for (int key = 0; key < KEYS_PER_THREAD; key++) {
+				if (hashtable.putIfAbsent(key, threadId) == null) {
+					wins.incrementAndGet();
+				}
+			}
+			return null;
+		});
+
+		Assertions.assertEquals(KEYS_PER_THREAD, wins.get());
+		Assertions.assertEquals(KEYS_PER_THREAD, hashtable.size());
+	}
+
+	@Test
+	public void concurrentIncrementTest() throws Exception {
+		ConcurrentExtendibleHashTable<Integer, Integer> hashtable = new ConcurrentExtendibleHashTable<>(4);
+		final int keys = 64;
+		final int increments = 2048;
+
+		runConcurrently(() -> {
+			for (int i = 0; i < increments; i++) {
+				hashtable.merge(i % keys, 1, Integer::sum);
+			}
+			return null;
+		});
+
+		for (int key = 0; key < keys; key++) {
+			Assertions.assertEquals(THREADS * increments / keys, hashtable.get(key));
+		}
+	}
+
+	@Test
+	public void sameHashTest() {
+		ConcurrentExtendibleHashTable<Integer, Integer> hashtable = new ConcurrentExtendibleHashTable<>(2, key -> 7);
+		hashtable.put(1, 1);
+		hashtable.put(2, 2);
+		Assertions.assertThrows(IllegalStateException.class, () -> hashtable.put(3, 3));
+		Assertions.assertEquals(2, hashtable.size());
+	}
+
+	@Test
+	public void liveViewsTest() {
+		ConcurrentExtendibleHashTable<Integer, Integer> hashtable = new ConcurrentExtendibleHashTable<>(4);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			hashtable.put(i, i * 2);
+			expected.put(i, i * 2);
+		}
+		Assertions.assertEquals(expected, hashtable);
+		Assertions.assertEquals(expected.hashCode(), hashtable.hashCode());
+		Assertions.assertEquals(expected.entrySet(), hashtable.entrySet());
+		Assertions.assertTrue(hashtable.entrySet().contains(new SimpleEntry<>(3, 6)));
+		Assertions.assertFalse(hashtable.entrySet().contains(new SimpleEntry<>(3, 7)));
+
+		Assertions.assertTrue(hashtable.keySet().remove(3));
+		Assertions.assertFalse(hashtable.containsKey(3));
+		Assertions.assertTrue(hashtable.values().remove(8));
+		Assertions.assertFalse(hashtable.containsKey(4));
+		Assertions.assertTrue(hashtable.entrySet().remove(new SimpleEntry<>(5, 10)));
+		Assertions.assertFalse(hashtable.containsKey(5));
+
+		// Removing through the iterator while the table splits under it
+		for (Iterator<Integer> iterator = hashtable.keySet().iterator(); iterator.hasNext();) {
+			int key = iterator.next();
+			if (key % 2 == 1) {
+				iterator.remove();
+			}
+			hashtable.put(key + 1000, key);
+		}
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertEquals(i % 2 == 0 && i != 4, hashtable.containsKey(i), "key " + i);
+		}
+	}
+}
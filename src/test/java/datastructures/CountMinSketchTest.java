@@ -0,0 +1,103 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CountMinSketchTest {
+	private static final int CAPACITY = 1000;
+
+	@SuppressWarnings("unchecked")
+	private static CountMinSketch.Hashable<Integer>[] hashFunctions() {
+		CountMinSketch.Hashable<Integer>[] hashers = new CountMinSketch.Hashable[4];
+		for (int i = 0; i < hashers.length; i++) {
+			long seed = 0x9E3779B97F4A7C15L * (i + 1);
+			hashers[i] = key -> {
+				long hash = (key ^ seed) * 0xFF51AFD7ED558CCDL;
+				return (int) (hash ^ (hash >>> 32));
+			};
+		}
+		return hashers;
+	}
+
+	// Skewed counts, a few keys take most of the insertions
+	private static Map<Integer, Integer> insertSkewed(CountMinSketch<Integer> sketch, int keys, long seed) {
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(seed);
+		for (int i = 0; i < keys; i++) {
+			int key = random.nextInt();
+			int count = 1 + 10000 / (i + 1);
+			sketch.insert(key, count);
+			expected.merge(key, count, Integer::sum);
+		}
+		return expected;
+	}
+
+	private static long totalError(CountMinSketch<Integer> sketch, Map<Integer, Integer> expected) {
+		long error = 0;
+		for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+			int count = sketch.count(entry.getKey());
+			Assertions.assertTrue(count >= entry.getValue());
+			error += count - entry.getValue();
+		}
+		return error;
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	public void neverUnderestimatesTest(boolean conservativeUpdate) {
+		CountMinSketch<Integer> sketch = new CountMinSketch<>(CAPACITY, conservativeUpdate, hashFunctions());
+		Map<Integer, Integer> expected = insertSkewed(sketch, 5000, 1);
+		totalError(sketch, expected);
+		Assertions.assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(),
+				sketch.getTotalCount());
+	}
+
+	@Test
+	public void conservativeUpdateTest() {
+		CountMinSketch<Integer> sketch = new CountMinSketch<>(CAPACITY, hashFunctions());
+		CountMinSketch<Integer> conservative = new CountMinSketch<>(CAPACITY, true, hashFunctions());
+		long error = totalError(sketch, insertSkewed(sketch, 5000, 2));
+		long conservativeError = totalError(conservative, insertSkewed(conservative, 5000, 2));
+		Assertions.assertTrue(conservativeError < error, conservativeError + " against " + error);
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> conservative.remove(1));
+	}
+
+	@Test
+	public void insertAndRemoveTest() {
+		CountMinSketch<String> sketch = new CountMinSketch<>();
+		// Objects.hash of this key is negative
+		sketch.insert("negative hash");
+		sketch.insert("negative hash", 3);
+		Assertions.assertEquals(4, sketch.count("negative hash"));
+		sketch.remove("negative hash");
+		Assertions.assertEquals(3, sketch.count("negative hash"));
+		sketch.insert("negative hash", Integer.MAX_VALUE);
+		Assertions.assertEquals(Integer.MAX_VALUE, sketch.count("negative hash"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> sketch.insert("a", -1));
+	}
+
+	@Test
+	public void mergeTest() {
+		CountMinSketch.Hashable<Integer>[] hashers = hashFunctions();
+		CountMinSketch<Integer> first = new CountMinSketch<>(CAPACITY, true, hashers);
+		CountMinSketch<Integer> second = new CountMinSketch<>(CAPACITY, true, hashers);
+		Map<Integer, Integer> expected = insertSkewed(first, 2000, 3);
+		insertSkewed(second, 2000, 4).forEach((key, count) -> expected.merge(key, count, Integer::sum));
+
+		first.merge(second);
+		totalError(first, expected);
+		Assertions.assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(),
+				first.getTotalCount());
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> first.merge(new CountMinSketch<>(CAPACITY * 2, hashers)));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> first.merge(new CountMinSketch<>(CAPACITY, Arrays.copyOf(hashers, 2))));
+	}
+}
@@ -0,0 +1,70 @@
+package datastructures;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CuckooFilterTest {
+	@ParameterizedTest
+	@ValueSource(doubles = { 0.03, 0.01, 0.001, 0.0002 })
+	public void insertRemoveTest(double falsePositiveRate) {
+		int insertions = 100000;
+		CuckooFilter<Integer> filter = CuckooFilter.create(insertions, falsePositiveRate);
+		for (int i = 0; i < insertions; i++) {
+			Assertions.assertTrue(filter.insert(i));
+		}
+		Assertions.assertEquals(insertions, filter.size());
+		for (int i = 0; i < insertions; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+
+		int falsePositives = 0;
+		for (int i = insertions; i < insertions * 2; i++) {
+			if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue((double) falsePositives / insertions < falsePositiveRate);
+
+		for (int i = 0; i < insertions; i += 2) {
+			Assertions.assertTrue(filter.remove(i));
+		}
+		for (int i = 1; i < insertions; i += 2) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+		Assertions.assertEquals(insertions / 2, filter.size());
+	}
+
+	@Test
+	public void fillUpTest() {
+		CuckooFilter<Integer> filter = new CuckooFilter<>(1024, 12, BloomFilter::hashCodeMix);
+		int inserted = 0;
+		while (filter.insert(inserted)) {
+			inserted++;
+		}
+		Assertions.assertTrue(filter.getLoadFactor() > 0.9);
+		Assertions.assertEquals(inserted, filter.size());
+		for (int i = 0; i < inserted; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+
+		// Removing makes room for the victim and the next insert
+		for (int i = 0; i < inserted; i += 2) {
+			Assertions.assertTrue(filter.remove(i));
+		}
+		Assertions.assertTrue(filter.insert(inserted));
+		for (int i = 1; i <= inserted; i += 2) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+	}
+
+	@Test
+	public void sizingTest() {
+		CuckooFilter<String> filter = CuckooFilter.create(1000, 0.01);
+		Assertions.assertEquals(10, filter.getFingerprintBits());
+		// 264 buckets of 40 bits each
+		Assertions.assertEquals((264 * 40 / 64 + 1) * 8, filter.getMemoryBytes());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> CuckooFilter.create(1000, 0.00001));
+	}
+}
@@ -1,8 +1,26 @@
 package datastructures;
 
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -30,6 +48,428 @@ public class ExtendibleHashTableTest {
 
 	public ExtendibleHashTable<Integer, String> hashtable;
 
+	@ParameterizedTest
+	@MethodSource("bucketSizes")
+	public void randomOperationsTest(int bucketSize) {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(bucketSize);
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(bucketSize);
+
+		for (int i = 0; i < 50000; i++) {
+			int key = random.nextInt(2048);
+			if (random.nextInt(3) == 0) {
+				Assertions.assertEquals(expected.remove(key), table.remove(key));
+			} else {
+				Assertions.assertEquals(expected.put(key, "value" + i), table.put(key, "value" + i));
+			}
+			Assertions.assertEquals(expected.size(), table.size());
+		}
+
+		for (int key = 0; key < 2048; key++) {
+			Assertions.assertEquals(expected.get(key), table.get(key));
+		}
+		Assertions.assertEquals(expected.entrySet(), table.entrySet());
+	}
+
+	@ParameterizedTest
+	@MethodSource("bucketSizes")
+	public void snapshotTest(int bucketSize) {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(bucketSize);
+		Map<Integer, String> expected = new HashMap<>();
+		List<Map<Integer, String>> snapshots = new ArrayList<>();
+		List<Map<Integer, String>> expectedSnapshots = new ArrayList<>();
+		Random random = new Random(bucketSize);
+
+		// Grows the directory past a single segment and collapses it again
+		for (int round = 0; round < 6; round++) {
+			int keys = round % 2 == 0 ? 20000 : 64;
+			for (int i = 0; i < 30000; i++) {
+				int key = random.nextInt(keys);
+				if (random.nextInt(3) == 0) {
+					Assertions.assertEquals(expected.remove(key), table.remove(key));
+				} else {
+					Assertions.assertEquals(expected.put(key, "value" + i), table.put(key, "value" + i));
+				}
+			}
+			for (Iterator<Integer> iterator = table.keySet().iterator(); iterator.hasNext();) {
+				Integer key = iterator.next();
+				if (key % 7 == round) {
+					iterator.remove();
+					expected.remove(key);
+				}
+			}
+
+			snapshots.add(table.snapshot());
+			expectedSnapshots.add(new HashMap<>(expected));
+		}
+
+		Assertions.assertEquals(expected, table);
+		for (int i = 0; i < snapshots.size(); i++) {
+			Assertions.assertEquals(expectedSnapshots.get(i), snapshots.get(i));
+			Assertions.assertEquals(expectedSnapshots.get(i).size(), snapshots.get(i).size());
+		}
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshots.get(0).put(1, "1"));
+	}
+
+	@Test
+	public void snapshotReadWhileWritingTest() throws InterruptedException {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(4);
+		for (int i = 0; i < 10000; i++) {
+			table.put(i, "value" + i);
+		}
+		Map<Integer, String> snapshot = table.snapshot();
+
+		AtomicInteger mismatches = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			for (int round = 0; round < 20; round++) {
+				for (int i = 0; i < 10000; i++) {
+					if (!("value" + i).equals(snapshot.get(i))) {
+						mismatches.incrementAndGet();
+					}
+				}
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 10000; i++) {
+			table.remove(i);
+			table.put(i + 10000, "other");
+		}
+		reader.join();
+
+		Assertions.assertEquals(0, mismatches.get());
+		Assertions.assertEquals(10000, snapshot.size());
+		Assertions.assertNull(table.get(0));
+	}
+
+	@ParameterizedTest
+	@MethodSource("bucketSizes")
+	public void statsTest(int bucketSize) {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(bucketSize,
+				ExtendibleHashTable.DEFAULT_HASHER, true);
+		Random random = new Random(bucketSize);
+		for (int i = 0; i < 50000; i++) {
+			int key = random.nextInt(4096);
+			if (random.nextInt(3) == 0) {
+				table.remove(key);
+			} else {
+				table.put(key, "value" + i);
+			}
+		}
+		for (int key = 16; key < 4096; key++) {
+			table.remove(key);
+		}
+
+		ExtendibleHashTableStats stats = table.getStats();
+		Assertions.assertTrue(stats.getSplits() > 0);
+		Assertions.assertTrue(stats.getDirectoryCollapses() > 0);
+		Assertions.assertEquals(stats.getGlobalDepth() - 1,
+				stats.getDirectoryDoublings() - stats.getDirectoryCollapses());
+
+		// Every directory index is covered by exactly one bucket
+		long[] localDepths = stats.getLocalDepthHistogram();
+		long coveredIndices = 0;
+		for (int depth = 0; depth <= stats.getGlobalDepth(); depth++) {
+			coveredIndices += localDepths[depth] << (stats.getGlobalDepth() - depth);
+		}
+		Assertions.assertEquals(1L << stats.getGlobalDepth(), coveredIndices);
+		Assertions.assertEquals(table.size(),
+				Math.round(stats.getAverageBucketFill() * stats.getDistinctBuckets() * bucketSize));
+		Assertions.assertTrue(stats.getMaxBucketFill() <= bucketSize);
+
+		for (int key = 0; key < 64; key++) {
+			table.get(key);
+		}
+		Assertions.assertEquals(64, stats.getGets());
+		Assertions.assertTrue(stats.getAverageKeysScannedPerGet() <= bucketSize);
+	}
+
+	@Test
+	public void statsDetectBadHasherTest() throws Exception {
+		// Only the high bits differ so every split moves the keys to one side
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(4, key -> (Integer) key << 20,
+				true);
+		for (int i = 0; i < 64; i++) {
+			table.put(i, "value" + i);
+		}
+
+		ExtendibleHashTableStats stats = table.getStats();
+		// A huge directory for a handful of buckets
+		Assertions.assertTrue(stats.getGlobalDepth() > 20);
+		Assertions.assertTrue(stats.getDistinctBuckets() < 64);
+		Assertions.assertTrue(stats.getLocalDepthHistogram()[1] > 0);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("datastructures:type=ExtendibleHashTable,name=statsDetectBadHasherTest");
+		server.registerMBean(stats, name);
+		try {
+			Assertions.assertEquals(stats.getSplits(), server.getAttribute(name, "Splits"));
+			Assertions.assertEquals(stats.getGlobalDepth(), server.getAttribute(name, "GlobalDepth"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+
+		Assertions.assertThrows(IllegalStateException.class, () -> new ExtendibleHashTable<>().getStats());
+	}
+
+	@ParameterizedTest
+	@MethodSource("bucketSizes")
+	public void overflowChainTest(int bucketSize) {
+		// Runs of 64 keys share a hash, so buckets both overflow and split
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(bucketSize, key -> (Integer) key / 64,
+				true);
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(bucketSize);
+
+		for (int i = 0; i < 50000; i++) {
+			int key = random.nextInt(1024);
+			int operation = random.nextInt(4);
+			if (operation == 0) {
+				Assertions.assertEquals(expected.remove(key), table.remove(key));
+			} else if (operation == 1 && i % 100 == 0) {
+				for (Iterator<Integer> iterator = table.keySet().iterator(); iterator.hasNext();) {
+					if (iterator.next() % 13 == key % 13) {
+						iterator.remove();
+					}
+				}
+				expected.keySet().removeIf(k -> k % 13 == key % 13);
+			} else {
+				Assertions.assertEquals(expected.put(key, "value" + i), table.put(key, "value" + i));
+			}
+			Assertions.assertEquals(expected.size(), table.size());
+		}
+
+		Assertions.assertEquals(expected, table);
+		for (int key = 0; key < 1024; key++) {
+			Assertions.assertEquals(expected.get(key), table.get(key));
+		}
+		Assertions.assertEquals(expected.size(), table.keySet().parallelStream().count());
+		Assertions.assertTrue(table.getStats().getOverflowBuckets() > 0 || bucketSize == 16);
+
+		for (int key = 0; key < 1024; key++) {
+			table.remove(key);
+		}
+		Assertions.assertTrue(table.isEmpty());
+		Assertions.assertEquals(0, table.getStats().getOverflowBuckets());
+		Assertions.assertEquals(1, table.getStats().getGlobalDepth());
+	}
+
+	@Test
+	public void sameHashTest() {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(4, key -> 7);
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertNull(table.put(i, "value" + i));
+		}
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertEquals("value" + i, table.get(i));
+		}
+		Assertions.assertEquals(100, table.entrySet().size());
+	}
+
+	@Test
+	public void duplicateKeysTest() {
+		ExtendibleHashTable<String, Integer> table = new ExtendibleHashTable<>(4, ExtendibleHashTable.DEFAULT_HASHER,
+				false, true);
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertNull(table.put("key" + i % 10, i));
+		}
+		Assertions.assertEquals(1000, table.size());
+		Assertions.assertEquals(3, table.get("key3"));
+
+		List<Integer> values = new ArrayList<>();
+		table.getValues("key3").forEachRemaining(values::add);
+		Assertions.assertEquals(IntStream.range(0, 100).mapToObj(i -> i * 10 + 3).collect(Collectors.toList()),
+				values);
+		Assertions.assertFalse(table.getValues("missing").hasNext());
+
+		Iterator<Integer> streaming = table.getValues("key4");
+		streaming.next();
+		table.put("key4", -1);
+		Assertions.assertThrows(ConcurrentModificationException.class, streaming::next);
+
+		Map<String, Integer> snapshot = table.snapshot();
+		Assertions.assertTrue(table.remove("key5", 505));
+		Assertions.assertFalse(table.remove("key5", 505));
+		Assertions.assertTrue(table.entrySet().contains(new SimpleEntry<>("key5", 515)));
+		Assertions.assertFalse(table.entrySet().contains(new SimpleEntry<>("key5", 505)));
+		Assertions.assertEquals(1000, table.size());
+
+		Assertions.assertEquals(5, table.remove("key5"));
+		Assertions.assertFalse(table.containsKey("key5"));
+		Assertions.assertEquals(901, table.size());
+		Assertions.assertEquals(1001, snapshot.size());
+		Assertions.assertEquals(100, snapshot.entrySet().stream().filter(e -> e.getKey().equals("key5")).count());
+
+		for (Entry<String, Integer> entry : table.entrySet()) {
+			if (entry.getKey().equals("key1")) {
+				entry.setValue(-entry.getValue());
+			}
+		}
+		table.getValues("key1").forEachRemaining(value -> Assertions.assertTrue(value <= 0));
+		Assertions.assertEquals(901, table.size());
+	}
+
+	@Test
+	public void duplicateKeySetTest() {
+		ExtendibleHashTable<Integer, Integer> table = new ExtendibleHashTable<>(4, ExtendibleHashTable.DEFAULT_HASHER,
+				false, true);
+		for (int i = 0; i < 3000; i++) {
+			table.put(i % 500, i);
+		}
+		Assertions.assertEquals(3000, table.size());
+
+		Set<Integer> keys = table.keySet();
+		List<Integer> iterated = new ArrayList<>();
+		keys.forEach(iterated::add);
+		Assertions.assertEquals(500, iterated.size());
+		Assertions.assertEquals(IntStream.range(0, 500).boxed().collect(Collectors.toSet()), keys);
+		Assertions.assertEquals(500, keys.size());
+		Assertions.assertEquals(500, keys.parallelStream().count());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> {
+			Iterator<Integer> iterator = keys.iterator();
+			iterator.next();
+			iterator.remove();
+		});
+
+		Assertions.assertTrue(keys.remove(7));
+		Assertions.assertFalse(table.containsKey(7));
+		Assertions.assertEquals(499, keys.size());
+		Assertions.assertEquals(2994, table.size());
+	}
+
+	public static Stream<Arguments> bucketSizes() {
+		return Stream.of(Arguments.of(1), Arguments.of(4), Arguments.of(16));
+	}
+
+	@Test
+	public void liveViewsTest() {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>();
+		Set<Integer> keys = table.keySet();
+		for (int i = 0; i < 10000; i++) {
+			table.put(i, i + "");
+		}
+
+		Assertions.assertEquals(10000, keys.size());
+		Assertions.assertEquals(IntStream.range(0, 10000).boxed().collect(Collectors.toSet()), keys);
+		Assertions.assertTrue(table.values().contains("9999"));
+
+		// Remove the odd keys through the iterator
+		for (Iterator<Integer> iterator = keys.iterator(); iterator.hasNext();) {
+			if (iterator.next() % 2 == 1) {
+				iterator.remove();
+			}
+		}
+		Assertions.assertEquals(5000, table.size());
+		for (int i = 0; i < 10000; i++) {
+			Assertions.assertEquals(i % 2 == 0 ? i + "" : null, table.get(i));
+		}
+
+		for (Entry<Integer, String> entry : table.entrySet()) {
+			entry.setValue("x" + entry.getKey());
+		}
+		Assertions.assertEquals("x42", table.get(42));
+
+		// Iterating reuses one entry, toArray copies them
+		Iterator<Entry<Integer, String>> entries = table.entrySet().iterator();
+		Assertions.assertSame(entries.next(), entries.next());
+		Object[] copies = table.entrySet().toArray();
+		Assertions.assertEquals(5000, new HashSet<>(Arrays.asList(copies)).size());
+		Assertions.assertEquals(new HashMap<>(table), table);
+
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> {
+			for (Integer key : table.keySet()) {
+				table.remove(key);
+			}
+		});
+	}
+
+	@Test
+	public void parallelStreamTest() {
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(16);
+		for (int i = 0; i < 100000; i++) {
+			table.put(i, i + "");
+		}
+
+		Assertions.assertEquals(100000, table.entrySet().parallelStream().count());
+		Assertions.assertEquals(IntStream.range(0, 100000).sum(),
+				table.keySet().parallelStream().mapToInt(Integer::intValue).sum());
+		Assertions.assertEquals(100000,
+				table.values().parallelStream().collect(Collectors.toSet()).size());
+	}
+
+	@ParameterizedTest
+	@MethodSource("bucketSizes")
+	public void bulkLoadTest(int bucketSize) {
+		List<Entry<Integer, String>> entries = new ArrayList<>();
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(bucketSize);
+		for (int i = 0; i < 100000; i++) {
+			// Duplicate keys, the last one wins
+			int key = random.nextInt(80000);
+			entries.add(new SimpleEntry<>(key, "value" + i));
+			expected.put(key, "value" + i);
+		}
+
+		for (boolean parallel : new boolean[] { false, true }) {
+			ExtendibleHashTable<Integer, String> table = ExtendibleHashTable.bulkLoad(entries, bucketSize,
+					ExtendibleHashTable.DEFAULT_HASHER, parallel);
+			Assertions.assertEquals(expected.size(), table.size());
+			Assertions.assertEquals(expected.entrySet(), table.entrySet());
+
+			// The table keeps working after a bulk load
+			table.put(-1, "new");
+			Assertions.assertEquals("value99999", table.get(entries.get(99999).getKey()));
+			Assertions.assertEquals("new", table.remove(-1));
+		}
+	}
+
+	@Test
+	public void putAllAndGetAllTest() {
+		Map<Integer, String> expected = new HashMap<>();
+		for (int i = 0; i < 20000; i++) {
+			expected.put(i * 7, "value" + i);
+		}
+
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>();
+		table.put(7, "replaced");
+		table.put(-7, "kept");
+		table.putAll(expected);
+		Assertions.assertEquals(expected.size() + 1, table.size());
+		Assertions.assertEquals("value1", table.get(7));
+		Assertions.assertEquals("kept", table.get(-7));
+
+		List<Integer> lookups = new ArrayList<>();
+		for (int i = -10; i < 1000; i++) {
+			lookups.add(i);
+		}
+		Map<Integer, String> found = table.getAll(lookups);
+		Map<Integer, String> expectedFound = new HashMap<>();
+		for (int key : lookups) {
+			if (table.containsKey(key)) {
+				expectedFound.put(key, table.get(key));
+			}
+		}
+		Assertions.assertEquals(expectedFound, found);
+		Assertions.assertEquals(1000 / 7 + 2, found.size());
+	}
+
+	@Test
+	public void keysAreHashedOnceTest() {
+		AtomicInteger hashes = new AtomicInteger();
+		ExtendibleHashTable<Integer, String> table = new ExtendibleHashTable<>(8, key -> {
+			hashes.incrementAndGet();
+			return key.hashCode();
+		});
+
+		for (int i = 0; i < 10000; i++) {
+			table.put(i, i + "");
+		}
+		// Splits reuse the stored hashes
+		Assertions.assertEquals(10000, hashes.get());
+		for (int i = 0; i < 10000; i++) {
+			Assertions.assertEquals(i + "", table.get(i));
+		}
+	}
+
 	@TestInstance(Lifecycle.PER_CLASS)
 	@TestMethodOrder(OrderAnnotation.class)
 	public class ManySplitsTester {
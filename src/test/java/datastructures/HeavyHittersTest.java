@@ -0,0 +1,84 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HeavyHittersTest {
+	@Test
+	public void concurrentTopKTest() throws Exception {
+		int threads = 8;
+		int keys = 100000;
+		int k = 20;
+		HeavyHitters<Integer> heavyHitters = HeavyHitters.create(k, 0.0001, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				long seed = t;
+				futures.add(executor.submit(() -> {
+					// Key i is inserted 1000 / (i + 1) times, shuffled with random keys
+					Random random = new Random(seed);
+					for (int i = 0; i < keys; i++) {
+						for (int j = 0; j < 1000 / (i + 1); j++) {
+							heavyHitters.insert(i);
+						}
+						heavyHitters.insert(random.nextInt(keys));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		List<Map.Entry<Integer, Integer>> topK = heavyHitters.getTopK();
+		Assertions.assertEquals(k, topK.size());
+		Set<Integer> found = new HashSet<>();
+		int previous = Integer.MAX_VALUE;
+		for (Map.Entry<Integer, Integer> entry : topK) {
+			found.add(entry.getKey());
+			Assertions.assertTrue(entry.getValue() <= previous);
+			Assertions.assertTrue(entry.getValue() >= threads * (1000 / (entry.getKey() + 1)));
+			previous = entry.getValue();
+		}
+		// The counts of the 10 hottest keys are far apart from the rest
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertTrue(found.contains(i), "Missing " + i);
+		}
+		Assertions.assertEquals(topK.get(0).getValue().intValue(), heavyHitters.count(0));
+	}
+
+	@Test
+	public void replacementTest() {
+		HeavyHitters<String> heavyHitters = new HeavyHitters<>(2,
+				new ConcurrentCountMinSketch<>(1024, 4, BloomFilter::hashCodeMix));
+		Assertions.assertTrue(heavyHitters.getTopK().isEmpty());
+		heavyHitters.insert("a", 5);
+		heavyHitters.insert("b", 3);
+		heavyHitters.insert("c", 1);
+		Assertions.assertEquals(2, heavyHitters.getTopK().size());
+		Assertions.assertEquals("a", heavyHitters.getTopK().get(0).getKey());
+		Assertions.assertEquals("b", heavyHitters.getTopK().get(1).getKey());
+
+		heavyHitters.insert("c", 6);
+		heavyHitters.insert("b", 0);
+		List<Map.Entry<String, Integer>> topK = heavyHitters.getTopK();
+		Assertions.assertEquals("c", topK.get(0).getKey());
+		Assertions.assertEquals(7, topK.get(0).getValue().intValue());
+		Assertions.assertEquals("a", topK.get(1).getKey());
+		Assertions.assertEquals(15, heavyHitters.getTotalCount());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> HeavyHitters.create(0, 0.01, 0.01));
+	}
+}
@@ -0,0 +1,53 @@
+package datastructures;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class IntExtendibleHashTableTest {
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 4, 16 })
+	public void randomOperationsTest(int bucketSize) {
+		IntExtendibleHashTable<String> hashtable = new IntExtendibleHashTable<>(bucketSize);
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(bucketSize);
+
+		for (int i = 0; i < 50000; i++) {
+			int key = random.nextInt(8192) - 4096;
+			if (random.nextInt(3) == 0) {
+				Assertions.assertEquals(expected.remove(key), hashtable.removeInt(key));
+			} else {
+				Assertions.assertEquals(expected.put(key, "value" + i), hashtable.putInt(key, "value" + i));
+			}
+		}
+
+		Assertions.assertEquals(expected.size(), hashtable.size());
+		Assertions.assertEquals(expected, hashtable);
+		for (int key : expected.keySet()) {
+			Assertions.assertTrue(hashtable.containsInt(key));
+			Assertions.assertEquals(expected.get(key), hashtable.getInt(key));
+		}
+	}
+
+	@Test
+	public void removeCollapsesDirectoryTest() {
+		IntExtendibleHashTable<Integer> hashtable = new IntExtendibleHashTable<>(1);
+		for (int i = 0; i < 1000; i++) {
+			hashtable.putInt(i, i);
+		}
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertEquals(i, hashtable.removeInt(i));
+		}
+		Assertions.assertTrue(hashtable.isEmpty());
+		Assertions.assertEquals(1, hashtable.getGlobalDepth());
+
+		hashtable.putInt(5, 5);
+		Assertions.assertEquals(5, hashtable.getInt(5));
+		Assertions.assertEquals(1, hashtable.entrySet().size());
+	}
+}
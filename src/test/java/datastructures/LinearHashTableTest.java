@@ -0,0 +1,135 @@
+package datastructures;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class LinearHashTableTest {
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 4, 16 })
+	public void randomOperationsTest(int bucketSize) {
+		LinearHashTable<Integer, String> hashtable = new LinearHashTable<>(bucketSize);
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(bucketSize);
+
+		for (int i = 0; i < 50000; i++) {
+			int key = random.nextInt(4096);
+			if (random.nextInt(3) == 0) {
+				Assertions.assertEquals(expected.remove(key), hashtable.remove(key));
+			} else {
+				Assertions.assertEquals(expected.put(key, "value" + i), hashtable.put(key, "value" + i));
+			}
+			Assertions.assertEquals(expected.size(), hashtable.size());
+		}
+
+		Assertions.assertEquals(expected, hashtable);
+		for (int key = 0; key < 4096; key++) {
+			Assertions.assertEquals(expected.get(key), hashtable.get(key));
+			Assertions.assertEquals(expected.containsKey(key), hashtable.containsKey(key));
+		}
+	}
+
+	@Test
+	public void growsOneBucketAtATimeTest() {
+		LinearHashTable<Integer, Integer> hashtable = new LinearHashTable<>(4);
+		int buckets = hashtable.getBucketCount();
+		for (int i = 0; i < 100000; i++) {
+			hashtable.put(i, i);
+			Assertions.assertTrue(hashtable.getBucketCount() - buckets <= 1);
+			buckets = hashtable.getBucketCount();
+		}
+		Assertions.assertTrue(hashtable.size() <= LinearHashTable.DEFAULT_MAX_LOAD * buckets * 4);
+
+		for (int i = 0; i < 100000; i++) {
+			Assertions.assertEquals(i, hashtable.remove(i));
+			Assertions.assertTrue(buckets - hashtable.getBucketCount() <= 1);
+			buckets = hashtable.getBucketCount();
+		}
+		Assertions.assertTrue(hashtable.isEmpty());
+		Assertions.assertEquals(2, hashtable.getBucketCount());
+		Assertions.assertEquals(0, hashtable.getOverflowBucketCount());
+	}
+
+	@Test
+	public void sameHashOverflowTest() {
+		// Every key lands in the same bucket chain
+		LinearHashTable<Integer, String> hashtable = new LinearHashTable<>(4, key -> 7);
+		for (int i = 0; i < 100; i++) {
+			hashtable.put(i, "value" + i);
+		}
+		Assertions.assertTrue(hashtable.getOverflowBucketCount() >= 24);
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertEquals("value" + i, hashtable.get(i));
+		}
+
+		hashtable.clear();
+		Assertions.assertNull(hashtable.get(1));
+		Assertions.assertEquals(0, hashtable.getOverflowBucketCount());
+	}
+
+	@Test
+	public void liveViewsTest() {
+		LinearHashTable<Integer, String> hashtable = new LinearHashTable<>(4);
+		Map<Integer, String> expected = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			hashtable.put(i, "value" + i);
+			expected.put(i, "value" + i);
+		}
+		Assertions.assertEquals(expected.hashCode(), hashtable.hashCode());
+		Assertions.assertTrue(hashtable.entrySet().contains(new SimpleEntry<>(3, "value3")));
+		Assertions.assertFalse(hashtable.entrySet().contains(new SimpleEntry<>(3, "value4")));
+		Assertions.assertFalse(hashtable.entrySet().contains(new SimpleEntry<>(null, "value3")));
+
+		Assertions.assertTrue(hashtable.keySet().remove(3));
+		Assertions.assertFalse(hashtable.containsKey(3));
+		Assertions.assertTrue(hashtable.values().remove("value4"));
+		Assertions.assertFalse(hashtable.containsKey(4));
+		Assertions.assertTrue(hashtable.entrySet().remove(new SimpleEntry<>(5, "value5")));
+		Assertions.assertFalse(hashtable.containsKey(5));
+
+		for (Iterator<Entry<Integer, String>> iterator = hashtable.entrySet().iterator(); iterator.hasNext();) {
+			if (iterator.next().getKey() % 2 == 1) {
+				iterator.remove();
+			}
+		}
+		Assertions.assertEquals(499, hashtable.size());
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertEquals(i % 2 == 0 && i != 4 ? "value" + i : null, hashtable.get(i), "key " + i);
+		}
+
+		Iterator<Integer> iterator = hashtable.keySet().iterator();
+		iterator.next();
+		hashtable.put(-1, "new");
+		Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+	}
+
+	@Test
+	public void iteratorRemovesOverflowBucketsTest() {
+		LinearHashTable<Integer, String> hashtable = new LinearHashTable<>(4, key -> 7);
+		for (int i = 0; i < 100; i++) {
+			hashtable.put(i, "value" + i);
+		}
+
+		int seen = 0;
+		for (Iterator<Entry<Integer, String>> iterator = hashtable.entrySet().iterator(); iterator.hasNext();) {
+			iterator.next();
+			seen++;
+			if (seen % 5 != 0) {
+				iterator.remove();
+			}
+		}
+		Assertions.assertEquals(100, seen);
+		Assertions.assertEquals(20, hashtable.size());
+		Assertions.assertEquals(20, hashtable.entrySet().stream().count());
+		Assertions.assertTrue(hashtable.getOverflowBucketCount() < 24);
+	}
+}
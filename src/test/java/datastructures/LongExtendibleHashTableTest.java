@@ -0,0 +1,114 @@
+package datastructures;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class LongExtendibleHashTableTest {
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 4, 16 })
+	public void randomOperationsTest(int bucketSize) {
+		LongExtendibleHashTable<String> hashtable = new LongExtendibleHashTable<>(bucketSize);
+		Map<Long, String> expected = new HashMap<>();
+		Random random = new Random(bucketSize);
+
+		for (int i = 0; i < 50000; i++) {
+			// Keys that use all 64 bits. With one key per bucket the directory grows
+			// until the two closest hashes differ, few keys keep it small
+			long key = random.nextInt(256) * 0x9E3779B97F4A7C15L;
+			if (random.nextInt(3) == 0) {
+				Assertions.assertEquals(expected.remove(key), hashtable.removeLong(key));
+			} else {
+				Assertions.assertEquals(expected.put(key, "value" + i), hashtable.putLong(key, "value" + i));
+			}
+		}
+
+		Assertions.assertEquals(expected.size(), hashtable.size());
+		Assertions.assertEquals(expected, hashtable);
+		for (long key : expected.keySet()) {
+			Assertions.assertTrue(hashtable.containsLong(key));
+			Assertions.assertEquals(expected.get(key), hashtable.getLong(key));
+		}
+	}
+
+	@Test
+	public void removeCollapsesDirectoryTest() {
+		LongExtendibleHashTable<Long> hashtable = new LongExtendibleHashTable<>();
+		for (long i = 0; i < 10000; i++) {
+			hashtable.putLong(i * 31, i);
+		}
+		Assertions.assertTrue(hashtable.getGlobalDepth() > 10);
+
+		for (long i = 0; i < 10000; i++) {
+			Assertions.assertEquals(i, hashtable.removeLong(i * 31));
+		}
+		Assertions.assertTrue(hashtable.isEmpty());
+		Assertions.assertEquals(1, hashtable.getGlobalDepth());
+	}
+
+	@Test
+	public void boxedMapMethodsTest() {
+		LongExtendibleHashTable<String> hashtable = new LongExtendibleHashTable<>();
+		Assertions.assertNull(hashtable.put(1L, "one"));
+		Assertions.assertEquals("one", hashtable.get(1L));
+		Assertions.assertNull(hashtable.get(1));
+		Assertions.assertFalse(hashtable.containsKey("1"));
+		Assertions.assertEquals("one", hashtable.remove(1L));
+		Assertions.assertThrows(NullPointerException.class, () -> hashtable.putLong(2, null));
+	}
+
+	@Test
+	public void liveViewsTest() {
+		LongExtendibleHashTable<String> hashtable = new LongExtendibleHashTable<>(4);
+		Map<Long, String> expected = new HashMap<>();
+		for (long i = 0; i < 1000; i++) {
+			hashtable.putLong(i, "value" + i);
+			expected.put(i, "value" + i);
+		}
+		Assertions.assertEquals(expected, hashtable);
+		Assertions.assertEquals(expected.hashCode(), hashtable.hashCode());
+		Assertions.assertTrue(hashtable.entrySet().contains(new SimpleEntry<>(3L, "value3")));
+		Assertions.assertFalse(hashtable.entrySet().contains(new SimpleEntry<>(3L, "value4")));
+
+		Assertions.assertTrue(hashtable.keySet().remove(3L));
+		Assertions.assertFalse(hashtable.containsLong(3));
+		Assertions.assertTrue(hashtable.values().remove("value4"));
+		Assertions.assertFalse(hashtable.containsLong(4));
+
+		for (Iterator<Entry<Long, String>> iterator = hashtable.entrySet().iterator(); iterator.hasNext();) {
+			Entry<Long, String> entry = iterator.next();
+			if (entry.getKey() % 2 == 1) {
+				iterator.remove();
+			} else {
+				entry.setValue("even" + entry.getKey());
+			}
+		}
+		Assertions.assertEquals(499, hashtable.size());
+		for (long i = 0; i < 1000; i++) {
+			Assertions.assertEquals(i % 2 == 0 && i != 4 ? "even" + i : null, hashtable.getLong(i), "key " + i);
+		}
+
+		Iterator<Long> iterator = hashtable.keySet().iterator();
+		iterator.next();
+		hashtable.putLong(-1, "new");
+		Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+	}
+
+	@Test
+	public void sameHashTest() {
+		LongExtendibleHashTable<String> hashtable = new LongExtendibleHashTable<>(2, key -> 7);
+		hashtable.putLong(1, "a");
+		hashtable.putLong(2, "b");
+		Assertions.assertThrows(IllegalStateException.class, () -> hashtable.putLong(3, "c"));
+		Assertions.assertEquals("b", hashtable.getLong(2));
+	}
+}
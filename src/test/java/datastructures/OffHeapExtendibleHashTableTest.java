@@ -0,0 +1,136 @@
+package datastructures;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import datastructures.storage.Serializer;
+
+public class OffHeapExtendibleHashTableTest {
+	private static final int PAGE_SIZE = 256;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 10, 1000, 50000 })
+	public void randomOperationsTest(int operations) {
+		// Small slabs so the pages span many slabs
+		OffHeapExtendibleHashTable<Integer, String> hashtable = new OffHeapExtendibleHashTable<>(PAGE_SIZE,
+				PAGE_SIZE * 16, Serializer.INTEGER, Serializer.STRING);
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(operations);
+		for (int i = 0; i < operations; i++) {
+			int key = random.nextInt(operations / 2 + 1);
+			switch (random.nextInt(3)) {
+			case 0:
+				// Values of different lengths so overwrites move entries
+				String value = "value" + random.nextInt(1 << random.nextInt(20));
+				Assertions.assertEquals(expected.put(key, value), hashtable.put(key, value));
+				break;
+			case 1:
+				Assertions.assertEquals(expected.remove(key), hashtable.remove(key));
+				break;
+			default:
+				Assertions.assertEquals(expected.get(key), hashtable.get(key));
+				Assertions.assertEquals(expected.containsKey(key), hashtable.containsKey(key));
+			}
+		}
+
+		Assertions.assertEquals(expected.size(), hashtable.size());
+		Assertions.assertEquals(expected.entrySet(), hashtable.entrySet());
+		Assertions.assertEquals(expected.hashCode(), hashtable.hashCode());
+
+		// The key set is a view of the table
+		for (Integer key : expected.keySet()) {
+			Assertions.assertTrue(hashtable.keySet().remove(key));
+		}
+		Assertions.assertTrue(hashtable.isEmpty());
+	}
+
+	@Test
+	public void longKeysTest() {
+		OffHeapExtendibleHashTable<String, Integer> hashtable = new OffHeapExtendibleHashTable<>(Serializer.STRING,
+				Serializer.INTEGER);
+		String prefix = "a key that is longer than a few longs ";
+		for (int i = 0; i < 10000; i++) {
+			hashtable.put(prefix + i, i);
+		}
+		for (int i = 0; i < 10000; i++) {
+			Assertions.assertEquals(i, hashtable.get(prefix + i));
+		}
+		Assertions.assertNull(hashtable.get(prefix));
+		Assertions.assertNull(hashtable.get(prefix + "10000"));
+	}
+
+	@Test
+	public void reusesFreedPagesTest() {
+		OffHeapExtendibleHashTable<Integer, Integer> hashtable = new OffHeapExtendibleHashTable<>(PAGE_SIZE,
+				Serializer.INTEGER, Serializer.INTEGER);
+		for (int i = 0; i < 20000; i++) {
+			hashtable.put(i, i);
+		}
+		int pages = hashtable.getPageCount();
+		long offHeapBytes = hashtable.getOffHeapBytes();
+
+		for (int i = 0; i < 20000; i++) {
+			hashtable.remove(i);
+		}
+		Assertions.assertTrue(hashtable.isEmpty());
+		Assertions.assertEquals(1, hashtable.getGlobalDepth());
+
+		for (int i = 0; i < 20000; i++) {
+			hashtable.put(i, i);
+		}
+		Assertions.assertEquals(pages, hashtable.getPageCount());
+		Assertions.assertEquals(offHeapBytes, hashtable.getOffHeapBytes());
+
+		hashtable.clear();
+		Assertions.assertTrue(hashtable.isEmpty());
+		Assertions.assertNull(hashtable.get(1));
+	}
+
+	@Test
+	public void failedSplitKeepsOldValueTest() {
+		OffHeapExtendibleHashTable<String, String> hashtable = new OffHeapExtendibleHashTable<>(PAGE_SIZE,
+				Serializer.STRING, Serializer.STRING);
+		// Keys with the same hash, their bucket can not be split
+		char[] filler = new char[80];
+		hashtable.put("6kh7w", new String(filler));
+		hashtable.put("7kl9h", new String(filler));
+		hashtable.put("4na2", "old");
+
+		char[] longer = new char[50];
+		Assertions.assertThrows(IllegalStateException.class, () -> hashtable.put("4na2", new String(longer)));
+		Assertions.assertEquals("old", hashtable.get("4na2"));
+		Assertions.assertEquals(3, hashtable.size());
+	}
+
+	@Test
+	public void slabsGrowTest() {
+		OffHeapExtendibleHashTable<Integer, Integer> hashtable = new OffHeapExtendibleHashTable<>(Serializer.INTEGER,
+				Serializer.INTEGER);
+		// A small first slab instead of the max slab size
+		Assertions.assertTrue(hashtable.getOffHeapBytes() <= 16 * OffHeapExtendibleHashTable.DEFAULT_PAGE_SIZE);
+
+		for (int i = 0; i < 100000; i++) {
+			hashtable.put(i, i);
+		}
+		long pagesBytes = (long) hashtable.getPageCount() * OffHeapExtendibleHashTable.DEFAULT_PAGE_SIZE;
+		Assertions.assertTrue(hashtable.getOffHeapBytes() >= pagesBytes);
+		Assertions.assertTrue(hashtable.getOffHeapBytes() < pagesBytes * 2 + 16 * 1024);
+	}
+
+	@Test
+	public void entryTooLargeTest() {
+		OffHeapExtendibleHashTable<Integer, String> hashtable = new OffHeapExtendibleHashTable<>(PAGE_SIZE,
+				Serializer.INTEGER, Serializer.STRING);
+		char[] value = new char[PAGE_SIZE];
+		Assertions.assertThrows(IllegalArgumentException.class, () -> hashtable.put(1, new String(value)));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new OffHeapExtendibleHashTable<>(PAGE_SIZE, PAGE_SIZE + 1, Serializer.INTEGER, Serializer.STRING));
+		Assertions.assertTrue(hashtable.isEmpty());
+	}
+}
@@ -0,0 +1,106 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class PackedCountingBloomFilterTest {
+	@ParameterizedTest
+	@ValueSource(ints = { 2, 4, 8, 16 })
+	public void insertRemoveTest(int counterBits) {
+		int insertions = 100000;
+		PackedCountingBloomFilter<Integer> filter = PackedCountingBloomFilter.create(insertions, 0.01, counterBits,
+				BloomFilter::hashCodeMix);
+		for (int i = 0; i < insertions; i++) {
+			filter.insert(i);
+		}
+		for (int i = 0; i < insertions; i += 2) {
+			filter.remove(i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < insertions; i++) {
+			if (i % 2 == 1) {
+				Assertions.assertTrue(filter.contains(i));
+			} else if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue(falsePositives < insertions / 2 * 0.02);
+		Assertions.assertEquals((filter.getNumCounters() * counterBits + 63) / 64 * 8, filter.getMemoryBytes());
+	}
+
+	@Test
+	public void overflowTest() {
+		PackedCountingBloomFilter<String> filter = new PackedCountingBloomFilter<>(1024, 3, 4,
+				BloomFilter::hashCodeMix);
+		for (int i = 0; i < 14; i++) {
+			Assertions.assertTrue(filter.insert("a"));
+		}
+		Assertions.assertEquals(0, filter.getOverflows());
+		Assertions.assertFalse(filter.insert("a"));
+		Assertions.assertFalse(filter.insert("a"));
+		Assertions.assertEquals(2, filter.getOverflows());
+
+		// Saturated counters stick
+		for (int i = 0; i < 20; i++) {
+			filter.remove("a");
+		}
+		Assertions.assertTrue(filter.contains("a"));
+
+		filter.insert("b");
+		filter.remove("b");
+		filter.remove("b");
+		Assertions.assertFalse(filter.contains("b"));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new PackedCountingBloomFilter<>(1024, 3, 3, BloomFilter::hashCodeMix));
+	}
+
+	@Test
+	public void concurrentTest() throws Exception {
+		int threads = 8;
+		int itemsPerThread = 20000;
+		PackedCountingBloomFilter<Integer> filter = PackedCountingBloomFilter.create(threads * itemsPerThread, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int first = t * itemsPerThread;
+				futures.add(executor.submit(() -> {
+					// Every item is inserted twice and removed once
+					for (int i = first; i < first + itemsPerThread; i++) {
+						filter.insert(i);
+						filter.insert(i);
+						filter.remove(i);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		for (int i = 0; i < threads * itemsPerThread; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+		for (int i = 0; i < threads * itemsPerThread; i++) {
+			filter.remove(i);
+		}
+		int remaining = 0;
+		for (int i = 0; i < threads * itemsPerThread; i++) {
+			if (filter.contains(i)) {
+				remaining++;
+			}
+		}
+		Assertions.assertEquals(0, remaining);
+	}
+}
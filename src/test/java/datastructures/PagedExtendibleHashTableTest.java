@@ -0,0 +1,331 @@
+package datastructures;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import datastructures.storage.BufferPool;
+import datastructures.storage.Serializer;
+import datastructures.storage.WriteAheadLog;
+
+public class PagedExtendibleHashTableTest {
+	private static final int PAGE_SIZE = 256;
+
+	@TempDir
+	public Path tempDir;
+
+	private PagedExtendibleHashTable<Integer, String> open() throws IOException {
+		return open(0);
+	}
+
+	private PagedExtendibleHashTable<Integer, String> open(int bufferPoolSize) throws IOException {
+		return new PagedExtendibleHashTable<>(tempDir.resolve("index"), PAGE_SIZE, bufferPoolSize,
+				Serializer.INTEGER, Serializer.STRING);
+	}
+
+	private static PagedExtendibleHashTable<Integer, String> openLogged(Path path) throws IOException {
+		return new PagedExtendibleHashTable<>(path, PAGE_SIZE, 16, true, Serializer.INTEGER, Serializer.STRING);
+	}
+
+	/**
+	 * Runs in a separate process that is killed by the test. Puts keys counting up
+	 * from the given key and removes key i - 8 along with every fourth key,
+	 * printing each key once its operations have returned.
+	 */
+	public static class CrashingWriter {
+		public static void main(String[] args) throws IOException {
+			PagedExtendibleHashTable<Integer, String> hashtable = openLogged(Paths.get(args[0]));
+			for (int i = Integer.parseInt(args[1]);; i++) {
+				hashtable.put(i, "value" + i);
+				if (i % 4 == 0) {
+					hashtable.remove(i - 8);
+				}
+				if (i % 1000 == 999) {
+					hashtable.flush();
+				}
+				System.out.println(i);
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 10, 1000, 20000 })
+	public void reopenTest(int entries) throws IOException {
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			for (int i = 0; i < entries; i++) {
+				Assertions.assertNull(hashtable.put(i, "value" + i));
+			}
+			Assertions.assertEquals(entries, hashtable.size());
+		}
+
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			Assertions.assertEquals(entries, hashtable.size());
+			for (int i = 0; i < entries; i++) {
+				Assertions.assertEquals("value" + i, hashtable.get(i));
+			}
+			Assertions.assertNull(hashtable.get(-1));
+			Assertions.assertEquals(entries, hashtable.entrySet().size());
+		}
+	}
+
+	@Test
+	public void overwriteTest() throws IOException {
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			for (int i = 0; i < 1000; i++) {
+				hashtable.put(i, "a");
+			}
+			for (int i = 0; i < 1000; i++) {
+				// Longer values than before, entries have to move
+				Assertions.assertEquals("a", hashtable.put(i, "longer value " + i));
+			}
+			Assertions.assertEquals(1000, hashtable.size());
+			for (int i = 0; i < 1000; i++) {
+				Assertions.assertEquals("longer value " + i, hashtable.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void failedSplitKeepsOldValueTest() throws IOException {
+		try (PagedExtendibleHashTable<String, String> hashtable = new PagedExtendibleHashTable<>(
+				tempDir.resolve("index"), PAGE_SIZE, Serializer.STRING, Serializer.STRING)) {
+			// Keys with the same hash, their bucket can not be split
+			char[] filler = new char[80];
+			hashtable.put("6kh7w", new String(filler));
+			hashtable.put("7kl9h", new String(filler));
+			hashtable.put("4na2", "old");
+
+			char[] longer = new char[50];
+			Assertions.assertThrows(IllegalStateException.class, () -> hashtable.put("4na2", new String(longer)));
+			Assertions.assertEquals("old", hashtable.get("4na2"));
+			Assertions.assertEquals(3, hashtable.size());
+		}
+	}
+
+	@Test
+	public void liveViewsTest() throws IOException {
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			Map<Integer, String> expected = new HashMap<>();
+			for (int i = 0; i < 2000; i++) {
+				hashtable.put(i, "value" + i);
+				expected.put(i, "value" + i);
+			}
+			Assertions.assertEquals(expected, hashtable);
+			Assertions.assertEquals(expected.hashCode(), hashtable.hashCode());
+			Assertions.assertTrue(hashtable.entrySet().contains(new SimpleEntry<>(3, "value3")));
+			Assertions.assertFalse(hashtable.entrySet().contains(new SimpleEntry<>(3, "value4")));
+
+			Assertions.assertTrue(hashtable.keySet().remove(3));
+			Assertions.assertFalse(hashtable.containsKey(3));
+			Assertions.assertTrue(hashtable.values().remove("value4"));
+			Assertions.assertFalse(hashtable.containsKey(4));
+
+			for (Iterator<Integer> iterator = hashtable.keySet().iterator(); iterator.hasNext();) {
+				if (iterator.next() % 2 == 1) {
+					iterator.remove();
+				}
+			}
+			Assertions.assertEquals(999, hashtable.size());
+			for (int i = 0; i < 2000; i++) {
+				Assertions.assertEquals(i % 2 == 0 && i != 4, hashtable.containsKey(i), "key " + i);
+			}
+
+			Iterator<Integer> iterator = hashtable.keySet().iterator();
+			iterator.next();
+			hashtable.put(-1, "new");
+			Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+		}
+	}
+
+	@Test
+	public void removeCollapsesDirectoryTest() throws IOException {
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			for (int i = 0; i < 5000; i++) {
+				hashtable.put(i, "value" + i);
+			}
+			Assertions.assertTrue(hashtable.getGlobalDepth() > 1);
+
+			for (int i = 0; i < 5000; i++) {
+				Assertions.assertEquals("value" + i, hashtable.remove(i));
+				Assertions.assertNull(hashtable.get(i));
+			}
+			Assertions.assertTrue(hashtable.isEmpty());
+			Assertions.assertEquals(1, hashtable.getGlobalDepth());
+
+			// Freed pages are reused
+			for (int i = 0; i < 5000; i++) {
+				hashtable.put(i, "again" + i);
+			}
+			for (int i = 0; i < 5000; i++) {
+				Assertions.assertEquals("again" + i, hashtable.get(i));
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 4, 64 })
+	public void bufferPoolTest(int bufferPoolSize) throws IOException {
+		final int entries = 20000;
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open(bufferPoolSize)) {
+			for (int i = 0; i < entries; i++) {
+				hashtable.put(i, "value" + i);
+			}
+			for (int i = 0; i < entries; i += 2) {
+				Assertions.assertEquals("value" + i, hashtable.remove(i));
+			}
+
+			BufferPool bufferPool = hashtable.getBufferPool();
+			Assertions.assertTrue(bufferPool.getEvictions() > 0);
+			Assertions.assertTrue(bufferPool.getPageWrites() >= bufferPool.getBatchWrites());
+		}
+
+		// Reopen memory mapped, everything must have been written back
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			Assertions.assertEquals(entries / 2, hashtable.size());
+			for (int i = 0; i < entries; i++) {
+				Assertions.assertEquals(i % 2 == 0 ? null : "value" + i, hashtable.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void readsVersionOneDirectoryTest() throws IOException {
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			for (int i = 0; i < 1000; i++) {
+				hashtable.put(i, "value" + i);
+			}
+		}
+
+		// Version 1 had the same header without the lsn
+		Path directoryPath = tempDir.resolve("index.dir");
+		ByteBuffer directory = ByteBuffer.wrap(Files.readAllBytes(directoryPath));
+		ByteBuffer versionOne = ByteBuffer.allocate(directory.capacity() - Long.BYTES);
+		directory.limit(28);
+		versionOne.put(directory).putInt(4, 1);
+		directory.limit(directory.capacity()).position(36);
+		versionOne.put(directory);
+		Files.write(directoryPath, versionOne.array());
+
+		try (PagedExtendibleHashTable<Integer, String> hashtable = openLogged(tempDir.resolve("index"))) {
+			Assertions.assertEquals(1000, hashtable.size());
+			for (int i = 0; i < 1000; i++) {
+				Assertions.assertEquals("value" + i, hashtable.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void entryTooLargeTest() throws IOException {
+		try (PagedExtendibleHashTable<Integer, String> hashtable = open()) {
+			StringBuilder value = new StringBuilder();
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				value.append('x');
+			}
+			Assertions.assertThrows(IllegalArgumentException.class, () -> hashtable.put(1, value.toString()));
+		}
+	}
+
+	@Test
+	public void writeAheadLogRequiresBufferPoolTest() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new PagedExtendibleHashTable<>(
+				tempDir.resolve("index"), PAGE_SIZE, 0, true, Serializer.INTEGER, Serializer.STRING));
+	}
+
+	@Test
+	public void killedProcessRecoveryTest() throws Exception {
+		Path path = tempDir.resolve("index");
+		Random random = new Random(42);
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		int lastAcked = -1;
+
+		for (int round = 0; round < 4; round++) {
+			Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					CrashingWriter.class.getName(), path.toString(), Integer.toString(lastAcked + 1))
+							.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+			int acks = 200 + random.nextInt(3000);
+			try (BufferedReader acked = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while (acks-- > 0 && (line = acked.readLine()) != null) {
+					lastAcked = Integer.parseInt(line);
+				}
+				process.destroyForcibly();
+			}
+			Assertions.assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+			Assertions.assertTrue(acks < 0, "Writer exited before it was killed");
+
+			try (PagedExtendibleHashTable<Integer, String> hashtable = openLogged(path)) {
+				// The writer may have logged more puts before it was killed, the last one
+				// recovered is the largest key
+				int recovered = Math.max(lastAcked,
+						hashtable.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1));
+				for (int i = 0; i <= recovered + 8; i++) {
+					String value = hashtable.get(i);
+					if (recovered > lastAcked && i % 4 == 0 && i + 8 == recovered) {
+						// The remove after the last recovered put may or may not have been logged
+						continue;
+					} else if (i > recovered || (i % 4 == 0 && i + 8 <= recovered)) {
+						Assertions.assertNull(value, "key " + i);
+					} else {
+						Assertions.assertEquals("value" + i, value, "key " + i);
+					}
+				}
+				Assertions.assertEquals(hashtable.size(), hashtable.entrySet().size());
+				lastAcked = recovered;
+			}
+		}
+	}
+
+	@Test
+	public void groupCommitTest() throws Exception {
+		final int threads = 8;
+		final int keysPerThread = 200;
+		try (PagedExtendibleHashTable<Integer, String> hashtable = openLogged(tempDir.resolve("index"))) {
+			List<Thread> writers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int first = t * keysPerThread;
+				writers.add(new Thread(() -> {
+					for (int i = first; i < first + keysPerThread; i++) {
+						hashtable.put(i, "value" + i);
+					}
+				}));
+			}
+			writers.forEach(Thread::start);
+			for (Thread writer : writers) {
+				writer.join();
+			}
+
+			WriteAheadLog log = hashtable.getWriteAheadLog();
+			Assertions.assertEquals(threads * keysPerThread, hashtable.size());
+			Assertions.assertTrue(log.getSyncs() < log.getAppends(), log.getSyncs() + " syncs");
+		}
+
+		try (PagedExtendibleHashTable<Integer, String> hashtable = openLogged(tempDir.resolve("index"))) {
+			for (int i = 0; i < threads * keysPerThread; i++) {
+				Assertions.assertEquals("value" + i, hashtable.get(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package datastructures;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ScalableBloomFilterTest {
+	@ParameterizedTest
+	@ValueSource(ints = { 100, 10000, 500000 })
+	public void falsePositiveRateTest(int insertions) {
+		double falsePositiveRate = 0.01;
+		ScalableBloomFilter<Integer> filter = new ScalableBloomFilter<>(1000, falsePositiveRate);
+		for (int i = 0; i < insertions; i++) {
+			filter.insert(i);
+		}
+		for (int i = 0; i < insertions; i++) {
+			Assertions.assertTrue(filter.contains(i));
+		}
+
+		int lookups = Math.max(insertions, 100000);
+		int falsePositives = 0;
+		for (int i = insertions; i < insertions + lookups; i++) {
+			if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		double estimated = filter.getEstimatedFalsePositiveRate();
+		Assertions.assertTrue(estimated <= falsePositiveRate);
+		Assertions.assertEquals(estimated, (double) falsePositives / lookups, estimated * 0.3 + 0.0005);
+	}
+
+	@Test
+	public void growthTest() {
+		ScalableBloomFilter<Integer> filter = new ScalableBloomFilter<>(1000, 0.01);
+		Assertions.assertEquals(1, filter.getSliceCount());
+		long initialMemory = filter.getMemoryBytes();
+
+		// Slices of 1000, 2000, 4000 and 8000 items
+		for (int i = 0; i < 15000; i++) {
+			filter.insert(i);
+		}
+		Assertions.assertEquals(4, filter.getSliceCount());
+		Assertions.assertTrue(filter.getMemoryBytes() > initialMemory * 15);
+
+		long insertions = filter.getInsertions();
+		Assertions.assertFalse(filter.insert(0));
+		Assertions.assertEquals(insertions, filter.getInsertions());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(0, 0.01));
+	}
+}